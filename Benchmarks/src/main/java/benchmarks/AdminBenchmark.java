@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+* Benchmarks the changes made by the Admin endpoint at 4, 150 and 10,000 currencies in the database. Every change
+* copies the changed currencies, publishes the next snapshot and drops the cross rates which depend on the change,
+* so the cost grows with the number of currencies. Each benchmark makes a change and then reverts it, so the
+* database is the same size for every invocation.
+*
+* The session key is a signed token, so the time includes verifying the token of each request.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { CurrencyService.TOKEN_SECRET_ARG, CurrencyService.RATE_LOG_ARG })
+public class AdminBenchmark {
+
+    //CONSTANTS
+    private static final String NEW_CODE = "ZZZ";   //Never added by CurrencyService.createDatabase()
+
+    @Param({ "4", "150", "10000" })
+    public int currencies;                  //The number of currencies in the database
+
+    private Object database;
+    private String sessionKey;
+    private double rate = 1.5;
+
+
+
+    /**
+     * Fills the database.
+     * @throws Throwable If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        database = CurrencyService.createDatabase(currencies);
+        sessionKey = CurrencyService.sessionKey();
+    }
+
+
+
+
+    /**
+     * Adds the rate between USD and NZD (and the inverse rate) then removes it, two snapshots are published.
+     */
+    @Benchmark
+    public boolean addRemoveRate() throws Throwable {
+        boolean added = (boolean) CurrencyService.ADD_RATE.invokeExact(database, sessionKey, "USD", "NZD", rate);
+        boolean removed = (boolean) CurrencyService.REMOVE_RATE.invokeExact(database, sessionKey, "USD", "NZD");
+        return added & removed;
+    }
+
+
+
+
+    /**
+     * Updates the rate between AUD and USD (and the inverse rate), one snapshot is published.
+     */
+    @Benchmark
+    public boolean updateRate() throws Throwable {
+        return (boolean) CurrencyService.UPDATE_RATE.invokeExact(database, sessionKey, "AUD", "USD", rate);
+    }
+
+
+
+
+    /**
+     * Adds a currency with a rate to AUD then removes the currency, three snapshots are published.
+     */
+    @Benchmark
+    public boolean addRemoveCurrency() throws Throwable {
+        boolean added = (boolean) CurrencyService.ADD_CURRENCY.invokeExact(database, sessionKey, NEW_CODE);
+        boolean rateAdded = (boolean) CurrencyService.ADD_RATE.invokeExact(database, sessionKey, NEW_CODE, "AUD", rate);
+        boolean removed = (boolean) CurrencyService.REMOVE_CURRENCY.invokeExact(database, sessionKey, NEW_CODE);
+        return added & rateAdded & removed;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.util.Collection;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+* Runs the convert and rateOf benchmarks of the database and the currency code lookup benchmarks of the rate
+* snapshot with the GC profiler (the same as -prof gc) and checks that they do not allocate memory, including
+* when a code is passed in lower case or a cross rate is used.
+* The bytes allocated per call are printed for each benchmark and number of currencies.
+*
+* Usage: java -cp Benchmarks/target/benchmarks.jar benchmarks.AllocationCheck [JMH options]
+* The process exits with status 1 if any benchmark allocates more than MAX_BYTES per call.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class AllocationCheck {
+
+    //CONSTANTS
+    private static final String HOT_PATH_BENCHMARKS = "benchmarks\\.(DatabaseBenchmark\\.(convert|convertLowerCase|convertCrossRate|rateOf|rateOfLowerCase)"
+            + "|CodeLookupBenchmark\\.(snapshotLookup|snapshotLookupLowerCase))$";
+    private static final double MAX_BYTES = 1.0;        //Allows for the rounding of the profiler, an allocation is at least 16 bytes
+
+
+
+    /**
+     * Runs the benchmarks and checks the bytes allocated per call.
+     * @param args - JMH command line options applied to the run, for example -p currencies=150.
+     * @throws RunnerException If a benchmark fails.
+     * @throws CommandLineOptionException If the options are not valid.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(new CommandLineOptions(args))
+                .include(HOT_PATH_BENCHMARKS)
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(1));
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        boolean isPassed = !results.isEmpty();
+        System.out.println();
+        for(RunResult result : results)
+        {
+            Result allocated = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            double bytes = allocated == null ? Double.NaN : allocated.getScore();
+            boolean isAllocationFree = bytes <= MAX_BYTES;
+            isPassed &= isAllocationFree;
+            System.out.println(String.format("%-55s currencies=%-6s %10.3f B/op %s", result.getParams().getBenchmark(),
+                    result.getParams().getParam("currencies"), bytes, isAllocationFree ? "" : "ALLOCATES"));
+        }
+        System.out.println(isPassed ? "PASSED" : "FAILED");
+        System.exit(isPassed ? 0 : 1);
+    }
+}
\ No newline at end of file
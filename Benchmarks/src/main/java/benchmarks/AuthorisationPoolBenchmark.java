@@ -0,0 +1,162 @@
+package benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import localhost.identity.Authorisation_jws.Authorisation;
+import localhost.identity.Authorisation_jws.AuthorisationServiceLocator;
+import org.openjdk.jmh.annotations.*;
+
+/**
+* Benchmarks the cost of getting an Authorisation stub for each admin request, with the AuthorisationPool and
+* the way it was done before the pool, by building a new AuthorisationServiceLocator and stub for every request.
+*
+* The calls are made to a stub endpoint in the same JVM which answers every request with the same authorise
+* response, so the time measured is the client side of the call and not the Identity Service. The stub endpoint
+* is served by the JDK HTTP server on a free port of the loopback address.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorisationPoolBenchmark {
+
+    //CONSTANTS
+    private static final int POOL_SIZE = 8;
+    private static final byte[] AUTHORISE_RESPONSE = ("<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+            + "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\""
+            + " xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+            + "<soapenv:Body><ns1:authoriseResponse soapenv:encodingStyle=\"http://schemas.xmlsoap.org/soap/encoding/\""
+            + " xmlns:ns1=\"http://DefaultNamespace\"><authoriseReturn xsi:type=\"xsd:boolean\">true</authoriseReturn>"
+            + "</ns1:authoriseResponse></soapenv:Body></soapenv:Envelope>").getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;              //The stub Authorisation endpoint
+    private ExecutorService executor;       //The threads which answer the requests to the stub endpoint
+    private String address;                 //The URL of the stub endpoint
+    private Object pool;                    //The AuthorisationPool
+    private String sessionKey = "benchmark";    //Read from a field so the JIT can not fold the calls into constants
+
+
+
+    /**
+     * Starts the stub endpoint and creates the pool of stubs for it.
+     * @throws Throwable If the endpoint could not be started or the pool could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                answer(exchange);
+            }
+        });
+        executor = Executors.newFixedThreadPool(4);
+        server.setExecutor(executor);
+        server.start();
+
+        address = "http://127.0.0.1:" + server.getAddress().getPort() + "/identity/Authorisation.jws";
+        pool = CurrencyService.NEW_AUTHORISATION_POOL.invoke(POOL_SIZE, address);
+    }
+
+
+
+
+    /**
+     * Stops the stub endpoint.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+
+
+
+    /**
+     * Borrows a stub from the pool and gives it back, the overhead the pool adds to each request.
+     */
+    @Benchmark
+    public Object pooledStub() throws Throwable {
+        Object stub = CurrencyService.BORROW.invoke(pool);
+        CurrencyService.RELEASE.invoke(pool, stub);
+        return stub;
+    }
+
+
+
+
+    /**
+     * Builds a new service locator and stub, the overhead of each request before the pool.
+     */
+    @Benchmark
+    public Object newStub() throws Throwable {
+        AuthorisationServiceLocator locator = new AuthorisationServiceLocator();
+        locator.setAuthorisationEndpointAddress(address);
+        return locator.getAuthorisation();
+    }
+
+
+
+
+    /**
+     * Authorises a session key with a stub borrowed from the pool.
+     */
+    @Benchmark
+    public boolean pooledAuthorise() throws Throwable {
+        Authorisation stub = (Authorisation) CurrencyService.BORROW.invoke(pool);
+        boolean isAuthorised = stub.authorise(sessionKey);
+        CurrencyService.RELEASE.invoke(pool, stub);
+        return isAuthorised;
+    }
+
+
+
+
+    /**
+     * Authorises a session key with a new service locator and stub, as each request did before the pool.
+     */
+    @Benchmark
+    public boolean newStubAuthorise() throws Throwable {
+        AuthorisationServiceLocator locator = new AuthorisationServiceLocator();
+        locator.setAuthorisationEndpointAddress(address);
+        return locator.getAuthorisation().authorise(sessionKey);
+    }
+
+
+
+
+    /**
+     * Reads the whole request and answers it with the authorise response.
+     * @param exchange - The request.
+     * @throws IOException If the connection failed.
+     */
+    private static void answer(HttpExchange exchange) throws IOException {
+        InputStream request = exchange.getRequestBody();
+        byte[] buffer = new byte[4096];
+        while(request.read(buffer) >= 0)
+        {
+            //The request is the same every time, only the response matters
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(200, AUTHORISE_RESPONSE.length);
+        OutputStream response = exchange.getResponseBody();
+        response.write(AUTHORISE_RESPONSE);
+        response.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+* Compares finding the from and to currencies of a convert or rateOf call in a RateSnapshot, which looks the codes
+* up in its CurrencyCodes table, with upper casing both codes and looking them up in a HashMap<String, Currency>
+* the way the database did before, at 4, 150 and 10,000 currencies.
+*
+* The snapshot lookups are run with upper and lower case codes, as the table matches codes without case and
+* without creating Strings. Run with -prof gc to see the bytes allocated per lookup.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { CurrencyService.TOKEN_SECRET_ARG, CurrencyService.RATE_LOG_ARG })
+public class CodeLookupBenchmark {
+
+    @Param({ "4", "150", "10000" })
+    public int currencies;                  //The number of currencies in the database
+
+    private Object snapshot;                //The snapshot published by the database
+    private HashMap<String, Object> currencyMap;    //The same currencies <CurrencyCode, Currency>
+    private String from = "AUD";            //Read from fields so the JIT can not fold the lookups into constants
+    private String to = "USD";
+    private String fromLowerCase = "aud";
+    private String toLowerCase = "usd";
+
+
+
+    /**
+     * Fills the database and the HashMap with the same currencies.
+     * @throws Throwable If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Object database = CurrencyService.createDatabase(currencies);
+        snapshot = CurrencyService.snapshot();
+        currencyMap = new HashMap<>();
+        for(String rate : (String[]) CurrencyService.LIST_RATES.invokeExact(database))
+        {
+            //Each listed rate is formatted as <fromCode>-<toCode>:<rate>, every currency has at least one rate
+            String code = rate.substring(0, 3);
+            currencyMap.put(code, CurrencyService.GET_CURRENCY.invoke(snapshot, code));
+        }
+    }
+
+
+
+
+    /**
+     * Finds AUD and USD in the snapshot.
+     * @param blackhole - Consumes the currencies found.
+     */
+    @Benchmark
+    public void snapshotLookup(Blackhole blackhole) throws Throwable {
+        blackhole.consume(CurrencyService.GET_CURRENCY.invokeExact(snapshot, from));
+        blackhole.consume(CurrencyService.GET_CURRENCY.invokeExact(snapshot, to));
+    }
+
+
+
+
+    /**
+     * Finds aud and usd in the snapshot.
+     * @param blackhole - Consumes the currencies found.
+     */
+    @Benchmark
+    public void snapshotLookupLowerCase(Blackhole blackhole) throws Throwable {
+        blackhole.consume(CurrencyService.GET_CURRENCY.invokeExact(snapshot, fromLowerCase));
+        blackhole.consume(CurrencyService.GET_CURRENCY.invokeExact(snapshot, toLowerCase));
+    }
+
+
+
+
+    /**
+     * Upper cases aud and usd and finds them in the HashMap.
+     * @param blackhole - Consumes the currencies found.
+     */
+    @Benchmark
+    public void hashMapLookupLowerCase(Blackhole blackhole) {
+        blackhole.consume(currencyMap.get(fromLowerCase.toUpperCase()));
+        blackhole.consume(currencyMap.get(toLowerCase.toUpperCase()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,399 @@
+package benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+* A multi-threaded stress test of the currency store, which checks that concurrent Admin changes are never lost
+* and that a Conversion read never sees a rate without its inverse rate (a torn pair).
+*
+* Each writer thread adds its own currencies with a rate to one of the default currencies, so the writers all change
+* the rates of the same few hub currencies at once. It then updates the rates of its currencies over and over and
+* finally removes every second currency. Meanwhile the reader threads read the published snapshot without locking
+* and check every rate of the writers' currencies against the inverse rate in the same snapshot, which must always
+* be exactly 1 / rate or both missing.
+*
+* The readers also check the rate snapshots themselves: the version of the published snapshot never goes backwards,
+* and a snapshot still has the same rates after the next one has been published, so a published snapshot is never
+* changed. Once the writers have finished the version must have increased by exactly the number of changes made.
+*
+* Once the writers have finished the final snapshot is checked for lost updates:
+* - Every currency which was not removed exists and has the last rate its writer set, and the hub has the inverse.
+* - Every removed currency is gone.
+* - Every rate in the database has its inverse rate, so no rate was left behind by a removed currency.
+* - The version of the snapshot increased by one for every change.
+*
+* Usage: java -cp Benchmarks/target/benchmarks.jar benchmarks.ConcurrencyStress [writers] [readers] [updates]
+* The process exits with status 1 if any check failed.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class ConcurrencyStress {
+
+    //CONSTANTS
+    private static final int DEFAULT_WRITERS = 4;
+    private static final int DEFAULT_READERS = 4;
+    private static final int DEFAULT_UPDATES = 5000;           //The number of rate updates made by each writer
+    private static final int CURRENCIES_PER_WRITER = 16;
+    private static final int FIRST_CODE = 1000;                //The index of the first code added, after the codes of the default currencies
+
+    private static final AtomicLong reads = new AtomicLong();           //The number of pairs checked by the readers
+    private static final AtomicLong tornPairs = new AtomicLong();       //The number of pairs read without their inverse
+    private static final AtomicLong failedChanges = new AtomicLong();   //The number of changes the database refused
+    private static final AtomicLong madeChanges = new AtomicLong();     //The number of changes the database made
+    private static final AtomicLong versionsBackwards = new AtomicLong();    //The number of snapshots read with an older version than the last
+    private static final AtomicLong changedSnapshots = new AtomicLong();     //The number of snapshots which changed after they were read
+    private static final AtomicReference<Throwable> error = new AtomicReference<>();
+    private static volatile boolean isWriting = true;
+
+
+
+    /**
+     * Runs the stress test.
+     * @param args - The number of writer threads, reader threads and updates made by each writer, all optional.
+     * @throws Throwable If the database could not be created.
+     */
+    public static void main(String[] args) throws Throwable {
+
+        //The service reads these when its classes are loaded, so they are set before the first use
+        System.setProperty("session.token.secret", CurrencyService.SECRET);
+        System.setProperty("currency.wal.file", "");
+        System.setProperty("currency.checkpoint.file", "");
+
+        int writerCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_WRITERS;
+        int readerCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_READERS;
+        final int updates = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_UPDATES;
+
+        final Object database = CurrencyService.createDatabase(CurrencyService.DEFAULT_CODES.length);
+        long startVersion = (long) CurrencyService.GET_VERSION.invoke(CurrencyService.snapshot());
+        final String sessionKey = CurrencyService.sessionKey();
+        final double[][] lastRates = new double[writerCount][CURRENCIES_PER_WRITER];
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] readers = new Thread[readerCount];
+        for(int i = 0; i < readerCount; i++)
+        {
+            readers[i] = new Thread(new Runnable() {
+                public void run() {
+                    await(start);
+                    try
+                    {
+                        read(lastRates.length);
+                    }
+                    catch (Throwable e)
+                    {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            }, "reader-" + i);
+            readers[i].start();
+        }
+
+        Thread[] writers = new Thread[writerCount];
+        for(int i = 0; i < writerCount; i++)
+        {
+            final int writer = i;
+            writers[i] = new Thread(new Runnable() {
+                public void run() {
+                    await(start);
+                    try
+                    {
+                        write(database, sessionKey, writer, updates, lastRates[writer]);
+                    }
+                    catch (Throwable e)
+                    {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            }, "writer-" + i);
+            writers[i].start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        for(Thread writer : writers)
+            writer.join();
+        isWriting = false;
+        for(Thread reader : readers)
+            reader.join();
+        long elapsedMillis = (System.nanoTime() - startTime) / 1000000;
+
+        int lostUpdates = checkFinalSnapshot(lastRates);
+        long versionChanges = (long) CurrencyService.GET_VERSION.invoke(CurrencyService.snapshot()) - startVersion;
+
+        System.out.println("Writers: " + writerCount + ", readers: " + readerCount + ", updates per writer: " + updates
+                + ", time: " + elapsedMillis + " ms");
+        System.out.println("Pairs read: " + reads.get() + ", torn pairs: " + tornPairs.get());
+        System.out.println("Changes refused: " + failedChanges.get() + ", lost updates: " + lostUpdates);
+        System.out.println("Versions gone backwards: " + versionsBackwards.get() + ", snapshots changed after publishing: "
+                + changedSnapshots.get() + ", version increase: " + versionChanges + " for " + madeChanges.get() + " changes");
+
+        boolean isPassed = error.get() == null && tornPairs.get() == 0 && failedChanges.get() == 0 && lostUpdates == 0
+                && versionsBackwards.get() == 0 && changedSnapshots.get() == 0 && versionChanges == madeChanges.get();
+        if(error.get() != null)
+            error.get().printStackTrace();
+        System.out.println(isPassed ? "PASSED" : "FAILED");
+        System.exit(isPassed ? 0 : 1);
+    }
+
+
+
+
+    /**
+     * Makes the changes of one writer: adds its currencies with a rate to its hub, updates the rates and then
+     * removes every second currency. Any change the database refuses is counted as a failure.
+     * @param database - The CurrencyDatabaseInterface.
+     * @param sessionKey - The session key the changes are authorised with.
+     * @param writer - The number of the writer.
+     * @param updates - The number of rate updates to make.
+     * @param lastRates - The last rate set for each currency of the writer, filled in by this method.
+     * @throws Throwable If a change could not be called.
+     */
+    private static void write(Object database, String sessionKey, int writer, int updates, double[] lastRates) throws Throwable {
+        String hub = hubOf(writer);
+        for(int i = 0; i < CURRENCIES_PER_WRITER; i++)
+        {
+            lastRates[i] = 1.0 + writer;
+            count((boolean) CurrencyService.ADD_CURRENCY.invoke(database, sessionKey, codeOf(writer, i)));
+            count((boolean) CurrencyService.ADD_RATE.invoke(database, sessionKey, codeOf(writer, i), hub, lastRates[i]));
+        }
+
+        //Rates which are not exact in binary so the inverse is rounded, which must still match exactly
+        for(int update = 1; update <= updates; update++)
+        {
+            int i = update % CURRENCIES_PER_WRITER;
+            double rate = 1.0 + writer + update / 3.0 / updates;
+            count((boolean) CurrencyService.UPDATE_RATE.invoke(database, sessionKey, codeOf(writer, i), hub, rate));
+            lastRates[i] = rate;
+        }
+
+        for(int i = 1; i < CURRENCIES_PER_WRITER; i += 2)
+            count((boolean) CurrencyService.REMOVE_CURRENCY.invoke(database, sessionKey, codeOf(writer, i)));
+    }
+
+
+
+
+    /**
+     * Reads the published snapshot until the writers have finished. Checks the pairs of every snapshot read,
+     * that the versions never go backwards, and that the last snapshot read has not changed since it was read.
+     * @param writerCount - The number of writers.
+     * @throws Throwable If a snapshot could not be read.
+     */
+    private static void read(int writerCount) throws Throwable {
+        Object previous = null;
+        long previousHash = 0;
+        long lastVersion = Long.MIN_VALUE;
+        while(isWriting)
+        {
+            Object snapshot = CurrencyService.snapshot();
+            long version = (long) CurrencyService.GET_VERSION.invoke(snapshot);
+            if(version < lastVersion)
+                versionsBackwards.incrementAndGet();
+            lastVersion = version;
+
+            readPairs(snapshot, writerCount);
+
+            //The last snapshot may have been replaced by now, but it must still have the rates it was read with
+            if(previous != null && hashRates(previous, writerCount) != previousHash)
+                changedSnapshots.incrementAndGet();
+            previous = snapshot;
+            previousHash = hashRates(snapshot, writerCount);
+        }
+    }
+
+
+
+
+    /**
+     * Reads the rate of every writer currency and its inverse rate from a snapshot, counting the pairs
+     * where only one of the rates exists or the inverse rate is not exactly 1 / rate.
+     * @param snapshot - The RateSnapshot.
+     * @param writerCount - The number of writers.
+     * @throws Throwable If the snapshot could not be read.
+     */
+    private static void readPairs(Object snapshot, int writerCount) throws Throwable {
+        for(int writer = 0; writer < writerCount; writer++)
+        {
+            Object hub = CurrencyService.GET_CURRENCY.invoke(snapshot, hubOf(writer));
+            for(int i = 0; i < CURRENCIES_PER_WRITER; i++)
+            {
+                Object currency = CurrencyService.GET_CURRENCY.invoke(snapshot, codeOf(writer, i));
+                if(currency == null)
+                    continue;
+
+                double rate = rateOf(currency, hub);
+                double inverseRate = rateOf(hub, currency);
+                if(Double.isNaN(rate) != Double.isNaN(inverseRate) || (!Double.isNaN(rate) && inverseRate != 1.0 / rate))
+                    tornPairs.incrementAndGet();
+                reads.incrementAndGet();
+            }
+        }
+    }
+
+
+
+
+    /**
+     * Hashes the rates of every writer currency and the inverse rates in a snapshot.
+     * @param snapshot - The RateSnapshot.
+     * @param writerCount - The number of writers.
+     * @return - The hash, the same for two reads of an unchanged snapshot.
+     * @throws Throwable If the snapshot could not be read.
+     */
+    private static long hashRates(Object snapshot, int writerCount) throws Throwable {
+        long hash = 1;
+        for(int writer = 0; writer < writerCount; writer++)
+        {
+            Object hub = CurrencyService.GET_CURRENCY.invoke(snapshot, hubOf(writer));
+            for(int i = 0; i < CURRENCIES_PER_WRITER; i++)
+            {
+                Object currency = CurrencyService.GET_CURRENCY.invoke(snapshot, codeOf(writer, i));
+                if(currency == null)
+                    continue;
+                hash = hash * 31 + Double.doubleToLongBits(rateOf(currency, hub));
+                hash = hash * 31 + Double.doubleToLongBits(rateOf(hub, currency));
+            }
+        }
+        return hash;
+    }
+
+
+
+
+    /**
+     * Checks the snapshot published after every writer has finished for changes which were lost.
+     * @param lastRates - The last rate each writer set for each of its currencies.
+     * @return - The number of lost updates found.
+     * @throws Throwable If the snapshot could not be read.
+     */
+    private static int checkFinalSnapshot(double[][] lastRates) throws Throwable {
+        Object snapshot = CurrencyService.snapshot();
+        int lostUpdates = 0;
+
+        //The currencies which were kept have the last rate their writer set, the others were removed
+        for(int writer = 0; writer < lastRates.length; writer++)
+        {
+            Object hub = CurrencyService.GET_CURRENCY.invoke(snapshot, hubOf(writer));
+            for(int i = 0; i < CURRENCIES_PER_WRITER; i++)
+            {
+                Object currency = CurrencyService.GET_CURRENCY.invoke(snapshot, codeOf(writer, i));
+                boolean isKept = i % 2 == 0;
+                if(!isKept)
+                {
+                    if(currency != null)
+                        lostUpdates++;
+                    continue;
+                }
+                if(currency == null || rateOf(currency, hub) != lastRates[writer][i] || rateOf(hub, currency) != 1.0 / lastRates[writer][i])
+                    lostUpdates++;
+            }
+        }
+
+        //Every rate in the database has its inverse, so no rate was left pointing at a removed currency
+        Object[] matrix = (Object[]) CurrencyService.GET_CURRENCY_MATRIX.invoke(snapshot);
+        for(Object currency : matrix)
+        {
+            if(currency == null)
+                continue;
+            double[] row = (double[]) CurrencyService.GET_RATE_ROW.invoke(currency);
+            for(int toId = 0; toId < row.length; toId++)
+            {
+                if(Double.isNaN(row[toId]))
+                    continue;
+                if(toId >= matrix.length || matrix[toId] == null || !isInverse(row[toId], rateOf(matrix[toId], currency)))
+                    lostUpdates++;
+            }
+        }
+        return lostUpdates;
+    }
+
+
+
+
+    /**
+     * Gets the direct rate between two currencies of the same snapshot.
+     * @param from - The currency the rate is from.
+     * @param to - The currency the rate is to.
+     * @return - The rate, NaN if there is no direct rate.
+     * @throws Throwable If the currencies could not be read.
+     */
+    private static double rateOf(Object from, Object to) throws Throwable {
+        double[] row = (double[]) CurrencyService.GET_RATE_ROW.invoke(from);
+        int toId = (int) CurrencyService.GET_ID.invoke(to);
+        return toId < row.length ? row[toId] : Double.NaN;
+    }
+
+
+
+
+    /**
+     * Outlines if two rates are the inverse of each other. Only the rate which was set is exact, the other is
+     * calculated from it, so either one may be the rate which was set.
+     * @param rate - One rate.
+     * @param otherRate - The rate in the other direction.
+     * @return - TRUE if one rate is exactly 1 / the other rate, FALSE otherwise.
+     */
+    private static boolean isInverse(double rate, double otherRate) {
+        return otherRate == 1.0 / rate || rate == 1.0 / otherRate;
+    }
+
+
+
+
+    /**
+     * Gets the code of one of the currencies of a writer.
+     * @param writer - The number of the writer.
+     * @param i - The number of the currency.
+     * @return - The currency code.
+     */
+    private static String codeOf(int writer, int i) {
+        return CurrencyService.code(FIRST_CODE + writer * CURRENCIES_PER_WRITER + i);
+    }
+
+
+
+
+    /**
+     * Gets the default currency the currencies of a writer have their rates to.
+     * @param writer - The number of the writer.
+     * @return - The currency code of the hub.
+     */
+    private static String hubOf(int writer) {
+        return CurrencyService.DEFAULT_CODES[writer % CurrencyService.DEFAULT_CODES.length];
+    }
+
+
+
+
+    /**
+     * Counts a change which the database made or refused.
+     * @param isChanged - The result of the change.
+     */
+    private static void count(boolean isChanged) {
+        if(isChanged)
+            madeChanges.incrementAndGet();
+        else
+            failedChanges.incrementAndGet();
+    }
+
+
+
+
+    /**
+     * Waits for every thread to be ready before starting.
+     * @param start - The latch opened once every thread has been started.
+     */
+    private static void await(CountDownLatch start) {
+        try
+        {
+            start.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+* Benchmarks the Conversion endpoint while the Admin endpoint is changing rates. Three threads convert and list
+* the rates while one thread updates a rate, so the readers keep reading new snapshots and listRates keeps
+* rebuilding its list. The readers should not slow down because of the writer, as they never take the write lock.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { CurrencyService.TOKEN_SECRET_ARG, CurrencyService.RATE_LOG_ARG })
+public class ContendedBenchmark {
+
+    @Param({ "4", "150", "10000" })
+    public int currencies;                  //The number of currencies in the database
+
+    private Object database;
+    private String sessionKey;
+    private String from = "AUD";
+    private String to = "USD";
+    private double amount = 100;
+    private double rate = 0.7;
+
+
+
+    /**
+     * Fills the database.
+     * @throws Throwable If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        database = CurrencyService.createDatabase(currencies);
+        sessionKey = CurrencyService.sessionKey();
+    }
+
+
+
+
+    /**
+     * Converts AUD to USD while the rate is being updated.
+     */
+    @Benchmark
+    @Group("updateWhileReading")
+    @GroupThreads(2)
+    public double convert() throws Throwable {
+        return (double) CurrencyService.DATABASE_CONVERT.invokeExact(database, from, to, amount);
+    }
+
+
+
+
+    /**
+     * Lists the rates while the rate is being updated.
+     */
+    @Benchmark
+    @Group("updateWhileReading")
+    @GroupThreads(1)
+    public String[] listRates() throws Throwable {
+        return (String[]) CurrencyService.LIST_RATES.invokeExact(database);
+    }
+
+
+
+
+    /**
+     * Updates the rate between AUD and NZD, a rate the readers do not convert with.
+     */
+    @Benchmark
+    @Group("updateWhileReading")
+    @GroupThreads(1)
+    public boolean updateRate() throws Throwable {
+        return (boolean) CurrencyService.UPDATE_RATE.invokeExact(database, sessionKey, from, "NZD", rate);
+    }
+}
\ No newline at end of file
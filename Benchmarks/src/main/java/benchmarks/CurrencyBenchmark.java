@@ -0,0 +1,104 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+* Benchmarks the conversion hot path of the Currency class: convert, rateOf and getRates, with a direct rate
+* and with a cross rate, at 4, 150 and 10,000 currencies in the database.
+*
+* The currencies are read from the published snapshot in the same way the Conversion endpoint reads them.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { CurrencyService.TOKEN_SECRET_ARG, CurrencyService.RATE_LOG_ARG })
+public class CurrencyBenchmark {
+
+    @Param({ "4", "150", "10000" })
+    public int currencies;                  //The number of currencies in the database
+
+    private Object aud;                     //The currencies of the published snapshot
+    private Object usd;
+    private Object nzd;
+    private Object crossRates;              //The cross rates of the published snapshot
+    private Object currencyMatrix;          //The currencies of the published snapshot indexed by id
+    private double amount = 100;            //Read from a field so the JIT can not fold the conversion into a constant
+
+
+
+    /**
+     * Fills the database and reads the currencies from the published snapshot.
+     * @throws Throwable If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        CurrencyService.createDatabase(currencies);
+        Object snapshot = CurrencyService.snapshot();
+        aud = CurrencyService.GET_CURRENCY.invoke(snapshot, "AUD");
+        usd = CurrencyService.GET_CURRENCY.invoke(snapshot, "USD");
+        nzd = CurrencyService.GET_CURRENCY.invoke(snapshot, "NZD");
+        crossRates = CurrencyService.GET_CROSS_RATES.invoke(snapshot);
+        currencyMatrix = CurrencyService.GET_CURRENCY_MATRIX.invoke(snapshot);
+    }
+
+
+
+
+    /**
+     * Converts with a direct rate, AUD to USD.
+     */
+    @Benchmark
+    public double convert() throws Throwable {
+        return (double) CurrencyService.CONVERT.invokeExact(aud, usd, amount, crossRates);
+    }
+
+
+
+
+    /**
+     * Converts with a cross rate, USD to NZD through AUD.
+     */
+    @Benchmark
+    public double convertCrossRate() throws Throwable {
+        return (double) CurrencyService.CONVERT.invokeExact(usd, nzd, amount, crossRates);
+    }
+
+
+
+
+    /**
+     * Gets a direct rate, AUD to USD.
+     */
+    @Benchmark
+    public double rateOf() throws Throwable {
+        return (double) CurrencyService.RATE_OF.invokeExact(aud, usd, crossRates);
+    }
+
+
+
+
+    /**
+     * Gets a cross rate, USD to NZD through AUD.
+     */
+    @Benchmark
+    public double rateOfCrossRate() throws Throwable {
+        return (double) CurrencyService.RATE_OF.invokeExact(usd, nzd, crossRates);
+    }
+
+
+
+
+    /**
+     * Gets the formatted rates of AUD, which has a rate to a quarter of the currencies.
+     */
+    @Benchmark
+    public String[] getRates() throws Throwable {
+        return (String[]) CurrencyService.GET_RATES.invokeExact(aud, currencyMatrix);
+    }
+}
\ No newline at end of file
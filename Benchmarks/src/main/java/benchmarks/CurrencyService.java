@@ -0,0 +1,243 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import localhost.identity.Authorisation_jws.Authorisation;
+
+/**
+* Gives the benchmarks access to the classes of the Currency Service.
+*
+* The service classes are in the default package so they can be used by the .jws endpoints, but JMH only runs
+* benchmarks in a named package and a named package cannot import classes from the default package. The service
+* methods are called through static final MethodHandles instead, which the JIT compiles into direct calls so they
+* do not add to the measured time. The service objects are passed around as Object.
+*
+* The admin methods are authorised with a signed session token, so every benchmark fork must be started with
+* the "session.token.secret" system property set to SECRET. The rate log is disabled in every fork so the changes
+* made by one benchmark are not replayed into the next, and the admin benchmarks measure the database rather than the disk.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+final class CurrencyService {
+
+    //CONSTANTS
+    static final String SECRET = "benchmark";
+    static final String TOKEN_SECRET_ARG = "-Dsession.token.secret=" + SECRET;
+    static final String RATE_LOG_ARG = "-Dcurrency.wal.file=";                  //Disables the rate log
+    static final String[] DEFAULT_CODES = { "AUD", "USD", "NZD", "GBP" };     //The currencies added by initDatabase()
+
+    //Currency
+    static final MethodHandle CONVERT;              //(Currency from, Currency to, double amount, CrossRates crossRates) -> double
+    static final MethodHandle RATE_OF;              //(Currency from, Currency to, CrossRates crossRates) -> double
+    static final MethodHandle GET_RATES;            //(Currency currency, Object currencyMatrix) -> String[]
+    static final MethodHandle GET_ID;               //(Currency currency) -> int
+    static final MethodHandle GET_RATE_ROW;         //(Currency currency) -> double[]
+
+    //RateSnapshot
+    static final MethodHandle GET_VERSION;          //(RateSnapshot snapshot) -> long
+    static final MethodHandle GET_CURRENCY;         //(RateSnapshot snapshot, String code) -> Currency
+    static final MethodHandle GET_CROSS_RATES;      //(RateSnapshot snapshot) -> CrossRates
+    static final MethodHandle GET_CURRENCY_MATRIX;  //(RateSnapshot snapshot) -> Currency[]
+
+    //CurrencyDatabaseInterface
+    static final MethodHandle LIST_RATES;           //(database) -> String[]
+    static final MethodHandle DATABASE_CONVERT;     //(database, String from, String to, double amount) -> double
+    static final MethodHandle DATABASE_RATE_OF;     //(database, String from, String to) -> double
+    static final MethodHandle ADD_CURRENCY;         //(database, String sessionKey, String code) -> boolean
+    static final MethodHandle REMOVE_CURRENCY;      //(database, String sessionKey, String code) -> boolean
+    static final MethodHandle ADD_RATE;             //(database, String sessionKey, String from, String to, double rate) -> boolean
+    static final MethodHandle UPDATE_RATE;          //(database, String sessionKey, String from, String to, double rate) -> boolean
+    static final MethodHandle REMOVE_RATE;          //(database, String sessionKey, String from, String to) -> boolean
+
+    //AuthorisationPool
+    static final MethodHandle NEW_AUTHORISATION_POOL;   //(int size, String address) -> AuthorisationPool
+    static final MethodHandle BORROW;                   //(pool) -> Authorisation
+    static final MethodHandle RELEASE;                  //(pool, Authorisation stub) -> void
+
+    private static final MethodHandle SNAPSHOT;     //() -> RateSnapshot, the snapshot currently published by the database
+    private static final MethodHandle NEW_DATABASE; //() -> CurrencyDatabaseInterface
+    private static final MethodHandle ISSUE_TOKEN;  //(String username) -> String
+
+    //Look up the methods once, every handle takes and returns Object in place of the service classes
+    static {
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> currency = Class.forName("Currency");
+            Class<?> crossRates = Class.forName("CrossRates");
+            Class<?> snapshot = Class.forName("RateSnapshot");
+            Class<?> database = Class.forName("CurrencyDatabaseInterface");
+            Class<?> currencyMatrix = Class.forName("[LCurrency;");
+            Class<?> pool = Class.forName("AuthorisationPool");
+
+            CONVERT = virtual(lookup, currency, "convert", double.class, currency, double.class, crossRates);
+            RATE_OF = virtual(lookup, currency, "rateOf", double.class, currency, crossRates);
+            GET_RATES = virtual(lookup, currency, "getRates", String[].class, currencyMatrix);
+            GET_ID = virtual(lookup, currency, "getId", int.class);
+            GET_RATE_ROW = virtual(lookup, currency, "getRateRow", double[].class);
+
+            GET_VERSION = virtual(lookup, snapshot, "getVersion", long.class);
+            GET_CURRENCY = virtual(lookup, snapshot, "getCurrency", currency, String.class);
+            GET_CROSS_RATES = virtual(lookup, snapshot, "getCrossRates", crossRates);
+            GET_CURRENCY_MATRIX = virtual(lookup, snapshot, "getCurrencyMatrix", currencyMatrix);
+
+            LIST_RATES = virtual(lookup, database, "listRates", String[].class);
+            DATABASE_CONVERT = virtual(lookup, database, "convert", double.class, String.class, String.class, double.class);
+            DATABASE_RATE_OF = virtual(lookup, database, "rateOf", double.class, String.class, String.class);
+            ADD_CURRENCY = virtual(lookup, database, "addCurrency", boolean.class, String.class, String.class);
+            REMOVE_CURRENCY = virtual(lookup, database, "removeCurrency", boolean.class, String.class, String.class);
+            ADD_RATE = virtual(lookup, database, "addRate", boolean.class, String.class, String.class, String.class, double.class);
+            UPDATE_RATE = virtual(lookup, database, "updateRate", boolean.class, String.class, String.class, String.class, double.class);
+            REMOVE_RATE = virtual(lookup, database, "removeRate", boolean.class, String.class, String.class, String.class);
+
+            NEW_AUTHORISATION_POOL = generic(lookup.findConstructor(pool, MethodType.methodType(void.class, int.class, String.class)));
+            BORROW = virtual(lookup, pool, "borrow", Authorisation.class);
+            RELEASE = virtual(lookup, pool, "release", void.class, Authorisation.class);
+
+            //The published snapshot is private to the database, it is read the same way the Conversion endpoint reads it
+            Field field = database.getDeclaredField("snapshot");
+            field.setAccessible(true);
+            SNAPSHOT = generic(lookup.unreflectGetter(field));
+            NEW_DATABASE = generic(lookup.findConstructor(database, MethodType.methodType(void.class)));
+            ISSUE_TOKEN = lookup.findStatic(Class.forName("SessionToken"), "issue", MethodType.methodType(String.class, String.class));
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+
+
+
+    private CurrencyService() {
+    }
+
+
+
+
+    /**
+     * Creates a database with the default currencies and adds currencies until it has the number requested.
+     * Each added currency has a rate to one of the default currencies (and the inverse rate), so the default
+     * currencies act as hubs the way the major currencies do, and there is a cross rate between any two currencies.
+     * @param currencyCount - The number of currencies the database should contain, at least 4.
+     * @return - The database.
+     * @throws Throwable If the database could not be created.
+     */
+    static Object createDatabase(int currencyCount) throws Throwable {
+        Object database = NEW_DATABASE.invoke();
+        String sessionKey = sessionKey();
+
+        int added = DEFAULT_CODES.length;
+        for(int i = 0; added < currencyCount; i++)
+        {
+            //Codes which already exist, such as the default codes, are skipped
+            String code = code(i);
+            if(!(boolean) ADD_CURRENCY.invoke(database, sessionKey, code))
+                continue;
+
+            String hub = DEFAULT_CODES[added % DEFAULT_CODES.length];
+            ADD_RATE.invoke(database, sessionKey, code, hub, 0.5 + (added % 100) / 100.0);
+            added++;
+        }
+        return database;
+    }
+
+
+
+
+    /**
+     * Issues a signed session key which is accepted by the admin methods of the database.
+     * @return - The session key.
+     * @throws Throwable If the token could not be issued, usually because the secret is not set.
+     */
+    static String sessionKey() throws Throwable {
+        String key = (String) ISSUE_TOKEN.invoke("benchmark");
+        if(key == null)
+            throw new IllegalStateException("Session tokens are not enabled, start the benchmark with " + TOKEN_SECRET_ARG);
+        return key;
+    }
+
+
+
+
+    /**
+     * Gets the snapshot currently published by the database.
+     * @return - The RateSnapshot.
+     * @throws Throwable If the snapshot could not be read.
+     */
+    static Object snapshot() throws Throwable {
+        return SNAPSHOT.invoke();
+    }
+
+
+
+
+    /**
+     * Gets the currency code used for the i-th added currency, AAA, AAB, AAC and so on.
+     * @param i - The index of the code, less than 17576.
+     * @return - A three letter currency code.
+     */
+    static String code(int i) {
+        char[] letters = new char[3];
+        for(int position = 2; position >= 0; position--)
+        {
+            letters[position] = (char) ('A' + i % 26);
+            i /= 26;
+        }
+        return new String(letters);
+    }
+
+
+
+
+    /**
+     * Finds a public method and changes the receiver, parameter and return types which are service classes to Object.
+     * @param lookup - The lookup used to find the method.
+     * @param owner - The class which declares the method.
+     * @param name - The name of the method.
+     * @param returnType - The return type of the method.
+     * @param parameters - The parameter types of the method.
+     * @return - The method handle.
+     * @throws ReflectiveOperationException If the method does not exist.
+     */
+    private static MethodHandle virtual(MethodHandles.Lookup lookup, Class<?> owner, String name, Class<?> returnType, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        return generic(lookup.findVirtual(owner, name, MethodType.methodType(returnType, parameters)));
+    }
+
+
+
+
+    /**
+     * Changes the types of a method handle which are not primitives, Strings, String arrays or double arrays to Object.
+     * @param handle - The method handle.
+     * @return - The method handle with the changed types.
+     */
+    private static MethodHandle generic(MethodHandle handle) {
+        MethodType type = handle.type();
+        for(int i = 0; i < type.parameterCount(); i++)
+        {
+            if(!isKept(type.parameterType(i)))
+                type = type.changeParameterType(i, Object.class);
+        }
+        if(!isKept(type.returnType()))
+            type = type.changeReturnType(Object.class);
+        return handle.asType(type);
+    }
+
+
+
+
+    /**
+     * Outlines if a type is kept by generic(), which are the types the benchmarks can name.
+     * @param type - The type.
+     * @return - TRUE if the type is kept, FALSE if it is changed to Object.
+     */
+    private static boolean isKept(Class<?> type) {
+        return type.isPrimitive() || type == String.class || type == String[].class || type == double[].class;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+* Benchmarks the methods of the CurrencyDatabaseInterface used by the Conversion endpoint, which look up the
+* currency codes and read the published snapshot, at 4, 150 and 10,000 currencies in the database.
+* AllocationCheck runs the convert and rateOf benchmarks with the GC profiler to check they do not allocate.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { CurrencyService.TOKEN_SECRET_ARG, CurrencyService.RATE_LOG_ARG })
+public class DatabaseBenchmark {
+
+    @Param({ "4", "150", "10000" })
+    public int currencies;                  //The number of currencies in the database
+
+    private Object database;
+    private String from = "AUD";            //Read from fields so the JIT can not fold the lookups into constants
+    private String to = "USD";
+    private String lowerCaseTo = "usd";
+    private String crossRateFrom = "USD";
+    private String crossRateTo = "NZD";
+    private double amount = 100;
+
+
+
+    /**
+     * Fills the database.
+     * @throws Throwable If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        database = CurrencyService.createDatabase(currencies);
+    }
+
+
+
+
+    /**
+     * Converts AUD to USD with a direct rate.
+     */
+    @Benchmark
+    public double convert() throws Throwable {
+        return (double) CurrencyService.DATABASE_CONVERT.invokeExact(database, from, to, amount);
+    }
+
+
+
+
+    /**
+     * Converts AUD to usd, the code is looked up without case.
+     */
+    @Benchmark
+    public double convertLowerCase() throws Throwable {
+        return (double) CurrencyService.DATABASE_CONVERT.invokeExact(database, from, lowerCaseTo, amount);
+    }
+
+
+
+
+    /**
+     * Converts USD to NZD with a cross rate through AUD.
+     */
+    @Benchmark
+    public double convertCrossRate() throws Throwable {
+        return (double) CurrencyService.DATABASE_CONVERT.invokeExact(database, crossRateFrom, crossRateTo, amount);
+    }
+
+
+
+
+    /**
+     * Gets the rate of AUD to USD with a direct rate.
+     */
+    @Benchmark
+    public double rateOf() throws Throwable {
+        return (double) CurrencyService.DATABASE_RATE_OF.invokeExact(database, from, to);
+    }
+
+
+
+
+    /**
+     * Gets the rate of AUD to usd, the code is looked up without case.
+     */
+    @Benchmark
+    public double rateOfLowerCase() throws Throwable {
+        return (double) CurrencyService.DATABASE_RATE_OF.invokeExact(database, from, lowerCaseTo);
+    }
+
+
+
+
+    /**
+     * Lists every rate in the database, the list is built once for each version of the rates.
+     */
+    @Benchmark
+    public String[] listRates() throws Throwable {
+        return (String[]) CurrencyService.LIST_RATES.invokeExact(database);
+    }
+}
\ No newline at end of file
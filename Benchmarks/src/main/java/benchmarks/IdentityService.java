@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+* Gives the benchmarks access to the SessionStore of the Identity Service, through static final MethodHandles
+* for the same reason as CurrencyService. The store is passed around as Object.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+final class IdentityService {
+
+    //SessionStore
+    static final MethodHandle ADD;                  //(store, String key, String username) -> String
+    static final MethodHandle GET_USERNAME;         //(store, String key) -> String
+    static final MethodHandle FIND_KEY;             //(store, String username) -> String
+    static final MethodHandle REMOVE;               //(store, String key) -> String
+
+    private static final MethodHandle NEW_STORE;    //() -> SessionStore
+
+    //Look up the methods once, every handle takes and returns Object in place of the SessionStore
+    static {
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> store = Class.forName("SessionStore");
+
+            ADD = virtual(lookup, store, "add", String.class, String.class, String.class);
+            GET_USERNAME = virtual(lookup, store, "getUsername", String.class, String.class);
+            FIND_KEY = virtual(lookup, store, "findKey", String.class, String.class);
+            REMOVE = virtual(lookup, store, "remove", String.class, String.class);
+            NEW_STORE = lookup.findConstructor(store, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+
+
+
+    private IdentityService() {
+    }
+
+
+
+
+    /**
+     * Creates a session store with a session for each of the users "user0", "user1" and so on.
+     * The session key of each user is "key" followed by the number of the user.
+     * @param sessionCount - The number of users logged in.
+     * @return - The SessionStore.
+     * @throws Throwable If the store could not be created.
+     */
+    static Object createStore(int sessionCount) throws Throwable {
+        Object store = NEW_STORE.invoke();
+        for(int i = 0; i < sessionCount; i++)
+            ADD.invoke(store, "key" + i, "user" + i);
+        return store;
+    }
+
+
+
+
+    /**
+     * Finds a public method of the SessionStore and changes the receiver type to Object.
+     * @param lookup - The lookup used to find the method.
+     * @param store - The SessionStore class.
+     * @param name - The name of the method.
+     * @param returnType - The return type of the method.
+     * @param parameters - The parameter types of the method.
+     * @return - The method handle.
+     * @throws ReflectiveOperationException If the method does not exist.
+     */
+    private static MethodHandle virtual(MethodHandles.Lookup lookup, Class<?> store, String name, Class<?> returnType, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        MethodHandle handle = lookup.findVirtual(store, name, MethodType.methodType(returnType, parameters));
+        return handle.asType(handle.type().changeParameterType(0, Object.class));
+    }
+}
\ No newline at end of file
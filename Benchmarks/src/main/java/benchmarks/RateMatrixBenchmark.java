@@ -0,0 +1,184 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+* Compares convert and rateOf on the id-indexed rate matrix of the CurrencyDatabaseInterface with the HashMap
+* lookups the database used before it, at 4, 150 and 10,000 currencies.
+*
+* The HashMap path is rebuilt here as it was: both codes are upper cased, the from currency is found in a
+* HashMap<String, Currency> with containsKey and get, and the rate in a HashMap<String, Double> of the currency
+* with containsKey and get. The console logging the old path also did is left out, it was removed separately,
+* so only the lookups are compared. Both databases have the same currencies and rates.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { CurrencyService.TOKEN_SECRET_ARG, CurrencyService.RATE_LOG_ARG })
+public class RateMatrixBenchmark {
+
+    @Param({ "4", "150", "10000" })
+    public int currencies;                  //The number of currencies in the database
+
+    private Object database;                //The database with the rate matrix
+    private HashMapDatabase hashMapDatabase;    //The same currencies and rates in HashMaps
+    private String from = "AUD";            //Read from fields so the JIT can not fold the lookups into constants
+    private String to = "USD";
+    private double amount = 100;
+
+
+
+    /**
+     * Fills both databases with the same currencies and rates.
+     * @throws Throwable If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        database = CurrencyService.createDatabase(currencies);
+        hashMapDatabase = new HashMapDatabase();
+        for(String rate : (String[]) CurrencyService.LIST_RATES.invokeExact(database))
+        {
+            //Each listed rate is formatted as <fromCode>-<toCode>:<rate>
+            hashMapDatabase.addRate(rate.substring(0, 3), rate.substring(4, 7), Double.parseDouble(rate.substring(8)));
+        }
+    }
+
+
+
+
+    /**
+     * Converts AUD to USD with the rate matrix.
+     */
+    @Benchmark
+    public double matrixConvert() throws Throwable {
+        return (double) CurrencyService.DATABASE_CONVERT.invokeExact(database, from, to, amount);
+    }
+
+
+
+
+    /**
+     * Gets the rate of AUD to USD with the rate matrix.
+     */
+    @Benchmark
+    public double matrixRateOf() throws Throwable {
+        return (double) CurrencyService.DATABASE_RATE_OF.invokeExact(database, from, to);
+    }
+
+
+
+
+    /**
+     * Converts AUD to USD with the HashMaps.
+     */
+    @Benchmark
+    public double hashMapConvert() {
+        return hashMapDatabase.convert(from, to, amount);
+    }
+
+
+
+
+    /**
+     * Gets the rate of AUD to USD with the HashMaps.
+     */
+    @Benchmark
+    public double hashMapRateOf() {
+        return hashMapDatabase.rateOf(from, to);
+    }
+
+
+
+
+    /**
+     * The currencies and rates stored the way the database stored them before the rate matrix.
+     */
+    private static class HashMapDatabase {
+
+        private static final double INVALID = -1.0;
+        private final HashMap<String, HashMapCurrency> currencies = new HashMap<>();   //<CurrencyCode, Currency>
+
+
+
+        /**
+         * Adds a rate, adding the from currency if it is not in the database yet.
+         * @param fromCode - The currency code the rate is from.
+         * @param toCode - The currency code the rate is to.
+         * @param rate - The rate.
+         */
+        private void addRate(String fromCode, String toCode, double rate) {
+            HashMapCurrency currency = currencies.get(fromCode);
+            if(currency == null)
+            {
+                currency = new HashMapCurrency();
+                currencies.put(fromCode, currency);
+            }
+            currency.rates.put(toCode, rate);
+        }
+
+
+
+
+        private double convert(String fromCurrencyCode, String toCurrencyCode, double amount) {
+
+            //Convert to uppercase to avoid case mismatching
+            fromCurrencyCode = fromCurrencyCode.toUpperCase();
+            toCurrencyCode = toCurrencyCode.toUpperCase();
+
+            if(!currencies.containsKey(fromCurrencyCode))
+                return INVALID;
+            return currencies.get(fromCurrencyCode).convert(toCurrencyCode, amount);
+        }
+
+
+
+
+        private double rateOf(String fromCurrencyCode, String toCurrencyCode) {
+
+            //Convert to uppercase to avoid case mismatching
+            fromCurrencyCode = fromCurrencyCode.toUpperCase();
+            toCurrencyCode = toCurrencyCode.toUpperCase();
+
+            if(!currencies.containsKey(fromCurrencyCode))
+                return INVALID;
+            return currencies.get(fromCurrencyCode).rateOf(toCurrencyCode);
+        }
+    }
+
+
+
+
+    /**
+     * A currency with its rates stored the way Currency stored them before the rate matrix.
+     */
+    private static class HashMapCurrency {
+
+        private final HashMap<String, Double> rates = new HashMap<>();     //<toCurrencyCode, rate>
+
+
+
+        private double convert(String convertToCurrency, double amount) {
+            if(amount <= 0)
+                return HashMapDatabase.INVALID;
+            if(!rates.containsKey(convertToCurrency))
+                return HashMapDatabase.INVALID;
+            return amount * rates.get(convertToCurrency) * 0.99;
+        }
+
+
+
+
+        private double rateOf(String code) {
+            if(!rates.containsKey(code))
+                return HashMapDatabase.INVALID;
+            return rates.get(code);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.*;
+
+/**
+* Benchmarks the SessionStore of the Identity Service with 1,000 and 100,000 users logged in. Logging in again
+* finds and replaces the session of the user through the index of sessions by user, so it should take the same
+* time however many users are logged in, including when several threads are logging users in at once.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })  //A fixed heap so the sessions fit without full collections
+public class SessionStoreBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int sessions;                    //The number of users logged in
+
+    private Object store;
+    private String key = "key0";            //Read from fields so the JIT can not fold the lookups into constants
+    private String username = "user0";
+    private final AtomicInteger threads = new AtomicInteger();
+
+
+
+    /**
+     * The session keys given out by one benchmark thread, every key is unique.
+     */
+    @State(Scope.Thread)
+    public static class Logins {
+
+        private String prefix;              //The prefix of the keys of this thread
+        private int count;                  //The number of keys given out by this thread
+        private int user;                   //The number of the next user to log in again
+
+
+
+        /**
+         * Starts each thread at a different user so the threads log in different users.
+         * @param benchmark - The benchmark state.
+         */
+        @Setup(Level.Trial)
+        public void setUp(SessionStoreBenchmark benchmark) {
+            int thread = benchmark.threads.getAndIncrement();
+            prefix = "login" + thread + "-";
+            user = thread * 7919;
+        }
+    }
+
+
+
+    /**
+     * Logs the users in.
+     * @throws Throwable If the store could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        store = IdentityService.createStore(sessions);
+    }
+
+
+
+
+    /**
+     * Logs a user in again, replacing the session of the user.
+     */
+    @Benchmark
+    public String relogin(Logins logins) throws Throwable {
+        return login(logins);
+    }
+
+
+
+
+    /**
+     * Logs users in again from four threads at once.
+     */
+    @Benchmark
+    @Threads(4)
+    public String reloginContended(Logins logins) throws Throwable {
+        return login(logins);
+    }
+
+
+
+
+    /**
+     * Finds the session key of a user.
+     */
+    @Benchmark
+    public String findKey() throws Throwable {
+        return (String) IdentityService.FIND_KEY.invokeExact(store, username);
+    }
+
+
+
+
+    /**
+     * Authorises a session key.
+     */
+    @Benchmark
+    public String authorise() throws Throwable {
+        return (String) IdentityService.GET_USERNAME.invokeExact(store, key);
+    }
+
+
+
+
+    /**
+     * Logs the next user of a thread in with a new session key.
+     * @param logins - The session keys of the thread.
+     * @return - The session key which was replaced.
+     */
+    private String login(Logins logins) throws Throwable {
+        String newKey = logins.prefix + logins.count++;
+        String user = "user" + (logins.user++ % sessions);
+        return (String) IdentityService.ADD.invokeExact(store, newKey, user);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+* Runs the read benchmarks with 1, 2, 4 and 8 threads and the GC profiler, to show how the conversion hot path
+* scales with the number of request threads and how much it allocates per request. The throughput of all the
+* threads together is reported, which should grow with the threads up to the number of processors.
+*
+* Usage: java -cp Benchmarks/target/benchmarks.jar benchmarks.ThreadScaling [JMH options]
+* Any JMH options are applied to every run, for example -p currencies=150 or -rf json.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class ThreadScaling {
+
+    //CONSTANTS
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8 };
+    private static final String READ_BENCHMARKS = "benchmarks\\.(CurrencyBenchmark|DatabaseBenchmark)\\.(convert|rateOf|listRates)$";
+
+
+
+    /**
+     * Runs the read benchmarks once for each thread count.
+     * @param args - JMH command line options applied to every run.
+     * @throws RunnerException If a benchmark fails.
+     * @throws CommandLineOptionException If the options are not valid.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        for(int threads : THREAD_COUNTS)
+        {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .include(READ_BENCHMARKS)
+                    .threads(threads)
+                    .mode(Mode.Throughput)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .addProfiler(GCProfiler.class)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementTime(TimeValue.seconds(1));
+            new Runner(options.build()).run();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.List;
+import localhost.identity.Authorisation_jws.*;
+
+/**
+* This class combines the session keys which concurrent admin requests need authorised into batches, so a burst of
+* requests is authorised by the Identity Service in one call to remainingLifetimes() rather than one call each.
+*
+* The first request to arrive sends its session key straight away. Requests which arrive while a call is in progress
+* wait, and when the call returns one of them sends the session keys of all of the waiting requests in the next call.
+* A single request is never delayed to wait for others, the batches only grow when the Identity Service is busy.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class AuthorisationBatcher {
+
+    private final AuthorisationPool authorisationPool;  //The pre-built Authorisation stubs used to make the calls
+    private final List<Request> pending = new ArrayList<>();   //The requests waiting for the next call, guarded by the batcher
+    private boolean isSending;                          //TRUE while a call is in progress, guarded by the batcher
+    private final OperationMetrics roundTripMetrics = Metrics.operation("Authorisation.roundTrip");    //The calls made to the Identity Service
+
+
+
+
+    /**
+     * Default constructor - Creates a batcher which makes its calls with the stubs of the pool.
+     * @param authorisationPool - The pool of Authorisation stubs.
+     */
+    public AuthorisationBatcher(AuthorisationPool authorisationPool) {
+        this.authorisationPool = authorisationPool;
+    }
+
+
+
+
+    /**
+     * Authorises a session key with the Identity Service, in the same call as any other session keys waiting.
+     * @param sessionKey - The session key to authorise.
+     * @return - The time in milliseconds the session key remains valid for if it is not used again, 0 if it is not valid.
+     * @throws Exception If the Identity Service could not be called.
+     */
+    public long authorise(String sessionKey) throws Exception {
+        Request request = new Request(sessionKey);
+        List<Request> batch;
+        synchronized (this)
+        {
+            pending.add(request);
+            while(isSending && !request.isDone)
+                wait();
+            if(request.isDone)
+                return request.result();
+
+            //No call is in progress, send every waiting session key including this one
+            isSending = true;
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        send(batch);
+        return request.result();
+    }
+
+
+
+
+    /**
+     * Calls the Identity Service to authorise a batch of session keys, and wakes the requests once it has returned.
+     * @param batch - The requests of the batch.
+     */
+    private void send(List<Request> batch) {
+        String[] keys = new String[batch.size()];
+        for(int i = 0; i < keys.length; i++)
+            keys[i] = batch.get(i).sessionKey;
+
+        long[] lifetimes = null;
+        Exception error = null;
+        long start = System.nanoTime();
+        try
+        {
+            try
+            {
+                //Borrow a pre-built stub, and only return it to the pool if the call succeeded
+                Authorisation serviceInterface = authorisationPool.borrow();
+                lifetimes = serviceInterface.remainingLifetimes(keys);
+                authorisationPool.release(serviceInterface);
+                if(lifetimes == null || lifetimes.length != keys.length)
+                    throw new IllegalStateException("The Identity Service returned the wrong number of results.");
+            }
+            catch (Exception e)
+            {
+                error = e;
+            }
+            finally
+            {
+                //Time the round trip separately so the cost of the Identity Service can be told apart from the Admin operation
+                roundTripMetrics.record(start, error != null);
+            }
+        }
+        finally
+        {
+            //Always finish the batch, otherwise an Error thrown by the call would leave isSending set and every request waiting forever
+            if(error == null && (lifetimes == null || lifetimes.length != batch.size()))
+                error = new IllegalStateException("The call to the Identity Service did not complete.");
+            synchronized (this)
+            {
+                for(int i = 0; i < batch.size(); i++)
+                {
+                    Request request = batch.get(i);
+                    request.lifetime = error == null ? lifetimes[i] : 0;
+                    request.error = error;
+                    request.isDone = true;
+                }
+                isSending = false;
+                notifyAll();
+            }
+        }
+    }
+
+
+
+
+    /**
+     * A session key waiting to be authorised and the result of authorising it, guarded by the batcher.
+     */
+    private static class Request {
+        private final String sessionKey;    //The session key to authorise
+        private boolean isDone;             //TRUE once the call which included the session key has returned
+        private long lifetime;              //The time the session key remains valid for, 0 if it is not valid
+        private Exception error;            //The reason the call failed, null if it succeeded
+
+        private Request(String sessionKey) {
+            this.sessionKey = sessionKey;
+        }
+
+        private long result() throws Exception {
+            if(error != null)
+                throw error;
+            return lifetime;
+        }
+    }
+}
\ No newline at end of file
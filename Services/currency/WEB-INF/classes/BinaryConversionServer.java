@@ -0,0 +1,342 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+* This class is an optional TCP server which answers convert and rateOf requests in a fixed width binary protocol,
+* for callers which can not afford the cost of SOAP or HTTP. It reads the same CurrencyDatabaseInterface as the
+* Conversion endpoint.
+*
+* Every request is 24 bytes and every response is 16 bytes, all values are big endian:
+* - Request:  int requestId, int operation, int fromCode, int toCode, double amount
+* - Response: int requestId, int status, double value
+*
+* The operations are 1 convert (including the 1% fee) and 2 rateOf, the amount is ignored by rateOf. A currency code
+* is sent as its three ASCII letters in the low 24 bits of an int, so "AUD" is ('A' << 16) | ('U' << 8) | 'D'.
+* The status is 0 if the value is the result, otherwise it is the error code of Conversion.convertBatch() without the
+* sign: 1 invalid amount, 2 unknown fromCode, 3 unknown toCode, 4 no rate between the currencies, or 5 unknown operation.
+*
+* A client can send many requests without waiting for the responses, the request id is copied into the response so
+* the client can match them up. Each connection is served by one of a small number of selector threads which reads
+* every complete request in its buffer, answers them all and writes the responses back in one write. When a client
+* does not read its responses the server stops reading its requests until the responses have been written.
+*
+* The server is started by the BinaryServerListener of the webapp when the "currency.binary.port" system property is
+* set, or on its own with: java -cp <webapp classes and lib> BinaryConversionServer <port>
+* The number of selector threads can be set with "currency.binary.threads" (default the number of processors).
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class BinaryConversionServer {
+
+    //CONSTANTS
+    public static final int REQUEST_SIZE = 24;
+    public static final int RESPONSE_SIZE = 16;
+    public static final int CONVERT = 1;
+    public static final int RATE_OF = 2;
+    public static final int UNKNOWN_OPERATION = 5;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ServerSocketChannel serverChannel;    //The channel new connections are accepted from
+    private final EventLoop[] loops;                    //The selector threads which serve the connections
+    private final Thread acceptor;                      //The thread which accepts connections
+    private volatile boolean isRunning = true;
+    private static CurrencyDatabaseInterface database = new CurrencyDatabaseInterface();
+
+
+
+
+    /**
+     * Default constructor - Binds the port and starts the threads of the server.
+     * @param port - The TCP port to listen on, 0 to pick any free port.
+     * @param threadCount - The number of selector threads.
+     * @throws IOException If the port could not be bound.
+     */
+    public BinaryConversionServer(int port, int threadCount) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+
+        loops = new EventLoop[Math.max(1, threadCount)];
+        for(int i = 0; i < loops.length; i++)
+        {
+            loops[i] = new EventLoop();
+            Thread thread = new Thread(loops[i], "binary-conversion-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        acceptor = new Thread(new Runnable() {
+            public void run() {
+                accept();
+            }
+        }, "binary-conversion-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        Log.debug("SUCCESS: The binary conversion server is listening on port " + getPort());
+    }
+
+
+
+
+    /**
+     * Main Method - Runs the server on its own until the process is stopped.
+     * @param args - The port to listen on.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("currency.binary.port", 9400);
+        new BinaryConversionServer(port, Integer.getInteger("currency.binary.threads", Runtime.getRuntime().availableProcessors()));
+        System.out.println("Binary conversion server listening on port " + port);
+        Thread.currentThread().join();
+    }
+
+
+
+
+    /**
+     * Gets the port the server is listening on.
+     * @return - The TCP port.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+
+
+
+    /**
+     * Stops the server and closes every connection.
+     */
+    public void close() {
+        isRunning = false;
+        try
+        {
+            serverChannel.close();
+        }
+        catch (IOException e)
+        {
+            Log.warn("ERROR: Could not close the binary conversion server: " + e.getMessage());
+        }
+        for(EventLoop loop : loops)
+            loop.close();
+    }
+
+
+
+
+    /**
+     * Accepts connections and hands them to the selector threads in turn.
+     */
+    private void accept() {
+        int next = 0;
+        while(isRunning)
+        {
+            try
+            {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            }
+            catch (IOException e)
+            {
+                if(isRunning)
+                    Log.warn("ERROR: The binary conversion server could not accept a connection: " + e.getMessage());
+            }
+        }
+    }
+
+
+
+
+    /**
+     * Answers a single request.
+     * @param request - The buffer positioned at the start of the request, which is read.
+     * @param response - The buffer the response is written to.
+     */
+    private static void answer(ByteBuffer request, ByteBuffer response) {
+        int requestId = request.getInt();
+        int operation = request.getInt();
+        int fromCode = request.getInt();
+        int toCode = request.getInt();
+        double amount = request.getDouble();
+
+        double value;
+        if(operation == CONVERT)
+            value = database.convert(fromCode, toCode, amount);
+        else if(operation == RATE_OF)
+            value = database.rateOf(fromCode, toCode);
+        else
+            value = -UNKNOWN_OPERATION;
+
+        //The error codes of the database are negative, the status is the code without the sign
+        response.putInt(requestId);
+        if(value < 0)
+        {
+            response.putInt((int) -value);
+            response.putDouble(Double.NaN);
+        }
+        else
+        {
+            response.putInt(0);
+            response.putDouble(value);
+        }
+    }
+
+
+
+
+    /**
+     * A selector thread which serves a share of the connections.
+     */
+    private class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<SocketChannel> registrations = new ConcurrentLinkedQueue<>();   //The connections waiting to be added to the selector
+
+        private EventLoop() throws IOException {
+            selector = Selector.open();
+        }
+
+
+
+
+        /**
+         * Adds a connection to the selector, from the acceptor thread.
+         * @param channel - The connection.
+         */
+        private void register(SocketChannel channel) {
+            registrations.add(channel);
+            selector.wakeup();
+        }
+
+
+
+
+        /**
+         * Closes the selector and every connection of the loop.
+         */
+        private void close() {
+            try
+            {
+                for(SelectionKey key : selector.keys())
+                    key.channel().close();
+                selector.close();
+            }
+            catch (IOException | ClosedSelectorException e)
+            {
+                //The connections are being closed anyway
+            }
+        }
+
+
+
+
+        public void run() {
+            try
+            {
+                while(isRunning)
+                {
+                    selector.select();
+
+                    SocketChannel channel;
+                    while((channel = registrations.poll()) != null)
+                        channel.register(selector, SelectionKey.OP_READ, new Connection());
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while(keys.hasNext())
+                    {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try
+                        {
+                            serve(key);
+                        }
+                        catch (IOException e)
+                        {
+                            key.channel().close();
+                        }
+                    }
+                }
+            }
+            catch (IOException | ClosedSelectorException e)
+            {
+                if(isRunning)
+                    Log.error("ERROR: A binary conversion server thread stopped: " + e.getMessage());
+            }
+        }
+
+
+
+
+        /**
+         * Reads the requests of a connection which are ready, answers them and writes the responses.
+         * @param key - The key of the connection.
+         * @throws IOException If the connection failed or was closed by the client.
+         */
+        private void serve(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+
+            //Finish writing the responses which did not fit in the socket last time
+            if(key.isWritable() && !flush(channel, connection))
+                return;
+
+            if(key.isReadable() && channel.read(connection.input) < 0)
+            {
+                channel.close();
+                return;
+            }
+
+            //Answer every complete request while there is room for the response
+            connection.input.flip();
+            while(connection.input.remaining() >= REQUEST_SIZE && connection.output.remaining() >= RESPONSE_SIZE)
+                answer(connection.input, connection.output);
+            connection.input.compact();
+
+            //Stop reading until the responses have been written if the client is not reading them
+            if(flush(channel, connection))
+                key.interestOps(SelectionKey.OP_READ);
+            else
+                key.interestOps(SelectionKey.OP_WRITE);
+        }
+
+
+
+
+        /**
+         * Writes the responses of a connection.
+         * @param channel - The connection.
+         * @param connection - The buffers of the connection.
+         * @return - TRUE if every response was written, FALSE if the socket is full.
+         * @throws IOException If the connection failed.
+         */
+        private boolean flush(SocketChannel channel, Connection connection) throws IOException {
+            connection.output.flip();
+            channel.write(connection.output);
+            boolean isFlushed = !connection.output.hasRemaining();
+            connection.output.compact();
+            return isFlushed;
+        }
+    }
+
+
+
+
+    /**
+     * The buffers of a connection, only used by the selector thread of the connection.
+     */
+    private static class Connection {
+        private final ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        private final ByteBuffer output = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+    }
+}
\ No newline at end of file
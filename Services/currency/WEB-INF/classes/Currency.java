@@ -1,35 +1,86 @@
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
 * This class represents a Currency, a currency is represented by a Currency code
 * and a currency can contain a number of conversion rates between other currencies.
 * This class offers CRUD operations in order to create/read/update/delete conversion rates.
 *
+* Each currency is given a small integer id by the database when it is added. The conversion rates
+* are stored as a row of the rate matrix, indexed by the id of the currency converted to, with NaN
+* for the currencies which do not have a conversion rate. Looking up a rate is a single array load.
+*
+* Once a currency has been published in a RateSnapshot it is read by many threads and must not be changed,
+* changes are made to a copy of the currency while holding the write lock of the CurrencyDatabaseInterface.
+*
 * @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
 * @since   18/10/2018
 */
 public class Currency {
-    
+
     //The value returned for invalid requests
     private static final double INVALID = -1.0;
 
+    //The amount is multiplied by this to charge the 1% conversion fee
+    private static final double AFTER_FEE = 0.99;
+
     //Private member variables
-    private String code;                    //The currency code, AUD, USD etc
-    private HashMap<String, Double> rates;  //The conversion rates this currency can convert to. <toCurrencyCode, rate>
-    private boolean tradeable;            //A flag value which indicates if the currency is tradeable (has a conversion rate)
+    private String code;            //The currency code, AUD, USD etc
+    private int id;                 //The id of the currency, the index of the currency in the rate matrix
+    private double[] rates;         //The conversion rates this currency can convert to, indexed by the id of the toCurrency. NaN if there is no rate
+    private int rateCount;          //The number of conversion rates, the currency is tradeable if it has a conversion rate
+    private volatile String[] formattedRates;   //The formatted rates, built the first time they are listed and cleared when a rate changes
 
 
     /**
      * Default constructor - Creates a currency with the specified code
      * @param code - The currency code
+     * @param id - The id given to the currency by the database
+     * @param capacity - The number of currency ids the rates should initially have room for
+     */
+    public Currency(String code, int id, int capacity) {
+        this.code = code;
+        this.id = id;
+        rates = new double[capacity];
+        Arrays.fill(rates, Double.NaN);
+        rateCount = 0;
+        if(Log.isDebugEnabled())
+            Log.debug("SUCCESS: Created currency - " + code);
+    }
+
+
+
+
+    /**
+     * Restore constructor - Creates a currency with the rates read from a RateCheckpoint.
+     * @param code - The currency code
+     * @param id - The id given to the currency by the database
+     * @param rates - The conversion rates indexed by the id of the toCurrency, NaN if there is no rate. The array must not be changed after it is passed in.
      */
-    public Currency(String code) {
+    public Currency(String code, int id, double[] rates) {
         this.code = code;
-        rates = new HashMap<>();
-        tradeable = false;
-        System.out.println("SUCCESS: Created currency - " + code);
+        this.id = id;
+        this.rates = rates;
+        for(double rate : rates)
+        {
+            if(!Double.isNaN(rate))
+                rateCount++;
+        }
+    }
+
+
+
+
+    /**
+     * Copy constructor - Creates a copy of the currency and its rates which can be changed
+     * without affecting the original currency.
+     * @param currency - The currency to copy
+     */
+    public Currency(Currency currency) {
+        this.code = currency.code;
+        this.id = currency.id;
+        rates = currency.rates.clone();
+        rateCount = currency.rateCount;
     }
 
 
@@ -39,55 +90,85 @@ public class Currency {
      * Gets the currency code.
      * @return - The currency code.
      */
-    public String getCode() { 
+    public String getCode() {
         return code;
     }
 
 
 
+
+    /**
+     * Gets the currency id.
+     * @return - The id of the currency in the rate matrix.
+     */
+    public int getId() {
+        return id;
+    }
+
+
+
+    /**
+     * Gets the conversion rates of the currency, used to calculate the cross rates of a snapshot.
+     * The array must not be changed.
+     * @return - The conversion rates indexed by the id of the toCurrency, NaN if there is no rate.
+     */
+    public double[] getRateRow() {
+        return rates;
+    }
+
+
+
+
     /**
      * Outlines if the currency is tradeable (has conversion rates)
      * @return - TRUE = the currency is tradeable, FALSE otherwise
      */
     public boolean isTradable() {
-        return tradeable;
+        return rateCount > 0;
     }
-    
+
 
 
 
     /**
      * Adds a conversion rate to the currency if the conversion does not already exist.
-     * @param codeToAdd - The currency code which is being added to the rates
-     * @param rate - The conversion rate between this currency and the code to add
+     * @param currencyToAdd - The currency which is being added to the rates
+     * @param rate - The conversion rate between this currency and the currency to add
      * @return - TRUE if successful, FALSE otherwise
      */
-    public boolean addRate(String codeToAdd, double rate) {
-        
-        System.out.println(code + " - Attempting to add conversion rate - " + codeToAdd + ":" + String.format("%.4f", rate));
+    public boolean addRate(Currency currencyToAdd, double rate) {
+
+        if(Log.isDebugEnabled())
+            Log.debug(code + " - Attempting to add conversion rate - " + currencyToAdd.code + ":" + String.format("%.4f", rate));
 
         //Confirm the new rate is within the valid range
         if(rate <= 0)
         {
-            System.out.println("ERROR: Cannot add rate because the <rate> is invalid.");
+            Log.warn("ERROR: Cannot add rate because the <rate> is invalid.");
             return false;
         }
-        
-        //Confirm the codeToAdd does not already exist inside the rate
-        if(rates.containsKey(codeToAdd))
+
+        //Confirm the currencyToAdd does not already exist inside the rate
+        if(containsRate(currencyToAdd))
         {
-            System.out.println("ERROR: The rate you are trying to add already exists for this currency.");
+            Log.warn("ERROR: The rate you are trying to add already exists for this currency.");
             return false;
         }
 
-        //Add the new rate to the HashMap
-        rates.put(codeToAdd, rate);
-        
-        //If the rates HashMap now has rates, make the currency tradeable
-        if(!tradeable)
-            tradeable = true;
+        //Make room for the id of the currency if it was added after this currency
+        if(currencyToAdd.id >= rates.length)
+        {
+            int oldLength = rates.length;
+            rates = Arrays.copyOf(rates, Math.max(currencyToAdd.id + 1, oldLength * 2));
+            Arrays.fill(rates, oldLength, rates.length, Double.NaN);
+        }
 
-        System.out.println("SUCCESS: rate successfully added.");
+        //Add the new rate to the rates, the currency is now tradeable
+        rates[currencyToAdd.id] = rate;
+        rateCount++;
+        formattedRates = null;
+
+        Log.debug("SUCCESS: rate successfully added.");
         return true;
     }
 
@@ -95,62 +176,63 @@ public class Currency {
 
 
     /**
-     * Updates the conversion rate between the currency and the codeToUpdate.
-     * @param codeToUpdate - The currency code which rate will be updated
+     * Updates the conversion rate between the currency and the currencyToUpdate.
+     * @param currencyToUpdate - The currency which rate will be updated
      * @param newRate - The value of the new rate, must be greater than 0.
      * @return - TRUE if successful, FALSE otherwise
      */
-    public boolean updateRate(String codeToUpdate, double newRate) {
-        
-        System.out.println(code + " - Attempting to update conversion rate - " + codeToUpdate + ":" + String.format("%.4f", newRate));
+    public boolean updateRate(Currency currencyToUpdate, double newRate) {
+
+        if(Log.isDebugEnabled())
+            Log.debug(code + " - Attempting to update conversion rate - " + currencyToUpdate.code + ":" + String.format("%.4f", newRate));
 
         //Confirm the new rate is within the valid range
         if(newRate <= 0)
         {
-            System.out.println("ERROR: Cannot update rate because the <rate> is invalid.");
+            Log.warn("ERROR: Cannot update rate because the <rate> is invalid.");
             return false;
         }
-        
-        //Confirm the codeToUpdate exists inside the rates
-        if(!rates.containsKey(codeToUpdate))
+
+        //Confirm the currencyToUpdate exists inside the rates
+        if(!containsRate(currencyToUpdate))
         {
-            System.out.println("ERROR: The rate you are trying to update does not exist for this currency.");
+            Log.warn("ERROR: The rate you are trying to update does not exist for this currency.");
             return false;
         }
 
         //Update the rate
-        rates.put(codeToUpdate, newRate);
-        System.out.println("SUCCESS: rate successfully updated.");
-        return true;        
+        rates[currencyToUpdate.id] = newRate;
+        formattedRates = null;
+        Log.debug("SUCCESS: rate successfully updated.");
+        return true;
     }
 
 
 
 
     /**
-     * Removes the conversion rate between the currrency and the codeToRemove
-     * @param codeToRemove - The currency code to remove from the conversion rates.
+     * Removes the conversion rate between the currrency and the currencyToRemove
+     * @param currencyToRemove - The currency to remove from the conversion rates.
      * @return - TRUE if successful, FALSE otherwise
      */
-    public boolean removeRate(String codeToRemove) {
-        
-        System.out.println(code + " - Attempting to remove conversion rate - " + codeToRemove);
+    public boolean removeRate(Currency currencyToRemove) {
+
+        if(Log.isDebugEnabled())
+            Log.debug(code + " - Attempting to remove conversion rate - " + currencyToRemove.code);
 
-        //Confirm the codeToRemove exists inside the rates
-        if(!rates.containsKey(codeToRemove))
+        //Confirm the currencyToRemove exists inside the rates
+        if(!containsRate(currencyToRemove))
         {
-            System.out.println("ERROR: The rate you are trying to remvoe does not exist for this currency.");
+            Log.warn("ERROR: The rate you are trying to remvoe does not exist for this currency.");
             return false;
         }
 
-        //Remove the rate
-        rates.remove(codeToRemove);
+        //Remove the rate, if there is no rates left the currency is no longer tradeable
+        rates[currencyToRemove.id] = Double.NaN;
+        rateCount--;
+        formattedRates = null;
 
-        //Check to see if there is atleast one rate inside the hashmap, if not set isTradable to false
-        if(rates.isEmpty())
-            tradeable = false;
-
-        System.out.println("SUCCESS: rate successfully removed.");
+        Log.debug("SUCCESS: rate successfully removed.");
         return true;
     }
 
@@ -158,25 +240,29 @@ public class Currency {
 
 
     /**
-     * Gets the conversion rate between the currency and the specified code.
-     * @param code - The currency code to get the conversion rate for.
-     * @return - The conversion rate between the currencies if code exists.
-     *           negative value if the code does not exist.
+     * Gets the conversion rate between the currency and the specified currency.
+     * If there is no direct rate the cross rate through other currencies is used.
+     * @param currency - The currency to get the conversion rate for, null if the currency does not exist.
+     * @param crossRates - The cross rates of the snapshot this currency belongs to.
+     * @return - The conversion rate between the currencies if a direct or cross rate exists.
+     *           negative value if the rate does not exist.
      */
-    public double rateOf(String code) {
-        
-        System.out.println(this.code + " - Attempting to get the conversion rate of - " + code);
+    public double rateOf(Currency currency, CrossRates crossRates) {
+
+        if(Log.isDebugEnabled())
+            Log.debug(this.code + " - Attempting to get the conversion rate of - " + (currency == null ? "unknown currency" : currency.code));
 
-        //Confirm the code passed in exists
-        if(!rates.containsKey(code))
+        //Confirm the currency passed in has a rate
+        double rate = rateTo(currency, crossRates);
+        if(Double.isNaN(rate))
         {
-            System.out.println("ERROR: The rate you are trying retrieve does not exist for this currency.");
+            Log.warn("ERROR: The rate you are trying retrieve does not exist for this currency.");
             return INVALID;
         }
 
         //Return the conversion rate of the currency
-        System.out.println("SUCCESS: Successfully retreived rate from currency.");
-        return rates.get(code);
+        Log.debug("SUCCESS: Successfully retreived rate from currency.");
+        return rate;
     }
 
 
@@ -184,46 +270,81 @@ public class Currency {
 
     /**
      * Converts the amount from the currency to the convertToCurrency.
-     * Converts the amount with a 1% conversion fee
-     * @param convertToCurrency - The currency to convert to.
+     * Converts the amount with a 1% conversion fee, using the cross rate if there is no direct rate.
+     * @param convertToCurrency - The currency to convert to, null if the currency does not exist.
      * @param amount - The amount to be converted. Must be greater than 0.
+     * @param crossRates - The cross rates of the snapshot this currency belongs to.
      * @return - The converted amount, negative value if unsuccessful.
      */
-    public double convert(String convertToCurrency, double amount) {
+    public double convert(Currency convertToCurrency, double amount, CrossRates crossRates) {
 
-        System.out.println(code + " - Attempting to convert " + String.format("%.4f", amount) + " to " + convertToCurrency);
+        if(Log.isDebugEnabled())
+            Log.debug(code + " - Attempting to convert " + String.format("%.4f", amount) + " to " + (convertToCurrency == null ? "unknown currency" : convertToCurrency.code));
 
         //confirm the amount is valid
         if(amount <= 0)
         {
-            System.out.println("ERROR: Cannot convert because the <amount> is invalid.");
+            Log.warn("ERROR: Cannot convert because the <amount> is invalid.");
             return INVALID;
         }
-        
-        //Confirm the convertToCode exists in the rates
-        if(!rates.containsKey(convertToCurrency))
+
+        //Confirm the convertToCurrency has a rate
+        double rate = rateTo(convertToCurrency, crossRates);
+        if(Double.isNaN(rate))
         {
-            System.out.println("ERROR: Cannot convert currency. The convertToCurrency rate does not exist for this currency.");
+            Log.warn("ERROR: Cannot convert currency. The convertToCurrency rate does not exist for this currency.");
             return INVALID;
         }
 
         //Calculate the conversion including the 1% conversion fee
-        double convertedAmount = amount * rates.get(convertToCurrency) * 0.99;
-        System.out.println("SUCCESS: Conversion successful, the converted amount is: " + String.format("%.4f", convertedAmount));
+        double convertedAmount = amount * rate * AFTER_FEE;
+        if(Log.isDebugEnabled())
+            Log.debug("SUCCESS: Conversion successful, the converted amount is: " + String.format("%.4f", convertedAmount));
         return convertedAmount;
     }
 
 
 
 
-    
+
+    /**
+     * Converts the amount to the convertToCurrency including the 1% conversion fee, without any checks of the
+     * amount or output. Used by batch conversions which report errors for each item instead of logging them.
+     * @param convertToCurrency - The currency to convert to, null if the currency does not exist.
+     * @param amount - The amount to be converted.
+     * @param crossRates - The cross rates of the snapshot this currency belongs to.
+     * @return - The converted amount, NaN if there is no direct or cross rate to the currency.
+     */
+    public double convertQuietly(Currency convertToCurrency, double amount, CrossRates crossRates) {
+        return amount * rateTo(convertToCurrency, crossRates) * AFTER_FEE;
+    }
+
+
+
+
+
     /**
-     * Confirms if the currency contains a conversion rate with the specified currency code.
-     * @param code - The currency code of the convertToCurrency
-     * @return - TRUE if the currency contains a conversion rate for the specified code, FALSE otherwise.
+     * Gets the conversion rate to the currency without any output, used by the binary protocol which
+     * reports errors to the caller instead of logging them.
+     * @param currency - The currency to get the conversion rate for, null if the currency does not exist.
+     * @param crossRates - The cross rates of the snapshot this currency belongs to.
+     * @return - The direct or cross rate, NaN if there is no rate to the currency.
      */
-    public boolean containsRate(String code) {
-        return rates.containsKey(code);
+    public double rateOfQuietly(Currency currency, CrossRates crossRates) {
+        return rateTo(currency, crossRates);
+    }
+
+
+
+
+
+    /**
+     * Confirms if the currency contains a conversion rate with the specified currency.
+     * @param currency - The convertToCurrency
+     * @return - TRUE if the currency contains a conversion rate for the specified currency, FALSE otherwise.
+     */
+    public boolean containsRate(Currency currency) {
+        return !Double.isNaN(rateTo(currency));
     }
 
 
@@ -234,33 +355,80 @@ public class Currency {
      * Gets a list of all the rates the currency contains in the following format:
      * <fromCode>-<toCode>:Rate
      * AUD-USD:1.3
+     * The rates are only formatted the first time they are listed, the same array is returned until a rate
+     * is changed so the array must not be changed.
+     * @param currencies - The currencies of the snapshot this currency belongs to, indexed by id.
      * @return - A string array containing the rates for the currency. An empty array
      * if the currency does not contain any rates
      */
-    public String[] getRates() {
+    public String[] getRates(Currency[] currencies) {
 
-        System.out.println(code + " - Attempting to get all the conversion rates.");
+        if(Log.isDebugEnabled())
+            Log.debug(code + " - Attempting to get all the conversion rates.");
 
         //Confirm the currency has conversion rates, return an empty array if not
-        if(!tradeable)
+        if(!isTradable())
         {
-            System.out.println("ERROR:" + code + " does not contain any rates.");
+            if(Log.isWarnEnabled())
+                Log.warn("ERROR:" + code + " does not contain any rates.");
             return new String[0];
         }
-            
-        
-        String[] formattedRates = new String[rates.size()];
+
+
+        //Return the rates formatted by an earlier request if none of the rates have changed
+        String[] formatted = formattedRates;
+        if(formatted != null)
+        {
+            Log.debug("SUCCESS: Successfully retrieved conversion rates.");
+            return formatted;
+        }
 
         //Loop through all the rates and format the string accordingly
         //Makes the rates to 4 decimal places for readability
+        formatted = new String[rateCount];
         int i = 0;
-        for (Map.Entry<String, Double> entry : rates.entrySet())
+        for (int toId = 0; toId < rates.length; toId++)
         {
-            formattedRates[i] = code + "-" + entry.getKey() + ":" + String.format("%.4f", entry.getValue());
+            if(Double.isNaN(rates[toId]))
+                continue;
+            formatted[i] = code + "-" + currencies[toId].code + ":" + String.format("%.4f", rates[toId]);
             i++;
         }
+        formattedRates = formatted;
+
+        Log.debug("SUCCESS: Successfully retrieved conversion rates.");
+        return formatted;
+    }
+
+
+
+
 
-        System.out.println("SUCCESS: Successfully retrieved conversion rates.");
-        return formattedRates;
+    /**
+     * Gets the rate to the currency without any checks or output, used on the conversion hot path.
+     * @param currency - The convertToCurrency, null if the currency does not exist.
+     * @return - The conversion rate, NaN if there is no rate to the currency.
+     */
+    private double rateTo(Currency currency) {
+        if(currency == null || currency.id >= rates.length)
+            return Double.NaN;
+        return rates[currency.id];
+    }
+
+
+
+
+
+    /**
+     * Gets the direct rate to the currency, or the cross rate through other currencies if there is no direct rate.
+     * @param currency - The convertToCurrency, null if the currency does not exist.
+     * @param crossRates - The cross rates of the snapshot this currency belongs to.
+     * @return - The conversion rate, NaN if there is no direct or cross rate to the currency.
+     */
+    private double rateTo(Currency currency, CrossRates crossRates) {
+        double rate = rateTo(currency);
+        if(Double.isNaN(rate))
+            return crossRates.rateOf(this, currency);
+        return rate;
     }
 }
\ No newline at end of file
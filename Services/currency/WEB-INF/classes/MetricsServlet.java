@@ -0,0 +1,32 @@
+import java.io.IOException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+* Serves the metrics of the service as plain text in the Prometheus text format, mapped to /metrics in web.xml.
+*
+* This class is shared by the Currency and Identity services, the same class is copied into both.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class MetricsServlet extends HttpServlet {
+
+    //CONSTANTS
+    private static final long serialVersionUID = 1L;
+
+
+
+    /**
+     * Writes the metrics of every operation.
+     * @param request - The scrape request.
+     * @param response - The response the metrics are written to.
+     * @throws IOException If the response could not be written.
+     */
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.getWriter().write(Metrics.scrape());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+/**
+* This class represents a single change made to the currencies or rates by the Admin endpoint.
+* Changes are written to the RateLog so they can be replayed in the same order when the service is restarted.
+*
+* A rate change also changes the inverse rate, so only the rate in one direction is stored.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class RateChange {
+
+    //CONSTANTS - The types of change, the values are written to the log so must never be changed
+    public static final byte ADD_CURRENCY = 1;
+    public static final byte REMOVE_CURRENCY = 2;
+    public static final byte ADD_RATE = 3;
+    public static final byte UPDATE_RATE = 4;
+    public static final byte REMOVE_RATE = 5;
+
+    private final byte type;                //The type of change
+    private final String fromCurrencyCode;  //The currency changed, or the currency the rate is from
+    private final String toCurrencyCode;    //The currency the rate is to, null for a currency change
+    private final double rate;              //The rate added or updated, 0 if the change does not set a rate
+
+
+
+
+    /**
+     * Default constructor - Creates a change.
+     * @param type - The type of change.
+     * @param fromCurrencyCode - The currency changed, or the currency the rate is from.
+     * @param toCurrencyCode - The currency the rate is to, null for a currency change.
+     * @param rate - The rate added or updated.
+     */
+    public RateChange(byte type, String fromCurrencyCode, String toCurrencyCode, double rate) {
+        this.type = type;
+        this.fromCurrencyCode = fromCurrencyCode;
+        this.toCurrencyCode = toCurrencyCode;
+        this.rate = rate;
+    }
+
+
+
+
+    /**
+     * Creates a change which adds a currency.
+     * @param currencyCode - The currency code to add.
+     * @return - The change.
+     */
+    public static RateChange addCurrency(String currencyCode) {
+        return new RateChange(ADD_CURRENCY, currencyCode, null, 0);
+    }
+
+
+
+
+    /**
+     * Creates a change which removes a currency and all of its rates.
+     * @param currencyCode - The currency code to remove.
+     * @return - The change.
+     */
+    public static RateChange removeCurrency(String currencyCode) {
+        return new RateChange(REMOVE_CURRENCY, currencyCode, null, 0);
+    }
+
+
+
+
+    /**
+     * Creates a change which adds a rate and its inverse rate.
+     * @param fromCurrencyCode - The currency code the conversion is from.
+     * @param toCurrencyCode - The currency code the conversion is to.
+     * @param rate - The rate at which the two currencies are converted.
+     * @return - The change.
+     */
+    public static RateChange addRate(String fromCurrencyCode, String toCurrencyCode, double rate) {
+        return new RateChange(ADD_RATE, fromCurrencyCode, toCurrencyCode, rate);
+    }
+
+
+
+
+    /**
+     * Creates a change which updates a rate and its inverse rate.
+     * @param fromCurrencyCode - The currency code the conversion is from.
+     * @param toCurrencyCode - The currency code the conversion is to.
+     * @param rate - The new rate at which the two currencies are converted.
+     * @return - The change.
+     */
+    public static RateChange updateRate(String fromCurrencyCode, String toCurrencyCode, double rate) {
+        return new RateChange(UPDATE_RATE, fromCurrencyCode, toCurrencyCode, rate);
+    }
+
+
+
+
+    /**
+     * Creates a change which removes a rate and its inverse rate.
+     * @param fromCurrencyCode - The currency code the conversion is from.
+     * @param toCurrencyCode - The currency code the conversion is to.
+     * @return - The change.
+     */
+    public static RateChange removeRate(String fromCurrencyCode, String toCurrencyCode) {
+        return new RateChange(REMOVE_RATE, fromCurrencyCode, toCurrencyCode, 0);
+    }
+
+
+
+
+    /**
+     * Outlines if the change is to a rate rather than a currency.
+     * @return - TRUE if the change has a toCurrencyCode, FALSE otherwise.
+     */
+    public boolean isRateChange() {
+        return type == ADD_RATE || type == UPDATE_RATE || type == REMOVE_RATE;
+    }
+
+
+
+
+    /**
+     * Gets the type of change.
+     * @return - The type of change.
+     */
+    public byte getType() {
+        return type;
+    }
+
+
+
+
+    /**
+     * Gets the currency changed, or the currency the rate is from.
+     * @return - The currency code.
+     */
+    public String getFromCurrencyCode() {
+        return fromCurrencyCode;
+    }
+
+
+
+
+    /**
+     * Gets the currency the rate is to.
+     * @return - The currency code, null for a currency change.
+     */
+    public String getToCurrencyCode() {
+        return toCurrencyCode;
+    }
+
+
+
+
+    /**
+     * Gets the rate added or updated.
+     * @return - The rate, 0 if the change does not set a rate.
+     */
+    public double getRate() {
+        return rate;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* This class keeps the most recent changes made to the currencies and rates so clients can follow them as a stream
+* of events instead of polling listRates(). Each change is numbered with the version of the rates it produced, so a
+* client which has applied the changes up to a version asks for the changes after it.
+*
+* Only the last "currency.feed.capacity" changes are kept (default 1024). A client which is further behind than that,
+* or which has a version from before the service was restarted (the versions start from a new epoch when the
+* database is loaded), must reload the whole table from a snapshot and continue from the version of the snapshot.
+*
+* The changes are published while holding the write lock of the database, so they are in the same order as the
+* snapshots and the versions have no gaps.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class RateFeed {
+
+    //CONSTANTS
+    private static final int CAPACITY = Math.max(1, Integer.getInteger("currency.feed.capacity", 1024));
+
+    private final Event[] events = new Event[CAPACITY];    //The recent changes, the change of version v is at v % CAPACITY
+    private long version;                                   //The version of the latest change, guarded by the feed
+    private long oldestVersion;                             //The version of the oldest change kept, guarded by the feed
+
+
+
+
+    /**
+     * Starts the feed again from a version without any changes, used when the database is loaded.
+     * @param version - The version of the rates.
+     */
+    public synchronized void reset(long version) {
+        this.version = version;
+        oldestVersion = version + 1;
+        notifyAll();
+    }
+
+
+
+
+    /**
+     * Adds a change and wakes the clients waiting for it.
+     * @param version - The version of the rates after the change, one more than the last change.
+     * @param change - The change.
+     * @param removedRates - The codes of the currencies a removed currency had a rate with, empty for any other change.
+     */
+    public synchronized void publish(long version, RateChange change, String[] removedRates) {
+        //The currency codes are sent in upper case, the same as they are stored
+        String toCode = change.getToCurrencyCode();
+        events[(int) (version % CAPACITY)] = new Event(version, new RateChange(change.getType(), change.getFromCurrencyCode().toUpperCase(),
+                toCode == null ? null : toCode.toUpperCase(), change.getRate()), removedRates);
+        this.version = version;
+        oldestVersion = Math.max(oldestVersion, version - CAPACITY + 1);
+        notifyAll();
+    }
+
+
+
+
+    /**
+     * Gets the changes made after a version, waiting for the next change if there are none yet.
+     * @param sinceVersion - The version the client has applied every change up to.
+     * @param timeoutMillis - How long to wait for a change.
+     * @return - The changes in version order, empty if no change was made before the timeout,
+     *           null if the changes are no longer kept and the client must reload a snapshot.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    public synchronized List<Event> changesSince(long sinceVersion, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while(sinceVersion == version)
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if(remaining <= 0)
+                return new ArrayList<>();
+            wait(remaining);
+        }
+
+        if(sinceVersion + 1 < oldestVersion || sinceVersion > version)
+            return null;
+
+        List<Event> changes = new ArrayList<>((int) (version - sinceVersion));
+        for(long v = sinceVersion + 1; v <= version; v++)
+            changes.add(events[(int) (v % CAPACITY)]);
+        return changes;
+    }
+
+
+
+
+    /**
+     * Gets the changes made after a version up to and including another version, without waiting.
+     * @param sinceVersion - The version the caller has applied every change up to.
+     * @param upToVersion - The version of the last change wanted.
+     * @return - The changes in version order, null if they are not all kept.
+     */
+    public synchronized List<Event> changesBetween(long sinceVersion, long upToVersion) {
+        if(sinceVersion + 1 < oldestVersion || upToVersion > version || sinceVersion > upToVersion)
+            return null;
+
+        List<Event> changes = new ArrayList<>((int) (upToVersion - sinceVersion));
+        for(long v = sinceVersion + 1; v <= upToVersion; v++)
+            changes.add(events[(int) (v % CAPACITY)]);
+        return changes;
+    }
+
+
+
+
+    /**
+     * A change and the version of the rates it produced.
+     */
+    public static class Event {
+        private final long version;         //The version of the rates after the change
+        private final RateChange change;    //The change, with the currency codes in upper case
+        private final String[] removedRates;//The codes of the currencies a removed currency had a rate with
+
+        private Event(long version, RateChange change, String[] removedRates) {
+            this.version = version;
+            this.change = change;
+            this.removedRates = removedRates;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public RateChange getChange() {
+            return change;
+        }
+
+        /**
+         * Outlines if the currency removed by the change had a rate with the currency, which was removed with it.
+         * @param code - The upper case currency code.
+         * @return - TRUE if the change removed a rate with the currency, FALSE otherwise.
+         */
+        public boolean removedRateWith(String code) {
+            for(String removed : removedRates)
+            {
+                if(removed.equals(code))
+                    return true;
+            }
+            return false;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+* Streams the changes made to the currencies and rates as Server-Sent Events, mapped to /feed/* in web.xml, so a
+* client can keep its own copy of the rates up to date without polling listRates().
+*
+* - GET /feed/snapshot    The whole table and its version as JSON:
+*                         {"version":7,"currencies":["AUD",...],"rates":[{"from":"AUD","to":"USD","rate":0.7},...]}
+* - GET /feed/events      A stream of events, each with the version of the rates it produced as its id:
+*                         event: change    data: {"version":8,"type":"updateRate","from":"AUD","to":"USD","rate":0.71}
+*                         event: snapshot  data: the same JSON as /feed/snapshot
+*
+* The stream continues from the version in the "since" parameter, or the Last-Event-ID header sent by an EventSource
+* when it reconnects. Without a version, or when the changes after the version are no longer kept, the stream starts
+* with a snapshot and continues from its version, so a client replaces its copy when it receives a snapshot and
+* applies each change in order. A rate change also changes the inverse rate to 1/rate, and removing a currency
+* removes all of its rates. A comment is sent when nothing has changed for 15 seconds so idle connections are kept open.
+*
+* Each open stream holds a thread of the servlet container while it waits for the next change.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class RateFeedServlet extends HttpServlet {
+
+    //CONSTANTS
+    private static final long serialVersionUID = 1L;
+    private static final String[] TYPES = { null, "addCurrency", "removeCurrency", "addRate", "updateRate", "removeRate" };  //Indexed by the type of RateChange
+    private static final long KEEPALIVE_MILLIS = 15000;
+    private static final int RETRY_MILLIS = 2000;          //How long an EventSource waits before it reconnects
+
+    private static CurrencyDatabaseInterface database = new CurrencyDatabaseInterface();
+    private static final OperationMetrics snapshotMetrics = Metrics.operation("Feed.snapshot");
+
+
+
+
+    /**
+     * Sends the snapshot or the stream of events named by the path of the request.
+     * @param request - The request, the path after /feed names the resource.
+     * @param response - The response.
+     * @throws IOException If the response could not be written.
+     */
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getPathInfo();
+        if("/snapshot".equals(path))
+            snapshot(response);
+        else if("/events".equals(path))
+            events(request, response);
+        else
+        {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.setContentType("application/json; charset=utf-8");
+            StringBuilder json = new StringBuilder("{\"error\":");
+            ConversionServlet.appendString(json, "Unknown resource " + path);
+            response.getOutputStream().write(json.append('}').toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+
+
+
+    /**
+     * Sends the whole table of rates.
+     * @param response - The response the snapshot is written to.
+     * @throws IOException If the response could not be written.
+     */
+    private void snapshot(HttpServletResponse response) throws IOException {
+        long start = System.nanoTime();
+        byte[] json = null;
+        try
+        {
+            json = toJson(database.getSnapshot()).getBytes(StandardCharsets.UTF_8);
+        }
+        finally
+        {
+            snapshotMetrics.record(start, json == null);
+        }
+
+        response.setContentType("application/json; charset=utf-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
+    }
+
+
+
+
+    /**
+     * Streams the changes until the client disconnects.
+     * @param request - The request, with the version to continue from in the since parameter or Last-Event-ID header.
+     * @param response - The response the events are written to.
+     * @throws IOException If the response could not be written.
+     */
+    private void events(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long since = parseVersion(request.getHeader("Last-Event-ID"));
+        if(since < 0)
+            since = parseVersion(request.getParameter("since"));
+
+        response.setContentType("text/event-stream; charset=utf-8");
+        response.setHeader("Cache-Control", "no-cache");
+        OutputStream output = response.getOutputStream();
+        write(output, "retry: " + RETRY_MILLIS + "\n\n");
+
+        try
+        {
+            //A client without a version starts from a snapshot
+            if(since < 0)
+                since = writeSnapshot(output);
+
+            while(true)
+            {
+                List<RateFeed.Event> changes = database.changesSince(since, KEEPALIVE_MILLIS);
+                if(changes == null)
+                {
+                    //The client is too far behind to catch up from the changes, send it the whole table again
+                    since = writeSnapshot(output);
+                }
+                else if(changes.isEmpty())
+                    write(output, ": keepalive\n\n");
+                else
+                {
+                    StringBuilder events = new StringBuilder(changes.size() * 96);
+                    for(RateFeed.Event event : changes)
+                    {
+                        events.append("id: ").append(event.getVersion()).append("\nevent: change\ndata: ");
+                        appendChange(events, event);
+                        events.append("\n\n");
+                        since = event.getVersion();
+                    }
+                    write(output, events.toString());
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+
+
+    /**
+     * Writes the current snapshot as an event.
+     * @param output - The stream of events.
+     * @return - The version of the snapshot.
+     * @throws IOException If the client has disconnected.
+     */
+    private long writeSnapshot(OutputStream output) throws IOException {
+        RateSnapshot current = database.getSnapshot();
+        write(output, "id: " + current.getVersion() + "\nevent: snapshot\ndata: " + toJson(current) + "\n\n");
+        return current.getVersion();
+    }
+
+
+
+
+    /**
+     * Builds the JSON of a snapshot, every direct rate is listed in both directions.
+     * @param current - The snapshot.
+     * @return - The JSON of the snapshot.
+     */
+    private static String toJson(RateSnapshot current) {
+        Currency[] matrix = current.getCurrencyMatrix();
+        StringBuilder currencies = new StringBuilder();
+        StringBuilder rates = new StringBuilder();
+        for(Currency currency : current.getCurrencies())
+        {
+            if(currencies.length() > 0)
+                currencies.append(',');
+            ConversionServlet.appendString(currencies, currency.getCode());
+
+            double[] row = currency.getRateRow();
+            for(int toId = 0; toId < row.length; toId++)
+            {
+                if(Double.isNaN(row[toId]))
+                    continue;
+                if(rates.length() > 0)
+                    rates.append(',');
+                rates.append("{\"from\":");
+                ConversionServlet.appendString(rates, currency.getCode());
+                rates.append(",\"to\":");
+                ConversionServlet.appendString(rates, matrix[toId].getCode());
+                rates.append(",\"rate\":").append(row[toId]).append('}');
+            }
+        }
+        return "{\"version\":" + current.getVersion() + ",\"currencies\":[" + currencies + "],\"rates\":[" + rates + "]}";
+    }
+
+
+
+
+    /**
+     * Appends the JSON of a change.
+     * @param json - The JSON being built.
+     * @param event - The change and its version.
+     */
+    private static void appendChange(StringBuilder json, RateFeed.Event event) {
+        RateChange change = event.getChange();
+        json.append("{\"version\":").append(event.getVersion()).append(",\"type\":\"").append(TYPES[change.getType()]).append("\",\"from\":");
+        ConversionServlet.appendString(json, change.getFromCurrencyCode());
+        if(change.isRateChange())
+        {
+            json.append(",\"to\":");
+            ConversionServlet.appendString(json, change.getToCurrencyCode());
+            if(change.getType() != RateChange.REMOVE_RATE)
+                json.append(",\"rate\":").append(change.getRate());
+        }
+        json.append('}');
+    }
+
+
+
+
+    /**
+     * Parses the version a client continues from.
+     * @param value - The version, may be null.
+     * @return - The version, -1 if there is no valid version.
+     */
+    private static long parseVersion(String value) {
+        if(value == null)
+            return -1;
+        try
+        {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+
+
+
+    /**
+     * Writes text to the stream and sends it to the client straight away.
+     * @param output - The stream of events.
+     * @param text - The text.
+     * @throws IOException If the client has disconnected.
+     */
+    private static void write(OutputStream output, String text) throws IOException {
+        output.write(text.getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,464 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+* This class represents the append only write-ahead log of the changes made by the Admin endpoint, so the
+* currencies and rates can be rebuilt by replaying the changes when the service is restarted.
+*
+* The log is written to the file set by the "currency.wal.file" system property (default currency.wal in the
+* data directory of DataFiles), an empty value disables the log. The file starts with a 4 byte magic number and the 8 byte
+* random id of the log, which is used to match a RateCheckpoint to the log it was taken from, followed by one
+* record for each change:
+* - int      The length of the payload
+* - int      The CRC32 checksum of the payload
+* - payload  The type of change, the currency codes and the rate
+*
+* Changes are appended while holding the write lock of the database so the log has the same order as the
+* snapshots, and then each request waits outside the lock until its change has been forced to disk. The first
+* request waiting writes and forces every change appended so far, so the requests which arrive while the disk
+* is busy are committed together by the next force (group commit) rather than one force each.
+*
+* When the log is opened a record which was only partly written, or does not match its checksum, is treated
+* as the end of the log and removed. If the log can not be written the error is logged and the database
+* continues without it, the same as before the log was added.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class RateLog {
+
+    //CONSTANTS
+    private static final int MAGIC = 0x52415445;            //"RATE"
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_PAYLOAD_SIZE = 1 << 16;                   //The longest record read or written
+    private static final int MAX_CODE_SIZE = (MAX_PAYLOAD_SIZE - 13) / 2;   //The longest encoded code, so two codes, the type and the rate fit in a record
+
+    private final String fileName;                                          //The file of the log, null if the log is disabled
+    private FileChannel channel;                                            //The open log file, null if the log is disabled or failed
+    private long id;                                                        //The random id written in the header of the log
+    private long end;                                                       //The position in the log after the last record appended
+    private boolean followsCheckpoint;                                      //TRUE if the log was replayed from the position of a checkpoint
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();    //The records appended but not yet written
+    private long appended;                                                  //The number of records appended
+    private long durable;                                                   //The number of records forced to disk
+    private boolean flushing;                                               //TRUE while a request is writing and forcing the pending records
+
+
+
+
+    /**
+     * Default constructor - Creates the log of the file set by the "currency.wal.file" system property.
+     * The log is not read or written until it is opened.
+     */
+    public RateLog() {
+        this(DataFiles.path("currency.wal.file", "currency.wal"));
+    }
+
+
+
+
+    /**
+     * Creates a log of a file.
+     * @param fileName - The file of the log, null or empty to disable the log.
+     */
+    public RateLog(String fileName) {
+        this.fileName = fileName == null || fileName.isEmpty() ? null : fileName;
+    }
+
+
+
+
+    /**
+     * Opens the log and reads the changes in it so they can be replayed. If the checkpoint was taken from this log
+     * only the changes after the checkpoint are read, otherwise every change is read and the checkpoint must not be used.
+     * A record at the end of the log which was not completely written is removed, and the following changes are
+     * appended after the last complete record.
+     * @param checkpoint - The checkpoint the database was read from, null if there is no checkpoint.
+     * @return - The changes in the order they were made, an empty list if the log is new, disabled or could not be read.
+     */
+    public synchronized List<RateChange> open(RateCheckpoint checkpoint) {
+        List<RateChange> changes = new ArrayList<>();
+        if(fileName == null)
+            return changes;
+
+        try
+        {
+            channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            end = read(changes, checkpoint);
+
+            //Remove the incomplete record left by a crash so the next record is appended after the last complete one
+            if(end < size)
+            {
+                Log.warn("WARNING: Removing " + (size - end) + " bytes from the end of the rate log which were not completely written.");
+                channel.truncate(end);
+            }
+            channel.position(end);
+
+            //Write the header of a new log with the first changes
+            if(end == 0)
+            {
+                id = ThreadLocalRandom.current().nextLong();
+                DataOutputStream out = new DataOutputStream(pending);
+                out.writeInt(MAGIC);
+                out.writeLong(id);
+                end = HEADER_SIZE;
+            }
+
+            Log.debug("SUCCESS: Read " + changes.size() + " changes from the rate log " + fileName);
+        }
+        catch (IOException e)
+        {
+            Log.error("ERROR: The rate log " + fileName + " could not be opened, changes will not be saved: " + e.getMessage());
+            close();
+            changes.clear();
+            followsCheckpoint = false;
+        }
+        return changes;
+    }
+
+
+
+
+    /**
+     * Outlines if the changes read when the log was opened follow the checkpoint. If they do not, the checkpoint
+     * was taken from another log or includes changes which never reached this log, so the whole log was read.
+     * @return - TRUE if only the changes after the checkpoint were read, FALSE otherwise.
+     */
+    public synchronized boolean followsCheckpoint() {
+        return followsCheckpoint;
+    }
+
+
+
+
+    /**
+     * Gets the random id of the log, written in every checkpoint taken from the log.
+     * @return - The id of the log.
+     */
+    public synchronized long getId() {
+        return id;
+    }
+
+
+
+
+    /**
+     * Gets the position in the log after the last change appended, which is where a checkpoint taken
+     * now should start replaying from. Must be called while holding the write lock of the database.
+     * @return - The position in the log.
+     */
+    public synchronized long getPosition() {
+        return end;
+    }
+
+
+
+
+    /**
+     * Gets the sequence number of the last change appended, which can be passed to awaitDurable().
+     * @return - The sequence number of the last change.
+     */
+    public synchronized long getSequence() {
+        return appended;
+    }
+
+
+
+
+    /**
+     * Outlines if a change can be appended to the log, which is if its currency codes are short enough to fit in a record.
+     * Must be checked before the change is made, as a change which can not be logged would be lost when the service is restarted.
+     * @param change - The change.
+     * @return - TRUE if the change fits in a record, FALSE otherwise.
+     */
+    public static boolean canAppend(RateChange change) {
+        if(encodedSize(change.getFromCurrencyCode()) > MAX_CODE_SIZE)
+            return false;
+        return !change.isRateChange() || encodedSize(change.getToCurrencyCode()) <= MAX_CODE_SIZE;
+    }
+
+
+
+
+    /**
+     * Appends a change to the log, the change is not saved until awaitDurable() returns.
+     * Must be called while holding the write lock of the database so the changes are logged in the order they are made.
+     * If the change can not be encoded the log is closed, as replaying it without the change would restore the wrong rates.
+     * @param change - The change to append, which canAppend() has accepted.
+     * @return - The sequence number of the change, passed to awaitDurable().
+     */
+    public synchronized long append(RateChange change) {
+        if(channel == null)
+            return 0;
+
+        try
+        {
+            byte[] payload = encode(change);
+            CRC32 checksum = new CRC32();
+            checksum.update(payload, 0, payload.length);
+
+            DataOutputStream out = new DataOutputStream(pending);
+            out.writeInt(payload.length);
+            out.writeInt((int) checksum.getValue());
+            out.write(payload);
+            end += RECORD_HEADER_SIZE + payload.length;
+        }
+        catch (IOException e)
+        {
+            //Writing to a ByteArrayOutputStream does not throw, but a change which canAppend() did not accept is too long
+            Log.error("ERROR: The change could not be added to the rate log " + fileName + ", changes will not be saved: " + e.getMessage());
+            close();
+            return appended;
+        }
+        return ++appended;
+    }
+
+
+
+
+    /**
+     * Waits until a change and every change before it has been forced to disk.
+     * If no other request is writing to the log this request writes every pending change, otherwise it waits
+     * for the current write to finish and then writes the changes which were appended during that write.
+     * @param sequence - The sequence number returned by append().
+     */
+    public void awaitDurable(long sequence) {
+        boolean interrupted = false;
+        while(true)
+        {
+            ByteBuffer batch;
+            long batchEnd;
+            synchronized (this)
+            {
+                //Wait for the request which is currently writing to finish
+                while(flushing && durable < sequence && channel != null)
+                {
+                    try
+                    {
+                        wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                }
+                if(durable >= sequence || channel == null)
+                    break;
+
+                //Take every pending change, the changes appended while they are written are left for the next write
+                flushing = true;
+                batch = ByteBuffer.wrap(pending.toByteArray());
+                pending = new ByteArrayOutputStream();
+                batchEnd = appended;
+            }
+
+            //Write and force the changes without holding the lock so other requests can keep appending
+            boolean isSuccessful = false;
+            try
+            {
+                while(batch.hasRemaining())
+                    channel.write(batch);
+                channel.force(false);
+                isSuccessful = true;
+            }
+            catch (IOException e)
+            {
+                Log.error("ERROR: The rate log " + fileName + " could not be written, changes will not be saved: " + e.getMessage());
+            }
+
+            synchronized (this)
+            {
+                flushing = false;
+                if(isSuccessful)
+                    durable = batchEnd;
+                else
+                    close();
+                notifyAll();
+            }
+        }
+
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+
+
+
+    /**
+     * Outlines if changes are being written to the log.
+     * @return - TRUE if the log is open, FALSE if it is disabled or could not be written.
+     */
+    public synchronized boolean isOpen() {
+        return channel != null;
+    }
+
+
+
+
+    /**
+     * Reads every complete record after the checkpoint, or from the start of the log if the checkpoint was not
+     * taken from this log.
+     * @param changes - The list the changes are added to.
+     * @param checkpoint - The checkpoint the database was read from, null if there is no checkpoint.
+     * @return - The position after the last complete record, 0 if the log is empty.
+     * @throws IOException If the log could not be read or is not a rate log.
+     */
+    private long read(List<RateChange> changes, RateCheckpoint checkpoint) throws IOException {
+        followsCheckpoint = false;
+        long size = channel.size();
+        if(size < HEADER_SIZE)
+            return 0;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while(header.hasRemaining())
+        {
+            if(channel.read(header, header.position()) < 0)
+                break;
+        }
+        header.flip();
+
+        //Never replay or append to a file which is not a rate log
+        if(header.getInt() != MAGIC)
+            throw new IOException("the file is not a rate log");
+        id = header.getLong();
+
+        //Start after the checkpoint if it was taken from this log and the log reaches its position
+        long start = HEADER_SIZE;
+        if(checkpoint != null && checkpoint.getLogId() == id && checkpoint.getLogPosition() >= HEADER_SIZE && checkpoint.getLogPosition() <= size)
+        {
+            start = checkpoint.getLogPosition();
+            followsCheckpoint = true;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - start, Integer.MAX_VALUE));
+        while(buffer.hasRemaining())
+        {
+            if(channel.read(buffer, start + buffer.position()) < 0)
+                break;
+        }
+        buffer.flip();
+
+        CRC32 checksum = new CRC32();
+        while(buffer.remaining() >= RECORD_HEADER_SIZE)
+        {
+            int recordStart = buffer.position();
+            int length = buffer.getInt();
+            int expected = buffer.getInt();
+            if(length <= 0 || length > MAX_PAYLOAD_SIZE || length > buffer.remaining())
+                return start + recordStart;
+
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            checksum.reset();
+            checksum.update(payload, 0, length);
+            if((int) checksum.getValue() != expected)
+                return start + recordStart;
+
+            changes.add(decode(payload));
+        }
+        return start + buffer.position();
+    }
+
+
+
+
+    /**
+     * Encodes the payload of a change.
+     * @param change - The change to encode.
+     * @return - The encoded change.
+     * @throws IOException If the change is too long to be read back from a record.
+     */
+    private static byte[] encode(RateChange change) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(change.getType());
+        out.writeUTF(change.getFromCurrencyCode());
+        if(change.isRateChange())
+        {
+            out.writeUTF(change.getToCurrencyCode());
+            out.writeDouble(change.getRate());
+        }
+
+        //The reader treats a longer record as the end of the log, so it must never be written
+        if(bytes.size() > MAX_PAYLOAD_SIZE)
+            throw new IOException("the change is " + bytes.size() + " bytes, longer than the " + MAX_PAYLOAD_SIZE + " bytes of a record");
+        return bytes.toByteArray();
+    }
+
+
+
+
+    /**
+     * Gets the number of bytes writeUTF() encodes a string into, without the 2 byte length.
+     * @param string - The string.
+     * @return - The number of bytes.
+     */
+    private static int encodedSize(String string) {
+        int size = 0;
+        for(int i = 0; i < string.length(); i++)
+        {
+            char character = string.charAt(i);
+            if(character >= 0x0001 && character <= 0x007F)
+                size += 1;
+            else if(character <= 0x07FF)
+                size += 2;
+            else
+                size += 3;
+        }
+        return size;
+    }
+
+
+
+
+    /**
+     * Decodes the payload of a change.
+     * @param payload - The encoded change.
+     * @return - The change.
+     * @throws IOException If the payload is not a change.
+     */
+    private static RateChange decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String fromCurrencyCode = in.readUTF();
+        RateChange change = new RateChange(type, fromCurrencyCode, null, 0);
+        if(change.isRateChange())
+            change = new RateChange(type, fromCurrencyCode, in.readUTF(), in.readDouble());
+        else if(type != RateChange.ADD_CURRENCY && type != RateChange.REMOVE_CURRENCY)
+            throw new IOException("unknown change type " + type);
+        return change;
+    }
+
+
+
+
+    /**
+     * Closes the log so no more changes are written, must be called while holding the lock of the log.
+     */
+    private void close() {
+        if(channel == null)
+            return;
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            //The log is not used after it is closed
+        }
+        channel = null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+
+/**
+* This class represents an immutable snapshot of every currency and conversion rate in the database.
+* Each change made by the Admin endpoint builds the next snapshot and publishes it with a higher version,
+* so the Conversion endpoint can read a snapshot without locking and never sees a rate without its inverse.
+*
+* The currencies are stored in an array indexed by their id, which together with the rates of each
+* currency forms the rate matrix. Ids of removed currencies are left empty and reused by new currencies.
+* Currency codes are looked up in a CurrencyCodes table so any case can be used without allocating memory.
+*
+* IMPORTANT NOTE: The currencies inside a published snapshot must never be changed, a change is made
+* by copying the currency into the next snapshot and changing the copy. The only value set after a snapshot
+* is published is the cached list of formatted rates, which is the same no matter which request builds it.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class RateSnapshot {
+
+    private final long version;                     //The version of the snapshot, increased by one for every change
+    private final Currency[] currencies;            //The currencies in the snapshot indexed by id, null if the id is not used
+    private final CurrencyCodes codes;              //The ids of the currencies in the snapshot
+    private final CrossRates crossRates;            //The cross rates between currencies without a direct rate
+    private volatile String[] listedRates;          //Every formatted rate in the snapshot, built by the first listRates() request
+
+
+
+
+    /**
+     * Default constructor - Creates a snapshot of the currencies.
+     * The array must not be changed after it is passed in.
+     * @param version - The version of the snapshot.
+     * @param currencies - The currencies in the snapshot indexed by id.
+     * @param codes - The ids of the currencies in the snapshot.
+     * @param crossRates - The cross rates calculated from the currencies.
+     */
+    public RateSnapshot(long version, Currency[] currencies, CurrencyCodes codes, CrossRates crossRates) {
+        this.version = version;
+        this.currencies = currencies;
+        this.codes = codes;
+        this.crossRates = crossRates;
+    }
+
+
+
+
+    /**
+     * Gets the version of the snapshot.
+     * @return - The version of the snapshot.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+
+
+
+    /**
+     * Gets the currency with the specified code, ignoring case.
+     * @param code - The currency code.
+     * @return - The currency, null if the currency does not exist in the snapshot.
+     */
+    public Currency getCurrency(String code) {
+        int id = codes.idOf(code);
+        if(id < 0)
+            return null;
+        return currencies[id];
+    }
+
+
+
+
+    /**
+     * Gets the currency with the three letter code packed into an int, ignoring case.
+     * @param code - The three ASCII letters of the code in the low 24 bits.
+     * @return - The currency, null if the currency does not exist in the snapshot.
+     */
+    public Currency getCurrency(int code) {
+        int id = codes.idOf(code);
+        if(id < 0)
+            return null;
+        return currencies[id];
+    }
+
+
+
+
+    /**
+     * Gets all the currencies in the snapshot.
+     * @return - A list of the currencies ordered by id.
+     */
+    public ArrayList<Currency> getCurrencies() {
+        ArrayList<Currency> list = new ArrayList<>(codes.size());
+        for(Currency currency : currencies)
+        {
+            if(currency != null)
+                list.add(currency);
+        }
+        return list;
+    }
+
+
+
+
+    /**
+     * Gets the currencies of the snapshot indexed by id, used to look up the code of a rate.
+     * The array must not be changed.
+     * @return - The currencies indexed by id, null if the id is not used.
+     */
+    public Currency[] getCurrencyMatrix() {
+        return currencies;
+    }
+
+
+
+
+    /**
+     * Outlines if the snapshot contains the currency, ignoring case.
+     * @param code - The currency code.
+     * @return - TRUE if the currency exists in the snapshot, FALSE otherwise.
+     */
+    public boolean containsCurrency(String code) {
+        return codes.idOf(code) >= 0;
+    }
+
+
+
+
+    /**
+     * Outlines if the snapshot does not contain any currencies.
+     * @return - TRUE if the snapshot is empty, FALSE otherwise.
+     */
+    public boolean isEmpty() {
+        return codes.size() == 0;
+    }
+
+
+
+
+    /**
+     * Copies the currencies so the next snapshot can be built.
+     * @return - A new array containing the same currencies as the snapshot indexed by id.
+     */
+    public Currency[] copyCurrencies() {
+        return currencies.clone();
+    }
+
+
+
+
+    /**
+     * Gets the table of currency codes, used to build the table of the next snapshot.
+     * @return - The ids of the currencies in the snapshot.
+     */
+    public CurrencyCodes getCodes() {
+        return codes;
+    }
+
+
+
+
+    /**
+     * Gets the cross rates of the snapshot, used when there is no direct rate between two currencies
+     * and to build the cross rates of the next snapshot.
+     * @return - The cross rates between the currencies in the snapshot.
+     */
+    public CrossRates getCrossRates() {
+        return crossRates;
+    }
+
+
+
+
+    /**
+     * Gets the formatted list of every rate in the snapshot if it has already been built.
+     * The array must not be changed.
+     * @return - The formatted rates, null if the rates have not been listed for this snapshot.
+     */
+    public String[] getListedRates() {
+        return listedRates;
+    }
+
+
+
+
+    /**
+     * Caches the formatted list of every rate so it is shared by the following listRates() requests.
+     * A new snapshot is published for every change, so the cached list is never out of date.
+     * @param rates - The formatted rates of the snapshot, which must not be changed.
+     */
+    public void setListedRates(String[] rates) {
+        listedRates = rates;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,190 @@
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+* This class is a bounded, thread safe cache of session keys which have recently been checked
+* by the Authorisation endpoint of the Identity Service. Authorised keys are remembered for a
+* time to live and rejected keys are remembered for a shorter time to live so repeated admin
+* requests with the same key do not each require a remote call.
+*
+* When the cache is full the least recently used session key is evicted.
+* Session keys are invalidated by the Identity Service when a user logs out.
+*
+* A request may still be waiting for the Identity Service to authorise a key when the key is invalidated, so every
+* invalidation is numbered by a generation. A request reads the generation when it starts authorising the key, and its
+* result is not stored if the key was invalidated after that, which would otherwise cache a logged out key as authorised.
+* Only keys which are cached or being authorised are given a generation, so invalidating any other key changes nothing.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class SessionCache {
+
+    private final int maxSize;                          //The maximum number of session keys stored in the cache
+    private final long ttlMillis;                       //How long an authorised session key is remembered
+    private final long negativeTtlMillis;               //How long a rejected session key is remembered
+    private final LinkedHashMap<String, CachedResult> entries; //The cached session keys in least recently used order <SessionKey, CachedResult>
+    private final LinkedHashMap<String, Long> invalidated;     //The recently invalidated session keys in the order they were invalidated <SessionKey, Generation>
+    private final HashMap<String, Integer> authorising;        //The session keys being authorised by the Identity Service <SessionKey, Requests>
+    private long generation;                            //The number of session keys which have been invalidated
+    private long forgottenGeneration;                   //The latest generation which was dropped from the invalidated keys
+
+
+
+
+    /**
+     * Default constructor - Creates an empty cache.
+     * @param maxSize - The maximum number of session keys stored in the cache.
+     * @param ttlMillis - How long an authorised session key is remembered in milliseconds.
+     * @param negativeTtlMillis - How long a rejected session key is remembered in milliseconds.
+     */
+    public SessionCache(int maxSize, long ttlMillis, long negativeTtlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+
+        //Access ordered so the eldest entry is always the least recently used
+        entries = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > SessionCache.this.maxSize;
+            }
+        };
+
+        //Remember the generation of a dropped key, a result started before it can not be stored safely
+        invalidated = new LinkedHashMap<String, Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if(size() <= SessionCache.this.maxSize)
+                    return false;
+                forgottenGeneration = eldest.getValue();
+                return true;
+            }
+        };
+        authorising = new HashMap<>();
+    }
+
+
+
+
+    /**
+     * Records that a request is authorising the session key with the Identity Service, so the key can be
+     * invalidated while it is not cached. Must be followed by finishAuthorising() once the request is done.
+     * @param sessionKey - The session key being authorised.
+     * @return - The current invalidation generation, which is passed to put() with the result.
+     */
+    public synchronized long startAuthorising(String sessionKey) {
+        Integer requests = authorising.get(sessionKey);
+        authorising.put(sessionKey, requests == null ? 1 : requests + 1);
+        return generation;
+    }
+
+
+
+
+    /**
+     * Records that a request has finished authorising the session key, after its result has been stored.
+     * @param sessionKey - The session key which was authorised.
+     */
+    public synchronized void finishAuthorising(String sessionKey) {
+        Integer requests = authorising.get(sessionKey);
+        if(requests == null || requests <= 1)
+            authorising.remove(sessionKey);
+        else
+            authorising.put(sessionKey, requests - 1);
+    }
+
+
+
+
+    /**
+     * Outlines if the session key is cached or being authorised, which are the only keys invalidate() changes.
+     * @param sessionKey - The session key.
+     * @return - TRUE if the session key is cached or being authorised, FALSE otherwise.
+     */
+    public synchronized boolean contains(String sessionKey) {
+        return entries.containsKey(sessionKey) || authorising.containsKey(sessionKey);
+    }
+
+
+
+
+    /**
+     * Looks up the result of the last authorisation of the session key.
+     * @param sessionKey - The session key to look up.
+     * @return - TRUE if the key was recently authorised, FALSE if the key was recently rejected,
+     *           null if the key is not in the cache or has expired.
+     */
+    public synchronized Boolean lookup(String sessionKey) {
+        CachedResult entry = entries.get(sessionKey);
+        if(entry == null)
+            return null;
+
+        //Remove the entry if it has expired so the key is checked by the Identity Service again
+        if(entry.expiresAt <= System.currentTimeMillis())
+        {
+            entries.remove(sessionKey);
+            return null;
+        }
+        return entry.authorised;
+    }
+
+
+
+
+    /**
+     * Stores the result of authorising the session key.
+     * An authorised key is not remembered for longer than the Identity Service said it remains valid for.
+     * The result is not stored if the session key was invalidated after the generation was read.
+     * @param sessionKey - The session key which was authorised.
+     * @param lifetimeMillis - The time the Identity Service said the key remains valid for, 0 if it rejected the key.
+     * @param since - The generation returned by startAuthorising().
+     */
+    public synchronized void put(String sessionKey, long lifetimeMillis, long since) {
+        Long invalidatedAt = invalidated.get(sessionKey);
+        if((invalidatedAt != null && invalidatedAt > since) || forgottenGeneration > since)
+            return;
+
+        boolean authorised = lifetimeMillis > 0;
+        long ttl = authorised ? Math.min(ttlMillis, lifetimeMillis) : negativeTtlMillis;
+        entries.put(sessionKey, new CachedResult(authorised, System.currentTimeMillis() + ttl));
+    }
+
+
+
+
+    /**
+     * Removes the session key from the cache, used when the session key has been revoked.
+     * The key is recorded with a new generation so a result which is still being authorised is not stored.
+     * A key which is neither cached nor being authorised is ignored, so it does not stop other results being stored.
+     * @param sessionKey - The session key to remove.
+     * @return - TRUE if the session key was in the cache, FALSE otherwise.
+     */
+    public synchronized boolean invalidate(String sessionKey) {
+        boolean isCached = entries.remove(sessionKey) != null;
+        if(!isCached && !authorising.containsKey(sessionKey))
+            return false;
+
+        generation++;
+        invalidated.remove(sessionKey);
+        invalidated.put(sessionKey, generation);
+        return isCached;
+    }
+
+
+
+
+    /**
+     * A cached authorisation result and the time it expires.
+     */
+    private static class CachedResult {
+        private final boolean authorised;   //TRUE if the session key was authorised
+        private final long expiresAt;       //The time in milliseconds the result expires
+
+        private CachedResult(boolean authorised, long expiresAt) {
+            this.authorised = authorised;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
\ No newline at end of file
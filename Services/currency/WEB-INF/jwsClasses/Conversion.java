@@ -7,35 +7,116 @@ public class Conversion {
 
     private static CurrencyDatabaseInterface database = new CurrencyDatabaseInterface();
 
+    //The metrics of each operation
+    private static final OperationMetrics listRatesMetrics = Metrics.operation("Conversion.listRates");
+    private static final OperationMetrics rateOfMetrics = Metrics.operation("Conversion.rateOf");
+    private static final OperationMetrics convertMetrics = Metrics.operation("Conversion.convert");
+    private static final OperationMetrics convertBatchMetrics = Metrics.operation("Conversion.convertBatch");
+    private static final OperationMetrics getRateVersionMetrics = Metrics.operation("Conversion.getRateVersion");
+    private static final OperationMetrics getRateTableMetrics = Metrics.operation("Conversion.getRateTable");
+    private static final OperationMetrics listRatesIfChangedMetrics = Metrics.operation("Conversion.listRatesIfChanged");
+
     /**
      * Gets a list of all rates inside the database
      * @return - A String[] containing the list of rates, an empty array if the database does not contain any currencies or rates.
      */
     public String[] listRates() {
-        System.out.println("\nConversion Endpoint - Executing listRates()");
-        return database.listRates();
+        Log.debug("\nConversion Endpoint - Executing listRates()");
+        try(OperationMetrics.Call call = listRatesMetrics.start())
+        {
+            return call.returns(database.listRates());
+        }
+    }
+
+    /**
+     * Gets the rates which changed after a version of the rates, so an unchanged list is not sent again.
+     * The first element is the current version of the rates, and if the list changed it is followed by "DELTA" and
+     * the changes in the format of listRates() (a removed rate ends in :REMOVED and <code>-*:REMOVED removes every
+     * rate of a currency), or by "FULL" and the whole list when the changes are no longer kept.
+     * @param sinceVersion - The version returned by the last call, or -1 for the whole list
+     * @return - The current version, followed by the changes if any
+     */
+    public String[] listRatesIfChanged(long sinceVersion) {
+        Log.debug("\nConversion Endpoint - Executing listRatesIfChanged()");
+        try(OperationMetrics.Call call = listRatesIfChangedMetrics.start())
+        {
+            return call.returns(database.listRatesIfChanged(sinceVersion));
+        }
     }
 
     /**
      * Gets the conversion rate between the passed in currency codes
+     * If there is no direct rate the rate is derived through other currencies, e.g. USD to NZD through AUD.
      * @param fromCurrencyCode - The currency converting from
      * @param toCurrencyCode - The currency converting to
      * @return - The conversion rate between the two currencies, -1 if either codes does not exist
      */
     public double rateOf(String fromCurrencyCode, String toCurrencyCode) {
-        System.out.println("\nConversion Endpoint - Executing rateOf()");
-        return database.rateOf(fromCurrencyCode, toCurrencyCode);
+        Log.debug("\nConversion Endpoint - Executing rateOf()");
+        try(OperationMetrics.Call call = rateOfMetrics.start())
+        {
+            double result = database.rateOf(fromCurrencyCode, toCurrencyCode);
+            return call.returns(result, result < 0);
+        }
     }
 
     /**
      * Converts the amount passed in from one currency to another including a 1% conversion fee.
+     * If there is no direct rate the rate is derived through other currencies, e.g. USD to NZD through AUD.
      * @param fromCurrencyCode - The currency converting from
      * @param toCurrencyCode - The currency converting to
      * @param amount - The amount being converted
      * @return - The converted amount or negative value if the amount is invalid or the codes does not exist
      */
     public double convert(String fromCurrencyCode, String toCurrencyCode, double amount) {
-        System.out.println("\nConversion Endpoint - Executing convert()");
-        return database.convert(fromCurrencyCode, toCurrencyCode, amount);
+        Log.debug("\nConversion Endpoint - Executing convert()");
+        try(OperationMetrics.Call call = convertMetrics.start())
+        {
+            double result = database.convert(fromCurrencyCode, toCurrencyCode, amount);
+            return call.returns(result, result < 0);
+        }
+    }
+
+    /**
+     * Converts a batch of amounts including a 1% conversion fee in a single request.
+     * Every amount is converted with the same rates, even if the rates are changed during the request.
+     * @param fromCurrencyCodes - The currencies converting from, either one for each amount or a single code for every amount
+     * @param toCurrencyCodes - The currencies converting to, either one for each amount or a single code for every amount
+     * @param amounts - The amounts being converted
+     * @return - The converted amount of each amount, or the error code -1 invalid amount, -2 fromCurrencyCode does not exist,
+     *           -3 toCurrencyCode does not exist, -4 no rate between the codes. An empty array if the lengths do not match.
+     */
+    public double[] convertBatch(String[] fromCurrencyCodes, String[] toCurrencyCodes, double[] amounts) {
+        Log.debug("\nConversion Endpoint - Executing convertBatch()");
+        try(OperationMetrics.Call call = convertBatchMetrics.start())
+        {
+            double[] result = database.convertBatch(fromCurrencyCodes, toCurrencyCodes, amounts);
+            return call.returns(result, result == null || result.length == 0);
+        }
+    }
+
+    /**
+     * Gets the version of the rates, which increases every time a currency or rate is changed.
+     * A client with its own copy of the rates only needs to fetch them again when the version has changed.
+     * @return - The current version of the rates.
+     */
+    public long getRateVersion() {
+        try(OperationMetrics.Call call = getRateVersionMetrics.start())
+        {
+            return call.returns(database.getRateVersion());
+        }
+    }
+
+    /**
+     * Gets every direct rate without rounding and the version they belong to, so a client can convert with its own
+     * copy of the rates and get the same results as convert().
+     * @return - The version as the first element, then each rate in both directions as <fromCode>-<toCode>:<rate>
+     */
+    public String[] getRateTable() {
+        Log.debug("\nConversion Endpoint - Executing getRateTable()");
+        try(OperationMetrics.Call call = getRateTableMetrics.start())
+        {
+            return call.returns(database.getRateTable());
+        }
     }
 }
\ No newline at end of file
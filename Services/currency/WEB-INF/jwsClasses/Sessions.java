@@ -0,0 +1,30 @@
+/**
+* The Sessions Endpoint provided by the Currency Service.
+* Used by the Identity Service to tell the Currency Service when a session key has been revoked.
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class Sessions {
+
+    private static CurrencyDatabaseInterface database = new CurrencyDatabaseInterface();
+
+    //The metrics of each operation
+    private static final OperationMetrics invalidateMetrics = Metrics.operation("Sessions.invalidate");
+
+    /**
+     * Invalidates a session key which has been revoked by the Identity Service
+     * so it can no longer be used for admin requests.
+     * When session tokens are enabled the revocation must be signed by the Identity Service with the shared secret.
+     * @param sessionKey - The revoked session key.
+     * @param signature - The signature of the revocation, null if session tokens are not enabled.
+     * @return - TRUE if the session key was cached by the service, FALSE otherwise.
+     */
+    public boolean invalidate(String sessionKey, String signature) {
+        Log.debug("\nSessions Endpoint - Executing invalidate()");
+        try(OperationMetrics.Call call = invalidateMetrics.start())
+        {
+            //FALSE only means the key was not cached, so only an exception is counted as an error
+            return call.returns(database.invalidateSession(sessionKey, signature));
+        }
+    }
+}
\ No newline at end of file
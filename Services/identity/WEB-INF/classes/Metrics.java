@@ -0,0 +1,115 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+* This class is the registry of the OperationMetrics of a service. Each endpoint gets the metrics of its
+* operations once, when the endpoint class is loaded, and records every call into them.
+*
+* The metrics are exposed in two ways:
+* - JMX, as the MBean "SENG3400:type=Operation,name=<operation>" so they can be read with jconsole or VisualVM.
+* - A plain text scrape in the Prometheus text format, served by the MetricsServlet at /metrics.
+*
+* This class is shared by the Currency and Identity services, the same class is copied into both. The only
+* difference is that the Currency Service logs through its Log class, which the Identity Service does not have.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class Metrics {
+
+    //CONSTANTS
+    private static final String JMX_DOMAIN = "SENG3400";
+    private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    private static final Map<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();  //The metrics of each operation <Name, Metrics>, ordered by name
+
+
+
+
+    /**
+     * Gets the metrics of an operation, creating and registering them the first time.
+     * @param name - The name of the operation, <Endpoint>.<method>
+     * @return - The metrics of the operation.
+     */
+    public static OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.get(name);
+        if(metrics != null)
+            return metrics;
+
+        synchronized (operations)
+        {
+            metrics = operations.get(name);
+            if(metrics == null)
+            {
+                metrics = new OperationMetrics(name);
+                register(metrics);
+                operations.put(name, metrics);
+            }
+            return metrics;
+        }
+    }
+
+
+
+
+    /**
+     * Writes the metrics of every operation in the Prometheus text format.
+     * The latencies are written as a summary with the 50th, 99th and 99.9th percentiles in seconds.
+     * @return - The metrics as plain text.
+     */
+    public static String scrape() {
+        StringBuilder text = new StringBuilder();
+
+        text.append("# HELP jws_calls_total The number of calls of each JWS operation.\n");
+        text.append("# TYPE jws_calls_total counter\n");
+        for(OperationMetrics metrics : operations.values())
+            text.append("jws_calls_total{operation=\"").append(metrics.getName()).append("\"} ").append(metrics.getCalls()).append('\n');
+
+        text.append("# HELP jws_errors_total The number of calls which failed or returned an error value.\n");
+        text.append("# TYPE jws_errors_total counter\n");
+        for(OperationMetrics metrics : operations.values())
+            text.append("jws_errors_total{operation=\"").append(metrics.getName()).append("\"} ").append(metrics.getErrors()).append('\n');
+
+        text.append("# HELP jws_latency_seconds The latency of each JWS operation.\n");
+        text.append("# TYPE jws_latency_seconds summary\n");
+        for(OperationMetrics metrics : operations.values())
+        {
+            String label = "operation=\"" + metrics.getName() + "\"";
+            for(double quantile : QUANTILES)
+            {
+                text.append("jws_latency_seconds{").append(label).append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(metrics.getPercentileNanos(quantile * 100) / NANOS_PER_SECOND).append('\n');
+            }
+            text.append("jws_latency_seconds_sum{").append(label).append("} ").append(metrics.getTotalNanos() / NANOS_PER_SECOND).append('\n');
+            text.append("jws_latency_seconds_count{").append(label).append("} ").append(metrics.getCalls()).append('\n');
+        }
+        return text.toString();
+    }
+
+
+
+
+    /**
+     * Registers the metrics of an operation with JMX, replacing the metrics left by an earlier deployment of the service.
+     * The metrics are still recorded and scraped if they can not be registered.
+     * @param metrics - The metrics to register.
+     */
+    private static void register(OperationMetrics metrics) {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + ObjectName.quote(metrics.getName()));
+            if(server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+            server.registerMBean(metrics, objectName);
+        }
+        catch (Exception e)
+        {
+            System.out.println("ERROR: Could not register the metrics of " + metrics.getName() + " with JMX: " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
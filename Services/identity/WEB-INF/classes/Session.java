@@ -0,0 +1,111 @@
+/**
+* This class represents a logged in session, the session key given to a user by the Login endpoint.
+*
+* A session expires when it reaches its time to live, or when it has not been used for the idle timeout.
+* The time the session was last used is updated by every authorisation without any locking, and the
+* SessionStore only checks it when the TimingWheel reaches the deadline the session was scheduled for.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class Session {
+
+    private final String key;               //The session key
+    private final String username;          //The user the session belongs to
+    private final long createdAt;           //The time the user logged in, in milliseconds since the epoch
+    private volatile long lastUsedAt;       //The time the session key was last authorised, in milliseconds since the epoch
+
+    //The position of the session in the TimingWheel, only used by the wheel while holding its lock
+    int level = -1;                         //The level of the wheel the session is in, -1 if the session is not scheduled
+    int slot;                               //The slot of the level the session is in
+    long tick;                              //The tick the session is scheduled to be checked at
+    Session previous;                       //The previous session in the slot
+    Session next;                           //The next session in the slot
+
+
+
+
+    /**
+     * Default constructor - Creates a session.
+     * @param key - The session key.
+     * @param username - The user the session belongs to.
+     * @param createdAt - The time the user logged in.
+     * @param lastUsedAt - The time the session key was last used.
+     */
+    public Session(String key, String username, long createdAt, long lastUsedAt) {
+        this.key = key;
+        this.username = username;
+        this.createdAt = createdAt;
+        this.lastUsedAt = lastUsedAt;
+    }
+
+
+
+
+    /**
+     * Gets the session key.
+     * @return - The session key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+
+
+
+    /**
+     * Gets the user the session belongs to.
+     * @return - The username.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+
+
+
+    /**
+     * Gets the time the user logged in.
+     * @return - The time in milliseconds since the epoch.
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+
+
+
+    /**
+     * Gets the time the session key was last used.
+     * @return - The time in milliseconds since the epoch.
+     */
+    public long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+
+
+
+    /**
+     * Records that the session key has been used, which delays the idle timeout.
+     * The time is only written once a second so concurrent authorisations do not all write the same field.
+     * @param now - The current time in milliseconds since the epoch.
+     */
+    public void touch(long now) {
+        if(now - lastUsedAt >= 1000)
+            lastUsedAt = now;
+    }
+
+
+
+
+    /**
+     * Gets the time the session expires if it is not used again.
+     * @param timeToLive - The time a session lasts after the user logs in, in milliseconds.
+     * @param idleTimeout - The time a session lasts after it was last used, in milliseconds.
+     * @return - The earlier of the two deadlines, in milliseconds since the epoch.
+     */
+    public long getDeadline(long timeToLive, long idleTimeout) {
+        return Math.min(createdAt + timeToLive, lastUsedAt + idleTimeout);
+    }
+}
\ No newline at end of file
@@ -1,8 +1,6 @@
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.Random;
 
 /**
 * This class represents a "dummy" database for user accounts and active sessions.
@@ -10,9 +8,8 @@ import java.util.Random;
 * contains the default username of "hayden" and "josh". 
 *
 * This class also stores session information, so when a user logs in they are assigned a sesson key.
-*
-* IMPORTANT NOTE: The session information is not persistent, so when the server shuts down all session
-* information will be removed.
+* The sessions are kept in a SessionStore, which expires sessions which are too old or have not been used
+* and can save the sessions to a file so they are kept when the server is restarted.
 *
 * @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
 * @since   18/10/2018
@@ -21,15 +18,12 @@ public class UserDatabase {
 
     //CONSTANTS
     private static final String INVALID_REQUEST = "INVALID";
-    private static final String ALPHA_NUM = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-    private static final Random RANDOM = new Random();
-    private static final int KEY_LENGTH = 5;
 
     //The list of authenticated users, will only contains the default users of Hayden and Josh - <Username, Password>
     private static HashMap<String, String> users = new HashMap<>();
 
-    //The list of currently active sessions / logged in users - <SessionKey, Username>
-    private static HashMap<String, String> sessions = new HashMap<>();
+    //The currently active sessions / logged in users - <SessionKey, Username>
+    private static SessionStore sessions = new SessionStore();
 
 
     /**
@@ -49,8 +43,8 @@ public class UserDatabase {
      * 
      * @param username - The username logging in.
      * @param password - The password for the user.
-     * @return - A random 5 character string which is the session key. If the
-     *         username or password is incorrect "INVALID" is returned.
+     * @return - A random alpha numeric string which is the session key, or a signed session token
+     *         if token mode is enabled. If the username or password is incorrect "INVALID" is returned.
      */
     public String login(String username, String password) {
         
@@ -77,12 +71,13 @@ public class UserDatabase {
 
 
     /**
-     * Generates a unique 5 character session key for the username passed in.
+     * Generates a unique random session key for the username passed in.
+     * If token mode is enabled a signed session token is generated instead.
      * Will replace any existing session key if the username passed in already has
      * a session key assigned to them.
      * 
      * @param username - The username logging in and being given a session key.
-     * @return - A random 5 character alpha numeric session key.
+     * @return - A random alpha numeric session key, or a signed session token.
      */
     private String generateNewSessionKey(String username) {
         
@@ -92,36 +87,22 @@ public class UserDatabase {
         boolean isComplete = false;
         while(!isComplete)
         {
-            //Generate the key
-            key = "";
-            for(int i = 0; i < KEY_LENGTH; i++)
-                key += ALPHA_NUM.charAt(RANDOM.nextInt(ALPHA_NUM.length()));
-
-            //Confirm the key is unique, if not unique generate a new key
-            if(sessions.containsKey(key))
-                continue;
-
-            //Check to see if the user is already logged in, if so overwrite the session key
-            if(sessions.containsValue(username)) 
-            {
-                //Find the corresponding key matching the username value and remove
-                for (Map.Entry<String, String> entry : sessions.entrySet())
-                {
-                    if(entry.getValue().equals(username))
-                    {
-                        sessions.remove(entry.getKey());
-                        break;
-                    }
-                }
-                //Replace the old session key with the new session key
-                sessions.put(key, username);
-            }
-            
-            //Otherwise, add the session key to the map
+            //Generate the key, a signed session token is used instead if token mode is enabled
+            if(SessionToken.isEnabled())
+                key = SessionToken.issue(username);
             else
-                sessions.put(key, username);
+                key = SessionKeyGenerator.next();
 
+            //Add the session key, replacing the old session key if the user is already logged in.
+            //If the key is not unique generate a new key
+            String oldKey = sessions.add(key, username);
+            if(oldKey == null)
+                continue;
             isComplete = true;
+
+            //Tell the Currency Service the old session key was revoked
+            if(!oldKey.isEmpty())
+                SessionRevocationNotifier.revoked(oldKey);
         }
         System.out.println("SUCCESS: " + username + " successfully logged in. Session key: " + key);
         return key;
@@ -139,10 +120,14 @@ public class UserDatabase {
      */
     public boolean logout(String key) {
 
-        //If the key exists then invalidate / remove the key from the Map
-        if(sessions.containsKey(key))
+        //If the key exists then invalidate / remove the key from the store
+        String username = sessions.remove(key);
+        if(username != null)
         {
-            System.out.println("SUCCESS: Successfully logged out " + sessions.remove(key));
+            System.out.println("SUCCESS: Successfully logged out " + username);
+
+            //Tell the Currency Service so the revoked key is removed from its session cache
+            SessionRevocationNotifier.revoked(key);
             return true;
         }
 
@@ -163,13 +148,99 @@ public class UserDatabase {
      * @return - TRUE if the session key is valid, FALSE otherwise.
      */
     public boolean authorise(String key) {
-        if(sessions.containsKey(key))
+
+        //Signed session tokens must also be correctly signed and not expired
+        if(SessionToken.isToken(key) && !SessionToken.verify(key))
+        {
+            System.out.println("ERROR: The user is not authorised, session token is invalid or has expired.");
+            return false;
+        }
+
+        if(sessions.getUsername(key) != null)
         {
             System.out.println("SUCCESS: User is authorised.");
             return true;
         }
 
-        System.out.println("ERROR: The user is not authorised, session key does not exist.");
+        System.out.println("ERROR: The user is not authorised, session key does not exist or has expired.");
         return false;
     }
+
+
+
+
+
+    /**
+     * Authorises many session keys at once.
+     * 
+     * @param keys - The session keys.
+     * @return - TRUE for each session key which is valid, FALSE otherwise. An empty array if keys is null.
+     */
+    public boolean[] authoriseBatch(String[] keys) {
+        if(keys == null)
+            return new boolean[0];
+
+        boolean[] authorised = new boolean[keys.length];
+        int count = 0;
+        for(int i = 0; i < keys.length; i++)
+        {
+            authorised[i] = isAuthorised(keys[i]);
+            if(authorised[i])
+                count++;
+        }
+        System.out.println("Authorised " + count + " of " + keys.length + " session keys.");
+        return authorised;
+    }
+
+
+
+
+
+    /**
+     * Gets the time each session key remains valid for if it is not used again, which also authorises the keys.
+     * A session key stops being valid at the earliest of the time to live of its session, the idle timeout of its
+     * session and, for a signed session token, the time the token expires.
+     * 
+     * @param keys - The session keys.
+     * @return - The time in milliseconds each session key remains valid for, 0 if the session key is not valid.
+     *           An empty array if keys is null.
+     */
+    public long[] remainingLifetimes(String[] keys) {
+        if(keys == null)
+            return new long[0];
+
+        long now = System.currentTimeMillis();
+        long[] lifetimes = new long[keys.length];
+        int count = 0;
+        for(int i = 0; i < keys.length; i++)
+        {
+            String key = keys[i];
+            if(SessionToken.isToken(key) && !SessionToken.verify(key))
+                continue;
+
+            long expiry = sessions.getExpiry(key);
+            if(SessionToken.isToken(key))
+                expiry = Math.min(expiry, SessionToken.expiresAt(key));
+            lifetimes[i] = Math.max(0, expiry - now);
+            if(lifetimes[i] > 0)
+                count++;
+        }
+        System.out.println("Authorised " + count + " of " + keys.length + " session keys.");
+        return lifetimes;
+    }
+
+
+
+
+
+    /**
+     * Outlines if a session key is valid without logging the result, used to authorise a batch of keys.
+     * @param key - The session key.
+     * @return - TRUE if the session key is valid, FALSE otherwise.
+     */
+    private boolean isAuthorised(String key) {
+        if(SessionToken.isToken(key) && !SessionToken.verify(key))
+            return false;
+        return sessions.getUsername(key) != null;
+    }
 }
\ No newline at end of file
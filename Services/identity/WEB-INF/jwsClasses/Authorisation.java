@@ -7,6 +7,11 @@ public class Authorisation {
 
     private static UserDatabase database = new UserDatabase();
 
+    //The metrics of each operation
+    private static final OperationMetrics authoriseMetrics = Metrics.operation("Authorisation.authorise");
+    private static final OperationMetrics authoriseBatchMetrics = Metrics.operation("Authorisation.authoriseBatch");
+    private static final OperationMetrics remainingLifetimesMetrics = Metrics.operation("Authorisation.remainingLifetimes");
+
     /**
      * The endpoint which authorises a users session key to determine if
      * they are actually logged into the system.
@@ -16,6 +21,40 @@ public class Authorisation {
      */
     public boolean authorise(String key) {
         System.out.println("Authorisation Endpoint - Executing authorise()");
-        return database.authorise(key);
+        try(OperationMetrics.Call call = authoriseMetrics.start())
+        {
+            boolean result = database.authorise(key);
+            return call.returns(result, !result);
+        }
+    }
+
+    /**
+     * The endpoint which authorises many session keys in one call, so a service validating a
+     * burst of requests makes a single round trip.
+     * 
+     * @param keys - The session keys.
+     * @return - TRUE for each session key which is valid, FALSE otherwise.
+     */
+    public boolean[] authoriseBatch(String[] keys) {
+        System.out.println("Authorisation Endpoint - Executing authoriseBatch()");
+        try(OperationMetrics.Call call = authoriseBatchMetrics.start())
+        {
+            return call.returns(database.authoriseBatch(keys));
+        }
+    }
+
+    /**
+     * The endpoint which authorises many session keys in one call and gets the time each key
+     * remains valid for, so the caller can remember the result until the session expires.
+     * 
+     * @param keys - The session keys.
+     * @return - The time in milliseconds each session key remains valid for if it is not used again, 0 if the key is not valid.
+     */
+    public long[] remainingLifetimes(String[] keys) {
+        System.out.println("Authorisation Endpoint - Executing remainingLifetimes()");
+        try(OperationMetrics.Call call = remainingLifetimesMetrics.start())
+        {
+            return call.returns(database.remainingLifetimes(keys));
+        }
     }
 }
\ No newline at end of file
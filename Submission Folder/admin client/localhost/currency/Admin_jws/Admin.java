@@ -16,4 +16,5 @@ public interface Admin extends java.rmi.Remote {
     public java.lang.String[] listCurrencies(java.lang.String sessionKey) throws java.rmi.RemoteException;
     public boolean addRate(java.lang.String sessionKey, java.lang.String fromCurrencyCode, java.lang.String toCurrencyCode, double conversionRate) throws java.rmi.RemoteException;
     public boolean updateRate(java.lang.String sessionKey, java.lang.String fromCurrencyCode, java.lang.String toCurrencyCode, double rate) throws java.rmi.RemoteException;
+    public java.lang.String[] conversionsForIfChanged(java.lang.String sessionKey, java.lang.String currencyCode, long sinceVersion) throws java.rmi.RemoteException;
 }
@@ -0,0 +1,252 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+* This class is a client for the binary conversion server of the Currency Service, for callers which send too many
+* conversions for SOAP. A single connection can be shared by many threads, and the async methods let a thread send
+* many requests without waiting for each response. The server must be started with the "currency.binary.port"
+* system property.
+*
+* The results use the same values as the Conversion endpoint, the converted amount or rate if the request succeeded,
+* otherwise a negative error code:
+* -1 invalid amount, -2 unknown fromCode, -3 unknown toCode, -4 no rate between the currencies.
+*
+* Usage:
+*   BinaryConversionClient client = new BinaryConversionClient("localhost", 9400);
+*   double amount = client.convert("AUD", "USD", 100);
+*   CompletableFuture<Double> rate = client.rateOfAsync("AUD", "USD");
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class BinaryConversionClient implements AutoCloseable {
+
+    //CONSTANTS - These must match BinaryConversionServer
+    private static final int CONVERT = 1;
+    private static final int RATE_OF = 2;
+
+    private final Socket socket;                        //The connection to the server
+    private final DataOutputStream output;              //The requests are written here, guarded by itself
+    private final DataInputStream input;                //The responses are read here by the reader thread
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, CompletableFuture<Double>> pending = new ConcurrentHashMap<>();   //The requests waiting for a response <RequestId, Result>
+    private volatile IOException failure;               //Why the connection was lost, null while it is open
+
+
+
+
+    /**
+     * Default constructor - Connects to the server and starts the thread which reads the responses.
+     * @param host - The host of the Currency Service.
+     * @param port - The port of the binary conversion server.
+     * @throws IOException If the server could not be reached.
+     */
+    public BinaryConversionClient(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 8192));
+        input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 8192));
+
+        Thread reader = new Thread(new Runnable() {
+            public void run() {
+                readResponses();
+            }
+        }, "binary-conversion-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+
+
+
+    /**
+     * Converts an amount including the 1% conversion fee and waits for the result.
+     * @param fromCode - The currency code to convert from.
+     * @param toCode - The currency code to convert to.
+     * @param amount - The amount to convert.
+     * @return - The converted amount, or a negative error code.
+     * @throws IOException If the connection to the server was lost.
+     */
+    public double convert(String fromCode, String toCode, double amount) throws IOException {
+        return await(convertAsync(fromCode, toCode, amount));
+    }
+
+
+
+
+    /**
+     * Gets the conversion rate between two currencies and waits for the result.
+     * @param fromCode - The currency code to convert from.
+     * @param toCode - The currency code to convert to.
+     * @return - The rate, or a negative error code.
+     * @throws IOException If the connection to the server was lost.
+     */
+    public double rateOf(String fromCode, String toCode) throws IOException {
+        return await(rateOfAsync(fromCode, toCode));
+    }
+
+
+
+
+    /**
+     * Sends a conversion without waiting for the result.
+     * @param fromCode - The currency code to convert from.
+     * @param toCode - The currency code to convert to.
+     * @param amount - The amount to convert.
+     * @return - Completed with the converted amount or a negative error code when the response arrives.
+     * @throws IOException If the connection to the server was lost.
+     */
+    public CompletableFuture<Double> convertAsync(String fromCode, String toCode, double amount) throws IOException {
+        return send(CONVERT, fromCode, toCode, amount);
+    }
+
+
+
+
+    /**
+     * Sends a request for a conversion rate without waiting for the result.
+     * @param fromCode - The currency code to convert from.
+     * @param toCode - The currency code to convert to.
+     * @return - Completed with the rate or a negative error code when the response arrives.
+     * @throws IOException If the connection to the server was lost.
+     */
+    public CompletableFuture<Double> rateOfAsync(String fromCode, String toCode) throws IOException {
+        return send(RATE_OF, fromCode, toCode, 0);
+    }
+
+
+
+
+    /**
+     * Closes the connection, requests still waiting for a response fail.
+     */
+    public void close() throws IOException {
+        socket.close();
+    }
+
+
+
+
+    /**
+     * Writes a request to the server.
+     * @param operation - The operation of the request.
+     * @param fromCode - The currency code to convert from.
+     * @param toCode - The currency code to convert to.
+     * @param amount - The amount to convert, ignored by rateOf.
+     * @return - Completed when the response arrives.
+     * @throws IOException If the connection to the server was lost.
+     */
+    private CompletableFuture<Double> send(int operation, String fromCode, String toCode, double amount) throws IOException {
+        if(failure != null)
+            throw failure;
+
+        int requestId = nextRequestId.incrementAndGet();
+        CompletableFuture<Double> result = new CompletableFuture<>();
+        pending.put(requestId, result);
+        try
+        {
+            synchronized (output)
+            {
+                output.writeInt(requestId);
+                output.writeInt(operation);
+                output.writeInt(pack(fromCode));
+                output.writeInt(pack(toCode));
+                output.writeDouble(amount);
+                output.flush();
+            }
+        }
+        catch (IOException e)
+        {
+            pending.remove(requestId);
+            throw e;
+        }
+
+        //The reader may have failed the waiting requests before this one was added
+        if(failure != null && pending.remove(requestId) != null)
+            throw failure;
+        return result;
+    }
+
+
+
+
+    /**
+     * Reads the responses until the connection is closed and completes the requests they belong to.
+     */
+    private void readResponses() {
+        try
+        {
+            while(true)
+            {
+                int requestId = input.readInt();
+                int status = input.readInt();
+                double value = input.readDouble();
+
+                //The status is the error code of the Conversion endpoint without the sign
+                CompletableFuture<Double> result = pending.remove(requestId);
+                if(result != null)
+                    result.complete(status == 0 ? value : -status);
+            }
+        }
+        catch (IOException e)
+        {
+            failure = e;
+        }
+
+        //Nothing else will arrive so fail every request which is still waiting
+        for(Integer requestId : pending.keySet())
+        {
+            CompletableFuture<Double> result = pending.remove(requestId);
+            if(result != null)
+                result.completeExceptionally(failure);
+        }
+    }
+
+
+
+
+    /**
+     * Waits for the result of a request.
+     * @param result - The result of the request.
+     * @return - The converted amount or rate, or a negative error code.
+     * @throws IOException If the connection to the server was lost.
+     */
+    private static double await(CompletableFuture<Double> result) throws IOException {
+        try
+        {
+            return result.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the server.", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw (IOException) e.getCause();
+        }
+    }
+
+
+
+
+    /**
+     * Packs a currency code into the int sent to the server, the three letters in the low 24 bits with the first
+     * letter highest. A code which is not three letters is sent as 0, which the server does not recognise.
+     * @param code - The currency code.
+     * @return - The packed code.
+     */
+    private static int pack(String code) {
+        if(code == null || code.length() != 3)
+            return 0;
+        return ((code.charAt(0) & 0xFF) << 16) | ((code.charAt(1) & 0xFF) << 8) | (code.charAt(2) & 0xFF);
+    }
+}
\ No newline at end of file
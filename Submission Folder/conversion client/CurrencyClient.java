@@ -8,14 +8,19 @@ import localhost.currency.Conversion_jws.*;
 /**
 * This class is a subclass of Client. This is the client console application which
 * exposes the Conversion Endpoint provided by the Currency Service.
+* Conversions and rates are calculated with a local copy of the rates which is checked against the service at most
+* every "conversion.replica.maxAge" milliseconds (default 5000), see RateReplica.
 *
 * @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
 * @since   18/10/2018
 */
 public class CurrencyClient extends Client {
 
+    //CONSTANTS
+    private static final long REPLICA_MAX_AGE = Long.getLong("conversion.replica.maxAge", 5000);
+
     private ConversionService service;      //The conversion web service       
-    private Conversion serviceInterface;    //The service interface to invoke web service methods
+    private Conversion serviceInterface;    //The service interface to invoke web service methods, backed by a local copy of the rates
 
     /**
      * Main Method
@@ -63,7 +68,7 @@ public class CurrencyClient extends Client {
         try
         {
             service = new ConversionServiceLocator();
-            serviceInterface = service.getConversion();
+            serviceInterface = new RateReplica(service.getConversion(), REPLICA_MAX_AGE);
         }
         catch (ServiceException e)
         {
@@ -0,0 +1,290 @@
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import localhost.currency.Conversion_jws.*;
+
+/**
+* This class is a Conversion endpoint which converts with a local copy of the rates instead of calling the Currency
+* Service for every request. It wraps the generated Conversion stub, so it can be used anywhere the stub is used.
+*
+* The copy is labelled with the version of the rates it was read from. When the copy is older than maxAgeMillis the
+* next request asks the service for the current version, and the rates are only downloaded again if the version has
+* changed, so an unchanged table costs one small call per maxAgeMillis. A copy which could not be checked is never
+* used, the request is sent to the service instead.
+*
+* convert() and rateOf() return the same values as the service: the rates are copied without rounding and the 1% fee
+* is applied the same way. Pairs without a direct rate are sent to the service, which derives the cross rate through
+* other currencies. convertBatch() is always sent to the service.
+*
+* listRates() asks the service for the changes since the list it last returned, so an unchanged list is not
+* downloaded again. Rates added by a change are listed after the others rather than in the order of the service.
+*
+* A rate may be used for up to maxAgeMillis after it was changed on the service.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class RateReplica implements Conversion {
+
+    //CONSTANTS
+    private static final double INVALID = -1.0;
+    private static final double AFTER_FEE = 0.99;       //The amount left after the 1% conversion fee, the same as the service
+
+    private final Conversion remote;                    //The stub of the Conversion endpoint
+    private final long maxAgeMillis;                    //How long the copy is used before the version is checked again
+    private volatile Table table;                       //The copy of the rates, null until the first request
+    private volatile long checkedAt;                    //The time the version of the copy was last confirmed
+    private final LinkedHashMap<String, String> listedRates = new LinkedHashMap<>();  //The last list of rates <FROM-TO, Row>, guarded by itself
+    private long listedVersion = -1;                    //The version of the last list of rates, guarded by listedRates
+
+
+
+
+    /**
+     * Default constructor - Creates an empty copy which is filled by the first request.
+     * @param remote - The stub of the Conversion endpoint.
+     * @param maxAgeMillis - How long the copy is used before the version is checked again, 0 to check every request.
+     */
+    public RateReplica(Conversion remote, long maxAgeMillis) {
+        this.remote = remote;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+
+
+
+    /**
+     * Converts the amount including the 1% conversion fee with the local copy of the rates.
+     * @param fromCurrencyCode - The currency converting from
+     * @param toCurrencyCode - The currency converting to
+     * @param amount - The amount being converted
+     * @return - The converted amount or -1 if the amount is invalid or there is no rate
+     * @throws RemoteException If the service was needed and could not be reached.
+     */
+    public double convert(String fromCurrencyCode, String toCurrencyCode, double amount) throws RemoteException {
+        Table current = current();
+        if(current != null)
+        {
+            double rate = current.rateOf(fromCurrencyCode, toCurrencyCode);
+            if(!Double.isNaN(rate))
+                return rate < 0 || !(amount > 0) ? INVALID : amount * rate * AFTER_FEE;
+        }
+        return remote.convert(fromCurrencyCode, toCurrencyCode, amount);
+    }
+
+
+
+
+    /**
+     * Gets the conversion rate between the currencies with the local copy of the rates.
+     * @param fromCurrencyCode - The currency converting from
+     * @param toCurrencyCode - The currency converting to
+     * @return - The conversion rate or -1 if there is no rate
+     * @throws RemoteException If the service was needed and could not be reached.
+     */
+    public double rateOf(String fromCurrencyCode, String toCurrencyCode) throws RemoteException {
+        Table current = current();
+        if(current != null)
+        {
+            double rate = current.rateOf(fromCurrencyCode, toCurrencyCode);
+            if(!Double.isNaN(rate))
+                return rate;
+        }
+        return remote.rateOf(fromCurrencyCode, toCurrencyCode);
+    }
+
+
+
+
+    /**
+     * Lists every rate, downloading only the rates which changed since the last list.
+     * @return - The rates in the format <fromCode>-<toCode>:<rate>, an empty array if there are no rates.
+     * @throws RemoteException If the service could not be reached.
+     */
+    public String[] listRates() throws RemoteException {
+        synchronized (listedRates)
+        {
+            String[] changes = remote.listRatesIfChanged(listedVersion);
+
+            //A full list replaces the copy, a delta removes and replaces the rates it names
+            if(changes.length > 1 && changes[1].equals("FULL"))
+                listedRates.clear();
+            for(int i = 2; i < changes.length; i++)
+            {
+                int separator = changes[i].lastIndexOf(':');
+                String pair = changes[i].substring(0, separator);
+                if(!changes[i].endsWith(":REMOVED"))
+                    listedRates.put(pair, changes[i]);
+                else if(pair.endsWith("-*"))
+                    removeListedRates(pair.substring(0, pair.length() - 2));
+                else
+                    listedRates.remove(pair);
+            }
+            listedVersion = Long.parseLong(changes[0]);
+            return listedRates.values().toArray(new String[0]);
+        }
+    }
+
+
+
+
+    /**
+     * Removes every listed rate to or from a currency.
+     * @param code - The currency code.
+     */
+    private void removeListedRates(String code) {
+        Iterator<String> pairs = listedRates.keySet().iterator();
+        while(pairs.hasNext())
+        {
+            String pair = pairs.next();
+            if(pair.startsWith(code + "-") || pair.endsWith("-" + code))
+                pairs.remove();
+        }
+    }
+
+
+
+
+    /**
+     * Converts a batch of amounts, sent to the service so every amount uses the same version of the rates.
+     */
+    public double[] convertBatch(String[] fromCurrencyCodes, String[] toCurrencyCodes, double[] amounts) throws RemoteException {
+        return remote.convertBatch(fromCurrencyCodes, toCurrencyCodes, amounts);
+    }
+
+
+
+
+    /**
+     * Gets the current version of the rates from the service.
+     */
+    public long getRateVersion() throws RemoteException {
+        return remote.getRateVersion();
+    }
+
+
+
+
+    /**
+     * Gets every rate and its version from the service.
+     */
+    public String[] getRateTable() throws RemoteException {
+        return remote.getRateTable();
+    }
+
+
+
+
+    /**
+     * Gets the rates which changed after a version from the service.
+     */
+    public String[] listRatesIfChanged(long sinceVersion) throws RemoteException {
+        return remote.listRatesIfChanged(sinceVersion);
+    }
+
+
+
+
+    /**
+     * Gets the version of the local copy of the rates.
+     * @return - The version, -1 if the rates have not been copied yet.
+     */
+    public long getVersion() {
+        Table current = table;
+        return current == null ? -1 : current.version;
+    }
+
+
+
+
+    /**
+     * Gets the local copy of the rates, checking the version with the service if the copy is older than maxAgeMillis
+     * and downloading the rates again if the version has changed.
+     * @return - The copy, null if it could not be checked and the request must be sent to the service.
+     */
+    private Table current() {
+        Table current = table;
+        if(current != null && System.currentTimeMillis() - checkedAt < maxAgeMillis)
+            return current;
+
+        //Only one request checks the version, the others wait and use the result
+        synchronized (this)
+        {
+            current = table;
+            if(current != null && System.currentTimeMillis() - checkedAt < maxAgeMillis)
+                return current;
+
+            //The time is taken before the call so the copy is never trusted for longer than maxAgeMillis
+            long now = System.currentTimeMillis();
+            try
+            {
+                if(current == null || remote.getRateVersion() != current.version)
+                {
+                    current = new Table(remote.getRateTable());
+                    table = current;
+                }
+                checkedAt = now;
+                return current;
+            }
+            catch (RemoteException | RuntimeException e)
+            {
+                return null;
+            }
+        }
+    }
+
+
+
+
+    /**
+     * An immutable copy of the direct rates and the version they were read from.
+     */
+    private static class Table {
+        private final long version;                                 //The version of the rates
+        private final HashMap<String, Double> rates = new HashMap<>();  //The direct rates <FROM-TO, Rate>
+        private final HashSet<String> tradable = new HashSet<>();   //The currencies with at least one rate
+
+        /**
+         * Reads the rates returned by getRateTable().
+         * @param rows - The version followed by each rate as <fromCode>-<toCode>:<rate>.
+         * @throws IllegalArgumentException If the rates could not be read.
+         */
+        private Table(String[] rows) throws IllegalArgumentException {
+            if(rows == null || rows.length == 0)
+                throw new IllegalArgumentException("The rate table is empty.");
+
+            version = Long.parseLong(rows[0]);
+            for(int i = 1; i < rows.length; i++)
+            {
+                int separator = rows[i].lastIndexOf(':');
+                String pair = rows[i].substring(0, separator);
+                rates.put(pair, Double.parseDouble(rows[i].substring(separator + 1)));
+                tradable.add(pair.substring(0, pair.indexOf('-')));
+            }
+        }
+
+        /**
+         * Gets the direct rate between the currencies.
+         * @param fromCurrencyCode - The currency converting from.
+         * @param toCurrencyCode - The currency converting to.
+         * @return - The rate, -1 if the service would not have a rate either, NaN if only the service can tell.
+         */
+        private double rateOf(String fromCurrencyCode, String toCurrencyCode) {
+            if(fromCurrencyCode == null || toCurrencyCode == null)
+                return Double.NaN;
+
+            String from = fromCurrencyCode.toUpperCase();
+            String to = toCurrencyCode.toUpperCase();
+            Double rate = rates.get(from + "-" + to);
+            if(rate != null)
+                return rate;
+
+            //The service has no rate from a currency to itself, and no cross rate to or from a currency without rates
+            if(from.equals(to) || !tradable.contains(from) || !tradable.contains(to))
+                return INVALID;
+            return Double.NaN;
+        }
+    }
+}
\ No newline at end of file
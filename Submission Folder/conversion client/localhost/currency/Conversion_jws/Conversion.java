@@ -11,4 +11,8 @@ public interface Conversion extends java.rmi.Remote {
     public double convert(java.lang.String fromCurrencyCode, java.lang.String toCurrencyCode, double amount) throws java.rmi.RemoteException;
     public java.lang.String[] listRates() throws java.rmi.RemoteException;
     public double rateOf(java.lang.String fromCurrencyCode, java.lang.String toCurrencyCode) throws java.rmi.RemoteException;
+    public double[] convertBatch(java.lang.String[] fromCurrencyCodes, java.lang.String[] toCurrencyCodes, double[] amounts) throws java.rmi.RemoteException;
+    public long getRateVersion() throws java.rmi.RemoteException;
+    public java.lang.String[] getRateTable() throws java.rmi.RemoteException;
+    public java.lang.String[] listRatesIfChanged(long sinceVersion) throws java.rmi.RemoteException;
 }
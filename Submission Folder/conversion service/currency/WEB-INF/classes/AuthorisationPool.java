@@ -0,0 +1,111 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.xml.rpc.ServiceException;
+import org.apache.axis.client.Stub;
+import localhost.identity.Authorisation_jws.*;
+
+/**
+* This class is a thread safe pool of pre-built Authorisation endpoint stubs.
+* Building the AuthorisationServiceLocator creates a new Axis client engine and building
+* a stub registers its type mappings, so rather than repeating that work on every admin request
+* the stubs are built once, borrowed for the duration of a call and then returned to the pool.
+*
+* All stubs share a single AuthorisationServiceLocator. If the pool is empty a new stub is built
+* and if the pool is full a returned stub is discarded, so callers never block waiting for a stub.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class AuthorisationPool {
+
+    //CONSTANTS
+    private static final int TIMEOUT_MILLIS = 5000;     //The timeout of a single authorise() call to the Identity Service
+
+    private final AuthorisationServiceLocator locator;  //The service locator shared by all stubs in the pool
+    private final BlockingQueue<Authorisation> idle;    //The stubs which are not currently borrowed
+
+
+
+
+    /**
+     * Default constructor - Creates the pool and pre-builds the stubs for the Identity Service on localhost.
+     * @param size - The maximum number of idle stubs kept by the pool.
+     */
+    public AuthorisationPool(int size) {
+        this(size, null);
+    }
+
+
+
+
+    /**
+     * Creates the pool and pre-builds the stubs for an Authorisation endpoint.
+     * @param size - The maximum number of idle stubs kept by the pool.
+     * @param address - The URL of the Authorisation endpoint, null to use the address in the WSDL.
+     */
+    public AuthorisationPool(int size, String address) {
+        locator = new AuthorisationServiceLocator();
+        if(address != null)
+            locator.setAuthorisationEndpointAddress(address);
+        idle = new ArrayBlockingQueue<>(size);
+
+        //Pre-build the stubs so the first admin requests do not pay for the setup
+        try
+        {
+            for(int i = 0; i < size; i++)
+                idle.offer(createStub());
+        }
+        catch (ServiceException e)
+        {
+            Log.error("ERROR: Could not pre-build the Authorisation stubs, stubs will be built on demand.");
+        }
+    }
+
+
+
+
+    /**
+     * Borrows a stub from the pool, building a new stub if the pool is empty.
+     * The stub must be given back using release() once the call has completed.
+     * @return - An Authorisation stub which is not being used by any other thread.
+     * @throws ServiceException If a new stub could not be built.
+     */
+    public Authorisation borrow() throws ServiceException {
+        Authorisation stub = idle.poll();
+        if(stub == null)
+            stub = createStub();
+        return stub;
+    }
+
+
+
+
+    /**
+     * Returns a borrowed stub to the pool so it can be reused.
+     * Stubs which failed during a call should not be returned, the pool will build a new stub instead.
+     * @param stub - The stub to return to the pool.
+     */
+    public void release(Authorisation stub) {
+        if(stub != null)
+            idle.offer(stub);
+    }
+
+
+
+
+    /**
+     * Builds a new stub using the shared service locator.
+     * @return - A new Authorisation stub.
+     * @throws ServiceException If the stub could not be built.
+     */
+    private Authorisation createStub() throws ServiceException {
+        Authorisation stub = locator.getAuthorisation();
+
+        //The locator returns null instead of throwing if the stub could not be built
+        if(stub == null)
+            throw new ServiceException("Could not build the Authorisation stub.");
+
+        ((Stub) stub).setTimeout(TIMEOUT_MILLIS);
+        return stub;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+import java.io.IOException;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+* Starts the BinaryConversionServer with the Currency Service when the "currency.binary.port" system property is set,
+* so the binary protocol reads the same rates the Admin endpoint updates. Registered as a listener in web.xml.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class BinaryServerListener implements ServletContextListener {
+
+    private BinaryConversionServer server;      //The running server, null if it is not enabled
+
+
+
+
+    /**
+     * Starts the server if a port has been configured.
+     * @param event - The webapp being started.
+     */
+    public void contextInitialized(ServletContextEvent event) {
+        Integer port = Integer.getInteger("currency.binary.port");
+        if(port == null)
+            return;
+
+        try
+        {
+            server = new BinaryConversionServer(port, Integer.getInteger("currency.binary.threads", Runtime.getRuntime().availableProcessors()));
+        }
+        catch (IOException e)
+        {
+            Log.error("ERROR: Could not start the binary conversion server on port " + port + ": " + e.getMessage());
+        }
+    }
+
+
+
+
+    /**
+     * Stops the server.
+     * @param event - The webapp being stopped.
+     */
+    public void contextDestroyed(ServletContextEvent event) {
+        if(server != null)
+            server.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,340 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+* Serves the conversion methods of the Currency Service as plain HTTP with JSON responses, mapped to /json/* in web.xml.
+* High volume callers can use it to avoid the cost of parsing and building SOAP envelopes, the Conversion endpoint is
+* unchanged and both read the same CurrencyDatabaseInterface.
+*
+* The parameters are passed in the query string and each response is the JSON form of what the Conversion endpoint
+* returns, with the same negative error values:
+* - GET /json/convert?from=AUD&to=USD&amount=100          69.3
+* - GET /json/rateOf?from=AUD&to=USD                      0.7
+* - GET /json/listRates                                   ["AUD-USD:0.7000", ...]
+* - GET /json/convertBatch?from=AUD&to=USD&amount=1&amount=2   [0.693,1.386]
+*
+* A missing or malformed parameter is answered with 400 and an unknown method with 404, both with {"error":"..."}.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class ConversionServlet extends HttpServlet {
+
+    //CONSTANTS
+    private static final long serialVersionUID = 1L;
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private static CurrencyDatabaseInterface database = new CurrencyDatabaseInterface();
+    private static volatile ListedRates listedRates = new ListedRates(null, new byte[0]);  //The JSON of the last list of rates served
+
+    //The metrics of each operation
+    private static final OperationMetrics listRatesMetrics = Metrics.operation("Json.listRates");
+    private static final OperationMetrics rateOfMetrics = Metrics.operation("Json.rateOf");
+    private static final OperationMetrics convertMetrics = Metrics.operation("Json.convert");
+    private static final OperationMetrics convertBatchMetrics = Metrics.operation("Json.convertBatch");
+
+
+
+
+    /**
+     * Calls the method named by the path of the request.
+     * @param request - The request, the path after /json names the method.
+     * @param response - The response the JSON is written to.
+     * @throws IOException If the response could not be written.
+     */
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String method = request.getPathInfo();
+        if(method == null)
+            method = "";
+
+        try
+        {
+            if(method.equals("/convert"))
+                convert(request, response);
+            else if(method.equals("/rateOf"))
+                rateOf(request, response);
+            else if(method.equals("/listRates"))
+                listRates(response);
+            else if(method.equals("/convertBatch"))
+                convertBatch(request, response);
+            else
+                writeError(response, HttpServletResponse.SC_NOT_FOUND, "Unknown method " + method);
+        }
+        catch (IllegalArgumentException e)
+        {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+
+
+
+
+    /**
+     * Converts an amount including the 1% conversion fee.
+     * @param request - The request with the from, to and amount parameters.
+     * @param response - The response the converted amount is written to.
+     * @throws IOException If the response could not be written.
+     */
+    private void convert(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String from = getParameter(request, "from");
+        String to = getParameter(request, "to");
+        double amount = parseAmount(getParameter(request, "amount"));
+
+        double result;
+        try(OperationMetrics.Call call = convertMetrics.start())
+        {
+            result = database.convert(from, to, amount);
+            call.returns(result, result < 0);
+        }
+        write(response, Double.toString(result));
+    }
+
+
+
+
+    /**
+     * Gets the conversion rate between two currencies.
+     * @param request - The request with the from and to parameters.
+     * @param response - The response the rate is written to.
+     * @throws IOException If the response could not be written.
+     */
+    private void rateOf(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String from = getParameter(request, "from");
+        String to = getParameter(request, "to");
+
+        double result;
+        try(OperationMetrics.Call call = rateOfMetrics.start())
+        {
+            result = database.rateOf(from, to);
+            call.returns(result, result < 0);
+        }
+        write(response, Double.toString(result));
+    }
+
+
+
+
+    /**
+     * Lists every rate. The JSON is built once for each list of rates the database builds, so it is only built again
+     * after the rates have changed.
+     * @param response - The response the rates are written to.
+     * @throws IOException If the response could not be written.
+     */
+    private void listRates(HttpServletResponse response) throws IOException {
+        byte[] json;
+        try(OperationMetrics.Call call = listRatesMetrics.start())
+        {
+            String[] rates = database.listRates();
+            ListedRates listed = listedRates;
+            if(listed.rates != rates)
+            {
+                listed = new ListedRates(rates, toJson(rates).getBytes(StandardCharsets.UTF_8));
+                listedRates = listed;
+            }
+            json = call.returns(listed.json);
+        }
+        write(response, json);
+    }
+
+
+
+
+    /**
+     * Converts many amounts with the same rates, using the error values of the Conversion endpoint.
+     * @param request - The request with the from, to and amount parameters, which can each be repeated.
+     * @param response - The response the converted amounts are written to.
+     * @throws IOException If the response could not be written.
+     */
+    private void convertBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String[] from = getParameters(request, "from");
+        String[] to = getParameters(request, "to");
+        String[] amountParameters = getParameters(request, "amount");
+        double[] amounts = new double[amountParameters.length];
+        for(int i = 0; i < amounts.length; i++)
+            amounts[i] = parseAmount(amountParameters[i]);
+
+        double[] results;
+        try(OperationMetrics.Call call = convertBatchMetrics.start())
+        {
+            results = database.convertBatch(from, to, amounts);
+            call.returns(results, results == null || results.length == 0);
+        }
+
+        StringBuilder json = new StringBuilder(results.length * 12 + 2).append('[');
+        for(int i = 0; i < results.length; i++)
+        {
+            if(i > 0)
+                json.append(',');
+            json.append(results[i]);
+        }
+        write(response, json.append(']').toString());
+    }
+
+
+
+
+    /**
+     * Gets a parameter which must be in the request.
+     * @param request - The request.
+     * @param name - The name of the parameter.
+     * @return - The value of the parameter.
+     * @throws IllegalArgumentException If the parameter is missing.
+     */
+    private String getParameter(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        if(value == null)
+            throw new IllegalArgumentException("The " + name + " parameter is missing");
+        return value;
+    }
+
+
+
+
+    /**
+     * Gets every value of a parameter which must be in the request at least once.
+     * @param request - The request.
+     * @param name - The name of the parameter.
+     * @return - The values of the parameter.
+     * @throws IllegalArgumentException If the parameter is missing.
+     */
+    private String[] getParameters(HttpServletRequest request, String name) {
+        String[] values = request.getParameterValues(name);
+        if(values == null)
+            throw new IllegalArgumentException("The " + name + " parameter is missing");
+        return values;
+    }
+
+
+
+
+    /**
+     * Parses an amount.
+     * @param value - The amount.
+     * @return - The amount as a double.
+     * @throws IllegalArgumentException If the amount is not a finite number.
+     */
+    private double parseAmount(String value) {
+        double amount;
+        try
+        {
+            amount = Double.parseDouble(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("The amount " + value + " is not a number");
+        }
+
+        //parseDouble() accepts NaN and Infinity, which would be converted into results JSON can not represent
+        if(Double.isNaN(amount) || Double.isInfinite(amount))
+            throw new IllegalArgumentException("The amount " + value + " is not a finite number");
+        return amount;
+    }
+
+
+
+
+    /**
+     * Builds a JSON array of strings.
+     * @param values - The strings.
+     * @return - The JSON array.
+     */
+    private static String toJson(String[] values) {
+        StringBuilder json = new StringBuilder(values.length * 16 + 2).append('[');
+        for(int i = 0; i < values.length; i++)
+        {
+            if(i > 0)
+                json.append(',');
+            appendString(json, values[i]);
+        }
+        return json.append(']').toString();
+    }
+
+
+
+
+    /**
+     * Appends a JSON string, escaping the characters JSON does not allow in a string. Also used by RateFeedServlet.
+     * @param json - The JSON being built.
+     * @param value - The string.
+     */
+    static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for(int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\')
+                json.append('\\').append(c);
+            else if(c < 0x20)
+                json.append(String.format("\\u%04x", (int) c));
+            else
+                json.append(c);
+        }
+        json.append('"');
+    }
+
+
+
+
+    /**
+     * Writes an error.
+     * @param response - The response.
+     * @param status - The HTTP status of the error.
+     * @param message - The reason for the error.
+     * @throws IOException If the response could not be written.
+     */
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        Log.warn("ERROR: JSON request failed: " + message);
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        response.setStatus(status);
+        write(response, json.append('}').toString());
+    }
+
+
+
+
+    /**
+     * Writes a JSON response.
+     * @param response - The response.
+     * @param json - The JSON.
+     * @throws IOException If the response could not be written.
+     */
+    private void write(HttpServletResponse response, String json) throws IOException {
+        write(response, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+
+
+    /**
+     * Writes a JSON response which has already been encoded.
+     * @param response - The response.
+     * @param json - The UTF-8 bytes of the JSON.
+     * @throws IOException If the response could not be written.
+     */
+    private void write(HttpServletResponse response, byte[] json) throws IOException {
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-cache");
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
+    }
+
+
+
+
+    /**
+     * The list of rates last served and its JSON, replaced together so they always match.
+     */
+    private static class ListedRates {
+        private final String[] rates;       //The list of rates returned by the database
+        private final byte[] json;          //The UTF-8 bytes of the JSON of the list
+
+        private ListedRates(String[] rates, byte[] json) {
+            this.rates = rates;
+            this.json = json;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+* This class represents an immutable table of the cross rates between every pair of currencies, used when there
+* is no direct conversion rate between two currencies. For example USD to NZD is derived as USD to AUD to NZD.
+*
+* The cross rate is found through the path with the fewest conversions, up to the maximum number of hops set by the
+* "currency.crossrate.maxHops" system property (default 3, 1 disables cross rates). When several paths have the same
+* number of conversions the best rate is used. Only paths which do not visit a currency twice are followed, so a
+* cycle of rates can never make a better cross rate.
+*
+* The cross rates from a currency are calculated as a row of the table the first time they are needed, after that
+* a lookup is a single array load. Each row only depends on the currencies it followed rates from, so when a snapshot
+* is published the rows which did not follow a changed currency are shared with the next table and the others are
+* dropped to be calculated again when needed. Rows are only built for the currencies which are converted from
+* without a direct rate, so a database with thousands of currencies does not hold a rate for every pair.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class CrossRates {
+
+    //CONSTANTS
+    private static final int DEFAULT_MAX_HOPS = 3;
+    private static final int MAX_HOPS = Math.max(1, Integer.getInteger("currency.crossrate.maxHops", DEFAULT_MAX_HOPS));
+
+    //An empty table used to build the table of the first snapshot
+    public static final CrossRates EMPTY = new CrossRates(new Currency[0], new AtomicReferenceArray<Row>(0));
+
+    private final Currency[] currencies;                //The currencies of the snapshot the table belongs to, indexed by id
+    private final AtomicReferenceArray<Row> rows;       //The calculated rows indexed by fromId, null if the row has not been calculated
+
+
+
+    /**
+     * Creates a table of cross rates.
+     * @param currencies - The currencies of the snapshot, indexed by id.
+     * @param rows - The rows which have already been calculated, indexed by fromId.
+     */
+    private CrossRates(Currency[] currencies, AtomicReferenceArray<Row> rows) {
+        this.currencies = currencies;
+        this.rows = rows;
+    }
+
+
+
+
+    /**
+     * Gets the cross rate between the currencies, which is the direct rate if there is one.
+     * Calculates the row of the from currency if it has not been calculated for this table.
+     * @param from - The currency converting from, null if the currency does not exist.
+     * @param to - The currency converting to, null if the currency does not exist.
+     * @return - The cross rate, NaN if there is no path between the currencies within the maximum number of hops.
+     */
+    public double rateOf(Currency from, Currency to) {
+        if(from == null || to == null || from.getId() >= rows.length())
+            return Double.NaN;
+
+        //Two requests may calculate the same row at the same time, the rows are the same so either can be kept
+        Row row = rows.get(from.getId());
+        if(row == null)
+        {
+            row = calculateRow(currencies, from.getId());
+            rows.set(from.getId(), row);
+        }
+
+        if(to.getId() >= row.rates.length)
+            return Double.NaN;
+        return row.rates[to.getId()];
+    }
+
+
+
+
+    /**
+     * Creates the table of cross rates for the next snapshot, keeping the rows which are still correct.
+     * Must be called while holding the write lock.
+     * @param previous - The currencies of the snapshot this table was created for, indexed by id.
+     * @param next - The currencies of the next snapshot, indexed by id. A changed currency must be a new object.
+     * @return - The cross rates of the next snapshot.
+     */
+    public CrossRates update(Currency[] previous, Currency[] next) {
+
+        //Find the ids which were changed, a changed currency is always copied so comparing the objects is enough
+        long[] changed = new long[words(next.length)];
+        for(int id = 0; id < next.length; id++)
+        {
+            Currency before = id < previous.length ? previous[id] : null;
+            if(before != next[id])
+                changed[id >> 6] |= 1L << id;
+        }
+
+        //Keep every row which did not follow a rate from a changed currency, the others are calculated when needed
+        AtomicReferenceArray<Row> nextRows = new AtomicReferenceArray<>(next.length);
+        int length = Math.min(rows.length(), next.length);
+        for(int id = 0; id < length; id++)
+        {
+            Row row = rows.get(id);
+            if(row != null && next[id] != null && !intersects(row.followed, changed))
+                nextRows.set(id, row);
+        }
+        return new CrossRates(next, nextRows);
+    }
+
+
+
+
+    /**
+     * Calculates the cross rates from a currency by following the rates one hop at a time. A currency is only
+     * reached at the first hop it can be reached, using the best rate of the paths with that number of hops.
+     * @param currencies - The currencies indexed by id.
+     * @param fromId - The id of the currency converting from.
+     * @return - The cross rates from the currency and the ids which rates were followed from.
+     */
+    private static Row calculateRow(Currency[] currencies, int fromId) {
+        long[] followed = new long[words(currencies.length)];
+        double[] row = new double[currencies.length];
+        Arrays.fill(row, Double.NaN);
+
+        boolean[] reached = new boolean[currencies.length];
+        reached[fromId] = true;
+        int[] frontier = new int[currencies.length];
+        int[] nextFrontier = new int[currencies.length];
+        frontier[0] = fromId;
+        int frontierSize = 1;
+
+        for(int hop = 1; hop <= MAX_HOPS && frontierSize > 0; hop++)
+        {
+            //Follow the rates of every currency reached at the last hop
+            int nextSize = 0;
+            for(int i = 0; i < frontierSize; i++)
+            {
+                int id = frontier[i];
+                followed[id >> 6] |= 1L << id;
+                double rateSoFar = id == fromId ? 1.0 : row[id];
+                double[] direct = currencies[id].getRateRow();
+                int length = Math.min(direct.length, currencies.length);
+                for(int toId = 0; toId < length; toId++)
+                {
+                    if(Double.isNaN(direct[toId]) || reached[toId])
+                        continue;
+
+                    double rate = rateSoFar * direct[toId];
+                    if(Double.isNaN(row[toId]))
+                    {
+                        row[toId] = rate;
+                        nextFrontier[nextSize++] = toId;
+                    }
+                    else if(rate > row[toId])
+                        row[toId] = rate;
+                }
+            }
+
+            //The currencies reached at this hop can not be reached again by a longer path
+            for(int i = 0; i < nextSize; i++)
+                reached[nextFrontier[i]] = true;
+            int[] swap = frontier;
+            frontier = nextFrontier;
+            frontierSize = nextSize;
+            nextFrontier = swap;
+        }
+        return new Row(row, followed);
+    }
+
+
+
+
+    /**
+     * Outlines if two bit sets have an id in common.
+     * @param a - The first bit set.
+     * @param b - The second bit set.
+     * @return - TRUE if an id is in both bit sets, FALSE otherwise.
+     */
+    private static boolean intersects(long[] a, long[] b) {
+        int length = Math.min(a.length, b.length);
+        for(int i = 0; i < length; i++)
+        {
+            if((a[i] & b[i]) != 0)
+                return true;
+        }
+        return false;
+    }
+
+
+
+
+    /**
+     * Gets the number of longs needed for a bit set of ids.
+     * @param ids - The number of ids.
+     * @return - The number of longs.
+     */
+    private static int words(int ids) {
+        return (ids + 63) >> 6;
+    }
+
+
+
+
+    /**
+     * The cross rates from a single currency, with the ids of the currencies the rates were followed from.
+     */
+    private static class Row {
+        private final double[] rates;       //The cross rates indexed by the id converting to, NaN if there is no path
+        private final long[] followed;      //The ids which rates were followed from, as a bit set indexed by id
+
+        private Row(double[] rates, long[] followed) {
+            this.rates = rates;
+            this.followed = followed;
+        }
+    }
+}
\ No newline at end of file
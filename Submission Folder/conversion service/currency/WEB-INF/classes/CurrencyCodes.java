@@ -0,0 +1,272 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+* This class represents an immutable table which maps currency codes to the ids of the currencies.
+* Codes are matched without case and without creating any new Strings, so the conversion hot path
+* does not allocate memory to look up a currency.
+*
+* Three letter codes such as AUD are packed into a 15 bit key (5 bits per letter, upper and lower case
+* letters have the same 5 bits) which indexes a table of ids. Any other code, such as a four letter code,
+* is stored in upper case in a HashMap instead.
+*
+* Adding or removing a code returns a new table, the existing table is never changed so it can be shared
+* by the snapshots of the database. The table of ids is split into pages and a new table only copies the page
+* of the changed code, sharing the other pages, so a change copies 4 KB rather than the whole 128 KB table.
+*
+* When many changes are made before a table is published, such as replaying the rate log, a mutable copy of the
+* table can be changed in place instead and then frozen once, in the same way as of() builds a table in one step.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class CurrencyCodes {
+
+    //CONSTANTS
+    private static final int NOT_FOUND = -1;
+    private static final int KEY_BITS = 5;
+    private static final int TABLE_SIZE = 1 << (3 * KEY_BITS);
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int[] EMPTY_PAGE = emptyPage();   //A page without any codes, shared by every table and never changed
+
+    private final int[][] pages;                    //The ids of the three letter codes indexed by packed key in pages of PAGE_SIZE, NOT_FOUND if the code is not used
+    private final HashMap<String, Integer> otherIds;//The ids of the codes which cannot be packed <UpperCaseCode, Id>
+    private final boolean isMutable;                //TRUE if with() and without() change this table in place, only before it is published
+    private int size;                               //The number of codes in the table
+
+
+
+
+    /**
+     * Default constructor - Creates an empty table.
+     */
+    public CurrencyCodes() {
+        pages = new int[TABLE_SIZE >> PAGE_BITS][];
+        Arrays.fill(pages, EMPTY_PAGE);
+        otherIds = new HashMap<>();
+        isMutable = false;
+        size = 0;
+    }
+
+
+
+
+    /**
+     * Creates a table from the ids of an existing table.
+     * @param pages - The pages of ids of the three letter codes.
+     * @param otherIds - The ids of the codes which cannot be packed.
+     * @param isMutable - TRUE if the table is changed in place.
+     * @param size - The number of codes in the table.
+     */
+    private CurrencyCodes(int[][] pages, HashMap<String, Integer> otherIds, boolean isMutable, int size) {
+        this.pages = pages;
+        this.otherIds = otherIds;
+        this.isMutable = isMutable;
+        this.size = size;
+    }
+
+
+
+
+    /**
+     * Creates a table of the codes of every currency in a single step, used when a snapshot is read from a
+     * checkpoint rather than adding the codes one at a time.
+     * @param currencies - The currencies indexed by id, null if the id is not used.
+     * @return - A new table containing the codes of the currencies.
+     */
+    public static CurrencyCodes of(Currency[] currencies) {
+        CurrencyCodes codes = new CurrencyCodes().mutableCopy();
+        for(Currency currency : currencies)
+        {
+            if(currency != null)
+                codes.with(currency.getCode(), currency.getId());
+        }
+        return codes.freeze();
+    }
+
+
+
+
+    /**
+     * Creates a copy of the table which with() and without() change in place rather than copying, so many changes
+     * can be made without copying the table for each one. The copy must be frozen before it is shared.
+     * @return - A mutable copy of the table.
+     */
+    public CurrencyCodes mutableCopy() {
+        int[][] copy = new int[pages.length][];
+        for(int i = 0; i < pages.length; i++)
+            copy[i] = pages[i] == EMPTY_PAGE ? EMPTY_PAGE : pages[i].clone();
+        return new CurrencyCodes(copy, new HashMap<>(otherIds), true, size);
+    }
+
+
+
+
+    /**
+     * Creates an immutable table from a mutable copy, which must not be changed after it has been frozen.
+     * @return - An immutable table with the same codes.
+     */
+    public CurrencyCodes freeze() {
+        return isMutable ? new CurrencyCodes(pages, otherIds, false, size) : this;
+    }
+
+
+
+
+    /**
+     * Gets the id of the currency code, ignoring case.
+     * Does not create any objects when the code is three letters.
+     * @param code - The currency code.
+     * @return - The id of the currency, -1 if the code is not in the table.
+     */
+    public int idOf(String code) {
+        if(code == null)
+            return NOT_FOUND;
+
+        int key = pack(code);
+        if(key >= 0)
+            return pages[key >>> PAGE_BITS][key & PAGE_MASK];
+
+        Integer id = otherIds.get(code.toUpperCase());
+        return id == null ? NOT_FOUND : id;
+    }
+
+
+
+
+    /**
+     * Gets the id of a three letter currency code which has been packed into an int, ignoring case.
+     * Used by the binary protocol, which sends each code as its three ASCII letters rather than a String.
+     * @param code - The three ASCII letters of the code in the low 24 bits, the first letter in the highest byte.
+     * @return - The id of the currency, -1 if the code is not in the table or is not three letters.
+     */
+    public int idOf(int code) {
+        if((code >>> 24) != 0)
+            return NOT_FOUND;
+
+        int key = 0;
+        for(int shift = 16; shift >= 0; shift -= 8)
+        {
+            char letter = (char) (((code >>> shift) & 0xFF) | 0x20);
+            if(letter < 'a' || letter > 'z')
+                return NOT_FOUND;
+            key = (key << KEY_BITS) | (letter & 0x1F);
+        }
+        return pages[key >>> PAGE_BITS][key & PAGE_MASK];
+    }
+
+
+
+
+    /**
+     * Creates a copy of the table with the currency code added, or adds it to this table if it is mutable.
+     * @param code - The upper case currency code to add.
+     * @param id - The id of the currency.
+     * @return - A table containing the code.
+     */
+    public CurrencyCodes with(String code, int id) {
+        return change(code, id, size + 1);
+    }
+
+
+
+
+    /**
+     * Creates a copy of the table with the currency code removed, or removes it from this table if it is mutable.
+     * @param code - The upper case currency code to remove, the code must be in the table.
+     * @return - A table which does not contain the code.
+     */
+    public CurrencyCodes without(String code) {
+        return change(code, NOT_FOUND, size - 1);
+    }
+
+
+
+
+    /**
+     * Gets the number of codes in the table.
+     * @return - The number of codes.
+     */
+    public int size() {
+        return size;
+    }
+
+
+
+
+    /**
+     * Sets the id of a currency code. A mutable table is changed in place, otherwise only the changed page
+     * or the map of other codes is copied and everything else is shared with this table.
+     * @param code - The upper case currency code.
+     * @param id - The id of the currency, NOT_FOUND to remove the code.
+     * @param nextSize - The number of codes in the table after the change.
+     * @return - The changed table.
+     */
+    private CurrencyCodes change(String code, int id, int nextSize) {
+        int key = pack(code);
+        int[][] nextPages = pages;
+        HashMap<String, Integer> nextOtherIds = otherIds;
+        if(key >= 0)
+        {
+            int page = key >>> PAGE_BITS;
+            if(!isMutable)
+                nextPages = pages.clone();
+            if(!isMutable || nextPages[page] == EMPTY_PAGE)
+                nextPages[page] = nextPages[page].clone();
+            nextPages[page][key & PAGE_MASK] = id;
+        }
+        else
+        {
+            if(!isMutable)
+                nextOtherIds = new HashMap<>(otherIds);
+            if(id == NOT_FOUND)
+                nextOtherIds.remove(code);
+            else
+                nextOtherIds.put(code, id);
+        }
+
+        if(!isMutable)
+            return new CurrencyCodes(nextPages, nextOtherIds, false, nextSize);
+        size = nextSize;
+        return this;
+    }
+
+
+
+
+    /**
+     * Creates a page without any codes.
+     * @return - A page with every id NOT_FOUND.
+     */
+    private static int[] emptyPage() {
+        int[] page = new int[PAGE_SIZE];
+        Arrays.fill(page, NOT_FOUND);
+        return page;
+    }
+
+
+
+
+    /**
+     * Packs a three letter code into a 15 bit key, ignoring case.
+     * @param code - The currency code.
+     * @return - The packed key, -1 if the code is not three ASCII letters.
+     */
+    private static int pack(String code) {
+        if(code.length() != 3)
+            return NOT_FOUND;
+
+        int key = 0;
+        for(int i = 0; i < 3; i++)
+        {
+            //Setting the 0x20 bit makes an upper case ASCII letter lower case
+            char letter = (char) (code.charAt(i) | 0x20);
+            if(letter < 'a' || letter > 'z')
+                return NOT_FOUND;
+            key = (key << KEY_BITS) | (letter & 0x1F);
+        }
+        return key;
+    }
+}
\ No newline at end of file
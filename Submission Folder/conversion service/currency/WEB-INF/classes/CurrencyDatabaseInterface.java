@@ -1,19 +1,37 @@
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.io.IOException;
 import java.rmi.RemoteException;
 import javax.xml.rpc.ServiceException;
 import javax.security.sasl.AuthenticationException;
-import localhost.identity.Authorisation_jws.*;
 
 /**
 * This class represents a "dummy" database for the currencies and their
 * rates to be stored. The database offers CRUD operations in order to provide
 * data offered by the Conversion and Admin web services.
 *
-* IMPORTANT NOTE: The currencies and their rates are not persistent as specified by Hayden.
-* So when the server is restarted the currencies will reinitalised with the default currencies and rates.
+* Every change made by the Admin endpoint is saved in the RateLog before the request returns, and the log is
+* replayed when the service is restarted. The database is only initialised with the default currencies and rates
+* when the log is empty, or when the log is disabled by setting the "currency.wal.file" system property to "".
+*
+* Every "currency.checkpoint.interval" changes (default 10000) a RateCheckpoint of the whole database is written
+* in the background to the "currency.checkpoint.file" file (default currency.checkpoint in the data directory of
+* DataFiles, next to the log). When the service is restarted the checkpoint is read and only the changes logged
+* after it are replayed.
+*
+* The database is shared by the concurrent request threads of the Admin and Conversion endpoints.
+* The currencies are stored in an immutable RateSnapshot which is read without locking. Every change
+* is made while holding the write lock by building the next snapshot and publishing it in a single step,
+* so a rate and its inverse rate are always seen together.
+*
+* Currency codes are matched without case by the CurrencyCodes table of the snapshot, so the codes passed
+* to the database are not converted to uppercase except when a new currency is stored.
 *
 * @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
 * @since   18/10/2018
@@ -22,19 +40,46 @@ public class CurrencyDatabaseInterface {
     
     //CONSTANTS
     private static final double INVALID_REQUEST = -1.0;
+    private static final double UNKNOWN_FROM_CURRENCY = -2.0;       //The batch conversion error codes, INVALID_REQUEST is used for an invalid amount
+    private static final double UNKNOWN_TO_CURRENCY = -3.0;
+    private static final double NO_RATE = -4.0;
+    private static final int AUTHORISATION_POOL_SIZE = 16;
+    private static final int MIN_CAPACITY = 8;                      //The number of currency ids the rate matrix initially has room for
+    private static final int SESSION_CACHE_SIZE = 10000;
+    private static final long SESSION_CACHE_TTL = 30000;            //Authorised session keys are rechecked every 30 seconds
+    private static final long SESSION_CACHE_NEGATIVE_TTL = 2000;    //Rejected session keys are rechecked every 2 seconds
+    private static final String CHECKPOINT_FILE = DataFiles.path("currency.checkpoint.file", "currency.checkpoint");   //"" disables checkpoints
+    private static final int CHECKPOINT_INTERVAL = Math.max(1, Integer.getInteger("currency.checkpoint.interval", 10000));  //The number of changes between checkpoints
+    private static final int EPOCH_SHIFT = 20;                      //The versions after a start begin at the start time in seconds shifted by EPOCH_SHIFT, below 2^53 for JavaScript clients
     
-    private static boolean initialised = false;                             //A flag which outlines if the database has been initialised with the default currencies and rates               
-    private static HashMap<String, Currency> currencies = new HashMap<>();  //The data structure which stores the currencies <CurrencyCode, Currency>
+    private static final Object writeLock = new Object();   //The lock held while building and publishing the next snapshot
+    private static volatile RateSnapshot snapshot;          //The published snapshot which stores the currencies <CurrencyCode, Currency>
+    private static AuthorisationBatcher authorisationBatcher = new AuthorisationBatcher(new AuthorisationPool(AUTHORISATION_POOL_SIZE));  //Validates session keys with the Identity Service in batches
+    private static SessionCache sessionCache = new SessionCache(SESSION_CACHE_SIZE, SESSION_CACHE_TTL, SESSION_CACHE_NEGATIVE_TTL);  //The recently validated session keys
+    private static RevokedTokens revokedTokens = new RevokedTokens();                   //The signed session tokens which have been logged out
+    private static RateLog rateLog = new RateLog();                                     //The changes made by the Admin endpoint, replayed when the service is restarted
+    private static RateFeed rateFeed = new RateFeed();                                  //The recent changes, streamed to clients which keep a copy of the rates
+    private static int changesSinceCheckpoint;                                          //The changes logged since the last checkpoint was started, guarded by the write lock
+    private static boolean isCheckpointing;                                             //TRUE while a checkpoint is being written, guarded by the write lock
+    private static final ExecutorService checkpointWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "rate-checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
     
+    //Load the database from the rate log once, when the class is first loaded by either endpoint
+    static {
+        loadDatabase();
+    }
+
+
     /**
-     * Default constructor, if the database file does not exist it creates the file.
+     * Default constructor, the database is shared by all instances.
      */
     public CurrencyDatabaseInterface() {
-        
-        //If the database has not been initialised add the default currencies
-        if(!initialised)
-            initDatabase();
     }
 
 
@@ -45,40 +90,51 @@ public class CurrencyDatabaseInterface {
     
     /**
      * Gets a list of all rates inside the database
+     * The list is built once for each version of the rates and shared by every request until the rates change.
      * @return - A String[] containing the list of rates, an empty array if the database does not contain any currencies or rates.
      */
     public String[] listRates() {
 
+        //Read every rate from the same snapshot
+        RateSnapshot current = snapshot;
+
         //Confirm the database is not empty
-        if(currencies.isEmpty())
+        if(current.isEmpty())
         {
-            System.out.println("ERROR: There is no currencies in the database, cannot get rates.");
+            Log.warn("ERROR: There is no currencies in the database, cannot get rates.");
             return new String[0];
         }
 
-        //Loop through all of the currencies and build the array list
-        Currency[] allCurrencies = getAllCurrencies();
-        ArrayList<String> ratesList = new ArrayList<>();
-        for (Currency currency : allCurrencies) 
+        //Build the list if it has not been built for this snapshot, two requests may build it at the same time but the lists are the same
+        String[] ratesList = current.getListedRates();
+        if(ratesList == null)
         {
-            //If the currency does not contain any rates move onto the next currency
-            if(!currency.isTradable())
-                continue;
-            
-            //Get the rates and loop through each of the rates and append them to the output
-            String[] rates = currency.getRates();
-            for(String rate : rates)
-                ratesList.add(rate);
+            ratesList = buildRatesList(current);
+            current.setListedRates(ratesList);
         }
 
         //Print a success or error message if there is rates to display
-        if(ratesList.isEmpty())
-            System.out.println("ERROR: There is no rates in the database.");
+        if(ratesList.length == 0)
+            Log.warn("ERROR: There is no rates in the database.");
         else
-            System.out.println("SUCCESS: Retrieved all rates from the database.");
+            Log.debug("SUCCESS: Retrieved all rates from the database.");
+
+        return ratesList;
+    }
+
+
 
-        //Return the arrayList as a normal string array
-        return ratesList.toArray(new String[0]);
+
+
+
+    /**
+     * Gets the rates which changed after a version of the rates, so a caller with a copy of listRates() does not
+     * download every rate again when nothing has changed. See ratesIfChanged() for the format of the result.
+     * @param sinceVersion - The version of the rates the caller last listed.
+     * @return - The current version only if no listed rate has changed, otherwise the version followed by the changes.
+     */
+    public String[] listRatesIfChanged(long sinceVersion) {
+        return ratesIfChanged(sinceVersion, null);
     }
 
 
@@ -94,20 +150,17 @@ public class CurrencyDatabaseInterface {
      */
     public double rateOf(String fromCurrencyCode, String toCurrencyCode) {
         
-        //Convert to uppercase to avoid case mismatching
-        fromCurrencyCode = fromCurrencyCode.toUpperCase();
-        toCurrencyCode = toCurrencyCode.toUpperCase();
-
         //If the currency does not exist in the database return a negative value
-        if(!currencies.containsKey(fromCurrencyCode))
+        RateSnapshot current = snapshot;
+        Currency currency = current.getCurrency(fromCurrencyCode);
+        if(currency == null)
         {
-            System.out.println("ERROR: Cannot execute rateOf() because the fromCurrencyCode does not exist.");
+            Log.warn("ERROR: Cannot execute rateOf() because the fromCurrencyCode does not exist.");
             return INVALID_REQUEST;
         }
 
         //Otherwise get the rate of the toCurrencyCode
-        Currency currency = currencies.get(fromCurrencyCode);
-        return currency.rateOf(toCurrencyCode);
+        return currency.rateOf(current.getCurrency(toCurrencyCode), current.getCrossRates());
     }
 
 
@@ -124,20 +177,186 @@ public class CurrencyDatabaseInterface {
      */
     public double convert(String fromCurrencyCode, String toCurrencyCode, double amount) {
 
-        //Convert to uppercase to avoid case mismatching
-        fromCurrencyCode = fromCurrencyCode.toUpperCase();
-        toCurrencyCode = toCurrencyCode.toUpperCase();
-
         //If the currency does not exist in the database return a negative value
-        if(!currencies.containsKey(fromCurrencyCode))
+        RateSnapshot current = snapshot;
+        Currency currency = current.getCurrency(fromCurrencyCode);
+        if(currency == null)
         {
-            System.out.println("ERROR: Cannot execute convert() because the fromCurrencyCode does not exist.");
+            Log.warn("ERROR: Cannot execute convert() because the fromCurrencyCode does not exist.");
             return INVALID_REQUEST;
         }
 
         //The fromCurrencyCode exist, perform the conversion
-        Currency currency = currencies.get(fromCurrencyCode);
-        return currency.convert(toCurrencyCode, amount);
+        return currency.convert(current.getCurrency(toCurrencyCode), amount, current.getCrossRates());
+    }
+
+
+
+
+
+
+    /**
+     * Converts a batch of amounts including a 1% conversion fee. Every item is converted with the same
+     * snapshot, so a batch never mixes rates from before and after a change made by the Admin endpoint.
+     *
+     * The from and to codes can either have one code for each amount, or a single code which is used for
+     * every amount. The result of each item is the converted amount or one of the following error codes:
+     * -1 the amount is invalid, -2 the fromCurrencyCode does not exist, -3 the toCurrencyCode does not exist,
+     * -4 there is no rate between the currencies.
+     *
+     * @param fromCurrencyCodes - The currencies converting from
+     * @param toCurrencyCodes - The currencies converting to
+     * @param amounts - The amounts being converted
+     * @return - The converted amount or error code of each amount, an empty array if the lengths of the codes do not match the amounts
+     */
+    public double[] convertBatch(String[] fromCurrencyCodes, String[] toCurrencyCodes, double[] amounts) {
+
+        //Confirm there is a from and to code for every amount
+        if(amounts == null || !matchesBatch(fromCurrencyCodes, amounts.length) || !matchesBatch(toCurrencyCodes, amounts.length))
+        {
+            Log.warn("ERROR: Cannot execute convertBatch() because the number of codes does not match the number of amounts.");
+            return new double[0];
+        }
+
+        //Convert every amount with the same snapshot
+        RateSnapshot current = snapshot;
+        double[] results = new double[amounts.length];
+        int failed = 0;
+        for(int i = 0; i < amounts.length; i++)
+        {
+            Currency from = current.getCurrency(fromCurrencyCodes[fromCurrencyCodes.length == 1 ? 0 : i]);
+            Currency to = current.getCurrency(toCurrencyCodes[toCurrencyCodes.length == 1 ? 0 : i]);
+            double result = convertQuietly(from, to, amounts[i], current);
+            if(result < 0)
+                failed++;
+            results[i] = result;
+        }
+
+        //Log a single message for the batch rather than one for every amount
+        if(failed > 0 && Log.isWarnEnabled())
+            Log.warn("ERROR: convertBatch() could not convert " + failed + " of " + amounts.length + " amounts.");
+        else if(Log.isDebugEnabled())
+            Log.debug("SUCCESS: Converted a batch of " + amounts.length + " amounts.");
+        return results;
+    }
+
+
+
+
+
+
+    /**
+     * Converts an amount including a 1% conversion fee, for the binary protocol. The currencies are given as
+     * three letter codes packed into ints so the conversion does not create any objects, and nothing is logged.
+     * @param fromCode - The three ASCII letters of the currency converting from, in the low 24 bits
+     * @param toCode - The three ASCII letters of the currency converting to, in the low 24 bits
+     * @param amount - The amount being converted
+     * @return - The converted amount or one of the error codes of convertBatch()
+     */
+    public double convert(int fromCode, int toCode, double amount) {
+        RateSnapshot current = snapshot;
+        return convertQuietly(current.getCurrency(fromCode), current.getCurrency(toCode), amount, current);
+    }
+
+
+
+
+
+
+    /**
+     * Gets the conversion rate between two currencies, for the binary protocol. The currencies are given as
+     * three letter codes packed into ints so the lookup does not create any objects, and nothing is logged.
+     * @param fromCode - The three ASCII letters of the currency converting from, in the low 24 bits
+     * @param toCode - The three ASCII letters of the currency converting to, in the low 24 bits
+     * @return - The conversion rate or one of the error codes of convertBatch(), -1 is not used
+     */
+    public double rateOf(int fromCode, int toCode) {
+        RateSnapshot current = snapshot;
+        Currency from = current.getCurrency(fromCode);
+        Currency to = current.getCurrency(toCode);
+        if(from == null)
+            return UNKNOWN_FROM_CURRENCY;
+        if(to == null)
+            return UNKNOWN_TO_CURRENCY;
+
+        double rate = from.rateOfQuietly(to, current.getCrossRates());
+        return Double.isNaN(rate) ? NO_RATE : rate;
+    }
+
+
+
+
+
+
+    /**
+     * Gets the version of the rates, the version increases every time a currency or rate is changed.
+     * Can be used by clients to determine if the rates have changed since they were last retrieved.
+     * The versions start from a new epoch every time the service is started, so clients reload the rates after a restart.
+     * @return - The current version of the rates.
+     */
+    public long getRateVersion() {
+        return snapshot.getVersion();
+    }
+
+
+
+
+
+
+    /**
+     * Gets every direct rate with the version of the rates they were read from, so a client can keep its own copy
+     * of the rates and convert without calling the service. The rates are not rounded, so a conversion with them
+     * gives exactly the same result as convert().
+     * @return - The version as the first element, then each rate in both directions as <fromCode>-<toCode>:<rate>
+     */
+    public String[] getRateTable() {
+
+        //Read the version and every rate from the same snapshot
+        RateSnapshot current = snapshot;
+        Currency[] matrix = current.getCurrencyMatrix();
+        ArrayList<String> table = new ArrayList<>();
+        table.add(Long.toString(current.getVersion()));
+        for(Currency currency : current.getCurrencies())
+        {
+            double[] row = currency.getRateRow();
+            for(int toId = 0; toId < row.length; toId++)
+            {
+                if(!Double.isNaN(row[toId]))
+                    table.add(currency.getCode() + "-" + matrix[toId].getCode() + ":" + row[toId]);
+            }
+        }
+        return table.toArray(new String[0]);
+    }
+
+
+
+
+
+
+    /**
+     * Gets the published snapshot of the currencies and rates, used to send a client the whole table before it
+     * follows the changes. The snapshot is shared with every request so it must not be changed.
+     * @return - The current snapshot.
+     */
+    public RateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+
+
+
+
+
+    /**
+     * Gets the changes made after a version of the rates, waiting for the next change if there are none yet.
+     * @param sinceVersion - The version the caller has applied every change up to.
+     * @param timeoutMillis - How long to wait for a change.
+     * @return - The changes in version order, empty if no change was made before the timeout,
+     *           null if the changes are no longer kept and the caller must load the snapshot again.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    public List<RateFeed.Event> changesSince(long sinceVersion, long timeoutMillis) throws InterruptedException {
+        return rateFeed.changesSince(sinceVersion, timeoutMillis);
     }
 
 
@@ -161,20 +380,7 @@ public class CurrencyDatabaseInterface {
     public boolean addCurrency(String sessionKey, String currencyCode) throws AuthenticationException {
         
         validateSessionKey(sessionKey);
-
-        //Convert to uppercase to avoid case mismatching
-        currencyCode = currencyCode.toUpperCase();
-        
-        //Confirm the currency code does not already exist within the database
-        if(currencies.containsKey(currencyCode))
-        {
-            System.out.println("ERROR: Cannot execute addCurrency() because the currency code you are trying to add already exists");
-            return false;
-        }
-            
-        //Add the currency to the database
-        currencies.put(currencyCode, new Currency(currencyCode));
-        return true;
+        return change(RateChange.addCurrency(currencyCode));
     }
 
 
@@ -192,31 +398,7 @@ public class CurrencyDatabaseInterface {
     public boolean removeCurrency(String sessionKey, String currencyCode) throws AuthenticationException {
         
         validateSessionKey(sessionKey);
-
-        //Convert to uppercase to avoid case mismatching
-        currencyCode = currencyCode.toUpperCase();
-
-        //Check the currency code passed in exists
-        if(!currencies.containsKey(currencyCode))
-        {
-            System.out.println("ERROR: Cannot execute removeCurrency() because the currencyCode does not exist in the database.");
-            return false;
-        }
-        
-        //The currency exists, remove from database
-        currencies.remove(currencyCode);
-
-        //Get all the currencies in the DB and remove the rate from each
-        if(!currencies.isEmpty())
-        {
-            for (Currency currency : getAllCurrencies()) {
-                if(currency.containsRate(currencyCode))
-                    currency.removeRate(currencyCode);
-            }
-        }
-        
-        System.out.println("SUCCESS: Currency successfully removed.");
-        return true;
+        return change(RateChange.removeCurrency(currencyCode));
     }
 
     
@@ -235,19 +417,20 @@ public class CurrencyDatabaseInterface {
         validateSessionKey(sessionKey);
 
         //Confirm the database is not empty
-        if(currencies.isEmpty())
+        RateSnapshot current = snapshot;
+        if(current.isEmpty())
         {
-            System.out.println("ERROR: Cannot execute listCurrencies() because the database is empty.");
+            Log.warn("ERROR: Cannot execute listCurrencies() because the database is empty.");
             return new String[0];
         }
 
         //Loop through all the currencies and build the currency codes array
-        Currency[] currencies = getAllCurrencies();
+        Currency[] currencies = getAllCurrencies(current);
         String[] codes = new String[currencies.length];
         for (int i = 0; i < currencies.length; i++)
             codes[i] = currencies[i].getCode();
 
-        System.out.println("SUCCESS: Currencies retrieved.");
+        Log.debug("SUCCESS: Currencies retrieved.");
         return codes;
     }
 
@@ -270,39 +453,7 @@ public class CurrencyDatabaseInterface {
     public boolean addRate(String sessionKey, String fromCurrencyCode, String toCurrencyCode, double conversionRate) throws AuthenticationException {
       
         validateSessionKey(sessionKey);
-
-        //Convert to uppercase to avoid case mismatching
-        fromCurrencyCode = fromCurrencyCode.toUpperCase();
-        toCurrencyCode = toCurrencyCode.toUpperCase();
-
-        //Confirm the the currency codes exist in the database
-        if(!currencies.containsKey(fromCurrencyCode))
-        {
-            System.out.println("ERROR: Cannot execute addRate() because the fromCurrencyCode does not exist in the database.");
-            return false;
-        }
-        if(!currencies.containsKey(toCurrencyCode))
-        {
-            System.out.println("ERROR: Cannot execute addRate() because the toCurrencyCode does not exist in the database.");
-            return false;
-        }
-        
-        //Get the Currency from the database
-        Currency currency = currencies.get(fromCurrencyCode);
-
-        //Add the rate to the currency
-        boolean isSuccessful = false;
-        isSuccessful = currency.addRate(toCurrencyCode, conversionRate);
-
-        //If the rate was successfully added to the currency add the inverse rate to the other currency and save the database
-        if(isSuccessful)
-        {
-            Currency inverseCurrency = currencies.get(toCurrencyCode);
-            double inverseRate = 1.0/conversionRate;
-            isSuccessful = inverseCurrency.addRate(fromCurrencyCode, inverseRate);
-        }
-
-        return isSuccessful;
+        return change(RateChange.addRate(fromCurrencyCode, toCurrencyCode, conversionRate));
     }
 
 
@@ -322,21 +473,37 @@ public class CurrencyDatabaseInterface {
         
         validateSessionKey(sessionKey);
 
-        //Convert to uppercase to avoid case mismatching
-        currencyCode = currencyCode.toUpperCase();
-
         //Confirm the currency code exists in the database
-        if(!currencies.containsKey(currencyCode))
+        RateSnapshot current = snapshot;
+        Currency currency = current.getCurrency(currencyCode);
+        if(currency == null)
         {
-            System.out.println("ERROR: Cannot execute conversionFor() because the currencyCode does not exist in the database.");
+            Log.warn("ERROR: Cannot execute conversionFor() because the currencyCode does not exist in the database.");
             return new String[0];
         }
 
-        //Get the currency from the database
-        Currency currency = currencies.get(currencyCode);
-
         //Get all the rates for the specified currency
-        return currency.getRates();
+        return currency.getRates(current.getCurrencyMatrix());
+    }
+
+
+
+
+
+
+    /**
+     * Gets the rates of the specified currency which changed after a version of the rates, so a caller with a copy
+     * of conversionsFor() does not download the rates again when they have not changed. See ratesIfChanged() for
+     * the format of the result.
+     * @param - sessionKey - The users session key.
+     * @param - currencyCode - The currency code to retrieve the changed rates for.
+     * @param - sinceVersion - The version of the rates the caller last retrieved the conversions with.
+     * @return - The current version only if none of the rates have changed, otherwise the version followed by the changes.
+     * @throws AuthenticationException If the session key does not exist
+     */
+    public String[] conversionsForIfChanged(String sessionKey, String currencyCode, long sinceVersion) throws AuthenticationException {
+        validateSessionKey(sessionKey);
+        return ratesIfChanged(sinceVersion, currencyCode == null ? "" : currencyCode);
     }
 
 
@@ -357,38 +524,7 @@ public class CurrencyDatabaseInterface {
     public boolean updateRate(String sessionKey, String fromCurrencyCode, String toCurrencyCode, double rate) throws AuthenticationException {
         
         validateSessionKey(sessionKey);
-
-        //Convert to uppercase to avoid case mismatching
-        fromCurrencyCode = fromCurrencyCode.toUpperCase();
-        toCurrencyCode = toCurrencyCode.toUpperCase();
-
-        //Confirm the the currency codes exist in the database
-        if(!currencies.containsKey(fromCurrencyCode))
-        {
-            System.out.println("ERROR: Cannot execute updateRate() because the fromCurrencyCode does not exist in the database.");
-            return false;
-        }
-        if(!currencies.containsKey(toCurrencyCode))
-        {
-            System.out.println("ERROR: Cannot execute updateRate() because the toCurrencyCode does not exist in the database.");
-            return false;
-        }
-
-        //Get the Currency from the database
-        Currency currency = currencies.get(fromCurrencyCode);
-
-        //update the rate of the currency
-        boolean isSuccessful = false;
-        isSuccessful = currency.updateRate(toCurrencyCode, rate);
-
-        //If the update was successful update the inverse and save the database
-        if(isSuccessful)
-        {
-            Currency inverseCurrency = currencies.get(toCurrencyCode);
-            double inverseRate = 1.0/rate;
-            isSuccessful = inverseCurrency.updateRate(fromCurrencyCode, inverseRate);
-        }
-        return isSuccessful;
+        return change(RateChange.updateRate(fromCurrencyCode, toCurrencyCode, rate));
     }
 
 
@@ -408,36 +544,7 @@ public class CurrencyDatabaseInterface {
     public boolean removeRate(String sessionKey, String fromCurrencyCode, String toCurrencyCode) throws AuthenticationException {
         
         validateSessionKey(sessionKey);
-
-        //Convert to uppercase to avoid case mismatching
-        fromCurrencyCode = fromCurrencyCode.toUpperCase();
-        toCurrencyCode = toCurrencyCode.toUpperCase();
-
-        //Confirm the the currency codes exist in the database
-        if(!currencies.containsKey(fromCurrencyCode))
-        {
-            System.out.println("ERROR: Cannot execute removeRate() because the fromCurrencyCode does not exist in the database.");
-            return false;
-        }
-        if(!currencies.containsKey(toCurrencyCode))
-        {
-            System.out.println("ERROR: Cannot execute removeRate() because the toCurrencyCode does not exist in the database.");
-            return false;
-        }
-
-        //Get the currency to remove from
-        Currency removeFrom = currencies.get(fromCurrencyCode);
-
-        //Remove the rate from the currency
-        boolean isSuccessful = removeFrom.removeRate(toCurrencyCode);
-
-        //Remove the inverse rate
-        if(isSuccessful)
-        {
-            Currency inverse = currencies.get(toCurrencyCode);
-            isSuccessful = inverse.removeRate(fromCurrencyCode);
-        }
-        return isSuccessful;
+        return change(RateChange.removeRate(fromCurrencyCode, toCurrencyCode));
     }
 
 
@@ -455,6 +562,47 @@ public class CurrencyDatabaseInterface {
     }
 
 
+
+
+
+    //Methods used by the Identity Service
+    //------------------------------------------------------------------------
+    //------------------------------------------------------------------------
+
+
+    /**
+     * Invalidates a session key which has been revoked by the Identity Service.
+     * The next admin request using the session key will be checked by the Authorisation endpoint,
+     * and signed session tokens are rejected until they expire.
+     * When token mode is enabled the revocation must be signed with the shared secret, otherwise
+     * the Authorisation endpoint must confirm the session key is no longer valid.
+     * @param sessionKey - The revoked session key.
+     * @param signature - The signature of the revocation from SessionToken.signRevocation(), null if token mode is not enabled.
+     * @return - TRUE if the session key was cached or is a valid session token, FALSE otherwise.
+     */
+    public boolean invalidateSession(String sessionKey, String signature) {
+
+        //Only the Identity Service knows the shared secret, so any other caller can not revoke a key
+        if(SessionToken.isEnabled() && !SessionToken.verifyRevocation(sessionKey, signature))
+        {
+            Log.warn("ERROR: Cannot invalidate the session key because the revocation is not signed by the Identity Service.");
+            return false;
+        }
+
+        if(SessionToken.isToken(sessionKey))
+            return revokedTokens.revoke(sessionKey);
+
+        //Without a shared secret the Identity Service is asked to confirm the key has been revoked instead,
+        //only when the key is cached or being authorised so other keys do not cause a remote call
+        if(!SessionToken.isEnabled())
+        {
+            if(!sessionCache.contains(sessionKey) || isAuthorised(sessionKey))
+                return false;
+        }
+        return sessionCache.invalidate(sessionKey);
+    }
+
+
     
 
 
@@ -464,84 +612,780 @@ public class CurrencyDatabaseInterface {
 
 
     /**
-     * Validates a users session key and confirm the session key exists using the Authorisation endpoint
+     * Validates a users session key and confirm the session key exists using the Authorisation endpoint.
+     * Concurrent requests are validated together in one call to the Authorisation endpoint.
+     * Session keys which were recently validated are checked against the session cache instead,
+     * and signed session tokens are verified locally using the shared secret.
      * @param sessionKey - The session key to validate
      * @throws AuthenticationException If the session key does not exist
      */
     private void validateSessionKey(String sessionKey) throws AuthenticationException {
 
-        try
+        //Verify signed session tokens locally without calling the Identity Service
+        if(SessionToken.isToken(sessionKey))
+        {
+            if(!SessionToken.verify(sessionKey) || revokedTokens.isRevoked(sessionKey))
+                throw new AuthenticationException();
+            return;
+        }
+
+        //Use the cached result if the session key was recently validated
+        Boolean isCached = sessionCache.lookup(sessionKey);
+        if(isCached != null)
         {
-            //Use the authorisation end point to call the Authorise method
-            AuthorisationService service = new AuthorisationServiceLocator();
-            Authorisation serviceInterface = service.getAuthorisation();
-            
-            //If the authorisation fails, throw a Authenication exception
-            if(!serviceInterface.authorise(sessionKey))
+            if(!isCached)
                 throw new AuthenticationException();
+            return;
+        }
+
+        //Authorise the session key, along with the session keys of any other requests waiting
+        long generation = sessionCache.startAuthorising(sessionKey);
+        long lifetime;
+        try
+        {
+            lifetime = authorisationBatcher.authorise(sessionKey);
+
+            //Remember the result so repeated requests with the same session key stay local, unless it was logged out meanwhile
+            sessionCache.put(sessionKey, lifetime, generation);
         }
         catch (Exception e)
         {
             throw new AuthenticationException();
-        }     
+        }
+        finally
+        {
+            sessionCache.finishAuthorising(sessionKey);
+        }
+
+        //If the authorisation fails, throw a Authenication exception
+        if(lifetime <= 0)
+            throw new AuthenticationException();
     }
 
 
 
 
+
     /**
-     * Gets all the currencies from the database.
-     * @return - A Currency array of all the currencies in the database.
-     * An empty array if the database is empty
+     * Asks the Authorisation endpoint if the session key is still valid, used to confirm a revocation which is not signed.
+     * @param sessionKey - The session key to check.
+     * @return - TRUE if the Identity Service still authorises the key, FALSE if it does not or could not be called.
      */
-    private Currency[] getAllCurrencies() {
-        //If there is no currencies in the database return null
-        if(currencies.isEmpty())
+    private boolean isAuthorised(String sessionKey) {
+        try
         {
-            System.out.println("ERROR: There is no currencies in the database.");
-            return new Currency[0];
+            return authorisationBatcher.authorise(sessionKey) > 0;
         }
-        
-        //Loop through all of the currencies in the database and build the array
-        Currency[] currenciesArray = new Currency[currencies.size()];
-        int i = 0;
-        for(Map.Entry<String, Currency> entry : currencies.entrySet())
+        catch (Exception e)
         {
-            currenciesArray[i] = entry.getValue();
-            i++;
+            //Removing the key from the cache only makes the next request check it again, so it is removed
+            return false;
         }
-        return currenciesArray;
     }
 
 
 
 
+    /**
+     * Converts an amount without logging, returning an error code if the amount or currencies are invalid.
+     * @param from - The currency converting from, null if it does not exist
+     * @param to - The currency converting to, null if it does not exist
+     * @param amount - The amount being converted
+     * @param current - The snapshot the currencies were read from
+     * @return - The converted amount or one of the error codes of convertBatch()
+     */
+    private static double convertQuietly(Currency from, Currency to, double amount, RateSnapshot current) {
+        if(!(amount > 0))
+            return INVALID_REQUEST;
+        if(from == null)
+            return UNKNOWN_FROM_CURRENCY;
+        if(to == null)
+            return UNKNOWN_TO_CURRENCY;
+
+        double result = from.convertQuietly(to, amount, current.getCrossRates());
+        return Double.isNaN(result) ? NO_RATE : result;
+    }
+
+
+
 
     /**
-     * Initalises the database with the default currencies and conversion rates.
+     * Outlines if the currency codes of a batch conversion can be matched with the amounts.
+     * @param codes - The currency codes of the batch.
+     * @param amountCount - The number of amounts in the batch.
+     * @return - TRUE if there is a single code or one code for every amount, FALSE otherwise.
      */
-    private void initDatabase() {
-        
-        System.out.println("Initialising database with default currencies and rates.");
-        
-        //Add the default currencies
-        currencies.put("AUD", new Currency("AUD"));
-        currencies.put("USD", new Currency("USD"));
-        currencies.put("NZD", new Currency("NZD"));
-        currencies.put("GBP", new Currency("GBP"));
+    private boolean matchesBatch(String[] codes, int amountCount) {
+        return codes != null && (codes.length == 1 || codes.length == amountCount);
+    }
 
-        //Add the default rates
-        currencies.get("AUD").addRate("USD", 0.7);
-        currencies.get("AUD").addRate("NZD", 1.09);
-        currencies.get("AUD").addRate("GBP", 0.55);
 
-        //Add the inverse rates
-        currencies.get("USD").addRate("AUD", 1.0/0.7);
-        currencies.get("NZD").addRate("AUD", 1.0/1.09);
-        currencies.get("GBP").addRate("AUD", 1.0/0.5);
 
-        initialised = true;
 
-        System.out.println("SUCCESS: Successfully initialised the database.");
+
+
+    /**
+     * Compares the rates of the current snapshot with an earlier version using the recent changes, in the format of
+     * listRates() so the result can be applied to a copy of the list:
+     * - [version]                      Nothing in the list has changed.
+     * - [version, "DELTA", rows...]    Each row is a changed rate <fromCode>-<toCode>:<rate>, a removed rate
+     *                                  <fromCode>-<toCode>:REMOVED, or <code>-*:REMOVED when every rate to and from
+     *                                  the currency was removed, which is listed before the other rows.
+     * - [version, "FULL", rows...]     The changes are no longer kept, or the version is from before the service was
+     *                                  restarted (another epoch), the rows replace the whole list.
+     * @param sinceVersion - The version of the rates the caller has.
+     * @param currencyCode - The currency to compare the rates from, null to compare every rate.
+     * @return - The current version followed by the changes, if any.
+     */
+    private String[] ratesIfChanged(long sinceVersion, String currencyCode) {
+
+        //Read the rates and the changes up to the same version
+        RateSnapshot current = snapshot;
+        String version = Long.toString(current.getVersion());
+        if(sinceVersion == current.getVersion())
+            return new String[] { version };
+        List<RateFeed.Event> changes = rateFeed.changesBetween(sinceVersion, current.getVersion());
+        String code = currencyCode == null ? null : currencyCode.toUpperCase();
+
+        //Find the currencies removed and the rates changed in both directions, only from the currency if there is one
+        LinkedHashSet<String> removedCurrencies = new LinkedHashSet<>();
+        LinkedHashMap<String, String[]> changedRates = new LinkedHashMap<>();   //<FromCode-ToCode, [FromCode, ToCode]>
+        boolean isFull = changes == null;
+        for(int i = 0; !isFull && i < changes.size(); i++)
+        {
+            RateChange change = changes.get(i).getChange();
+            String from = change.getFromCurrencyCode();
+            String to = change.getToCurrencyCode();
+            if(change.getType() == RateChange.REMOVE_CURRENCY)
+            {
+                //A removed currency is listed again in full rather than as a delta of itself
+                if(code == null)
+                    removedCurrencies.add(from);
+                else if(code.equals(from))
+                    isFull = true;
+                else if(changes.get(i).removedRateWith(code))
+                {
+                    //The rate with the removed currency has no change of its own, so it is compared like a changed rate
+                    changedRates.put(code + "-" + from, new String[] { code, from });
+                }
+            }
+            else if(change.isRateChange())
+            {
+                if(code == null || code.equals(from))
+                    changedRates.put(from + "-" + to, new String[] { from, to });
+                if(code == null || code.equals(to))
+                    changedRates.put(to + "-" + from, new String[] { to, from });
+            }
+        }
+
+        ArrayList<String> result = new ArrayList<>();
+        result.add(version);
+        if(isFull)
+        {
+            result.add("FULL");
+            if(code == null)
+            {
+                String[] ratesList = current.getListedRates();
+                if(ratesList == null)
+                {
+                    ratesList = buildRatesList(current);
+                    current.setListedRates(ratesList);
+                }
+                result.addAll(Arrays.asList(ratesList));
+            }
+            else if(current.getCurrency(code) != null)
+                result.addAll(Arrays.asList(current.getCurrency(code).getRates(current.getCurrencyMatrix())));
+            return result.toArray(new String[0]);
+        }
+
+        //Adding a currency does not change any rate, so only the version is returned
+        if(removedCurrencies.isEmpty() && changedRates.isEmpty())
+            return result.toArray(new String[0]);
+
+        result.add("DELTA");
+        for(String removed : removedCurrencies)
+            result.add(removed + "-*:REMOVED");
+        for(String[] pair : changedRates.values())
+        {
+            Currency from = current.getCurrency(pair[0]);
+            Currency to = current.getCurrency(pair[1]);
+            double rate = Double.NaN;
+            if(from != null && to != null && to.getId() < from.getRateRow().length)
+                rate = from.getRateRow()[to.getId()];
+            result.add(pair[0] + "-" + pair[1] + ":" + (Double.isNaN(rate) ? "REMOVED" : String.format("%.4f", rate)));
+        }
+        return result.toArray(new String[0]);
+    }
+
+
+
+
+
+
+    /**
+     * Builds the list of every rate in a snapshot. Currencies which have not changed since the rates were last
+     * listed reuse their formatted rates, so only the changed currencies are formatted again.
+     * @param current - The snapshot to list the rates of.
+     * @return - A String[] containing the formatted rates of every currency, ordered by currency id.
+     */
+    private String[] buildRatesList(RateSnapshot current) {
+
+        //Get the formatted rates of every tradeable currency and count them
+        Currency[] allCurrencies = getAllCurrencies(current);
+        String[][] currencyRates = new String[allCurrencies.length][];
+        int count = 0;
+        for (int i = 0; i < allCurrencies.length; i++)
+        {
+            //If the currency does not contain any rates move onto the next currency
+            if(!allCurrencies[i].isTradable())
+                continue;
+
+            currencyRates[i] = allCurrencies[i].getRates(current.getCurrencyMatrix());
+            count += currencyRates[i].length;
+        }
+
+        //Copy the rates of each currency into a single array
+        String[] ratesList = new String[count];
+        int position = 0;
+        for (String[] rates : currencyRates)
+        {
+            if(rates == null)
+                continue;
+            System.arraycopy(rates, 0, ratesList, position, rates.length);
+            position += rates.length;
+        }
+        return ratesList;
+    }
+
+
+
+
+
+
+    /**
+     * Gets all the currencies from a snapshot of the database.
+     * @param current - The snapshot to read the currencies from.
+     * @return - A Currency array of all the currencies in the database.
+     * An empty array if the database is empty
+     */
+    private Currency[] getAllCurrencies(RateSnapshot current) {
+        //If there is no currencies in the database return null
+        if(current.isEmpty())
+        {
+            Log.warn("ERROR: There is no currencies in the database.");
+            return new Currency[0];
+        }
+        
+        //Copy the currencies into an array
+        return current.getCurrencies().toArray(new Currency[0]);
+    }
+
+
+
+
+    /**
+     * Makes a change to the database and saves it in the rate log. The change is made and appended to the log while
+     * holding the write lock, so a rate and its inverse rate are changed together and the log has the same order as
+     * the snapshots. The request then waits outside the lock until the change has been saved, so the changes of
+     * requests made at the same time are saved together.
+     * @param change - The change to make.
+     * @return - TRUE if the change was made, FALSE otherwise.
+     */
+    private static boolean change(RateChange change) {
+        //Never make a change which can not be saved in the rate log
+        if(!RateLog.canAppend(change))
+        {
+            Log.warn("ERROR: The currency code is too long to be saved.");
+            return false;
+        }
+
+        long sequence;
+        boolean isCheckpointDue = false;
+        synchronized (writeLock)
+        {
+            //The rates of a removed currency are removed with it, the feed records which currencies they were with
+            String[] removedRates = change.getType() == RateChange.REMOVE_CURRENCY ? ratedCodes(change.getFromCurrencyCode()) : new String[0];
+            if(!apply(change))
+                return false;
+            sequence = rateLog.append(change);
+            rateFeed.publish(snapshot.getVersion(), change, removedRates);
+
+            //Start a checkpoint once enough changes have been logged, unless one is already being written
+            changesSinceCheckpoint++;
+            if(changesSinceCheckpoint >= CHECKPOINT_INTERVAL && !isCheckpointing)
+            {
+                isCheckpointDue = true;
+                isCheckpointing = true;
+                changesSinceCheckpoint = 0;
+            }
+        }
+        rateLog.awaitDurable(sequence);
+
+        //The checkpoint is written in the background so the request does not wait for it
+        if(isCheckpointDue)
+        {
+            checkpointWriter.execute(new Runnable() {
+                public void run() {
+                    writeCheckpoint();
+                }
+            });
+        }
+        return true;
+    }
+
+
+
+
+    /**
+     * Gets the codes of the currencies a currency has a rate with, which are removed with the currency.
+     * Must be called while holding the write lock.
+     * @param currencyCode - The currency code.
+     * @return - The upper case currency codes, empty if the currency does not exist.
+     */
+    private static String[] ratedCodes(String currencyCode) {
+        Currency currency = snapshot.getCurrency(currencyCode);
+        if(currency == null)
+            return new String[0];
+
+        Currency[] currencies = snapshot.getCurrencyMatrix();
+        double[] row = currency.getRateRow();
+        ArrayList<String> codes = new ArrayList<>();
+        for(int id = 0; id < row.length && id < currencies.length; id++)
+        {
+            if(!Double.isNaN(row[id]) && currencies[id] != null)
+                codes.add(currencies[id].getCode());
+        }
+        return codes.toArray(new String[0]);
+    }
+
+
+
+
+    /**
+     * Makes a change to the database without saving it, used to replay the rate log.
+     * Must be called while holding the write lock.
+     * @param change - The change to make.
+     * @return - TRUE if the change was made, FALSE otherwise.
+     */
+    private static boolean apply(RateChange change) {
+        switch(change.getType())
+        {
+            case RateChange.ADD_CURRENCY:
+                return applyAddCurrency(change.getFromCurrencyCode());
+            case RateChange.REMOVE_CURRENCY:
+                return applyRemoveCurrency(change.getFromCurrencyCode());
+            case RateChange.ADD_RATE:
+                return applyAddRate(change.getFromCurrencyCode(), change.getToCurrencyCode(), change.getRate());
+            case RateChange.UPDATE_RATE:
+                return applyUpdateRate(change.getFromCurrencyCode(), change.getToCurrencyCode(), change.getRate());
+            case RateChange.REMOVE_RATE:
+                return applyRemoveRate(change.getFromCurrencyCode(), change.getToCurrencyCode());
+            default:
+                return false;
+        }
+    }
+
+
+
+
+    /**
+     * Adds a new currency to the next snapshot and publishes it.
+     * Must be called while holding the write lock.
+     * @param currencyCode - The currency code.
+     * @return - TRUE if the change was made, FALSE otherwise.
+     */
+    private static boolean applyAddCurrency(String currencyCode) {
+
+        //Convert to uppercase so the code is stored the same way for every currency
+        currencyCode = currencyCode.toUpperCase();
+        
+        //Confirm the currency code does not already exist within the database and add the currency
+        if(snapshot.containsCurrency(currencyCode))
+        {
+            Log.warn("ERROR: Cannot execute addCurrency() because the currency code you are trying to add already exists");
+            return false;
+        }
+        
+        //Give the currency the first unused id, growing the rate matrix if every id is used
+        Currency[] next = snapshot.copyCurrencies();
+        int id = 0;
+        while(id < next.length && next[id] != null)
+            id++;
+        if(id == next.length)
+            next = Arrays.copyOf(next, Math.max(MIN_CAPACITY, next.length * 2));
+
+        //Add the currency to the next snapshot and publish it
+        next[id] = new Currency(currencyCode, id, next.length);
+        publish(next, snapshot.getCodes().with(currencyCode, id));
+        return true;
+    }
+
+
+
+
+    /**
+     * Removes a currency and every rate to the currency and publishes the next snapshot.
+     * Must be called while holding the write lock.
+     * @param currencyCode - The currency code.
+     * @return - TRUE if the change was made, FALSE otherwise.
+     */
+    private static boolean applyRemoveCurrency(String currencyCode) {
+
+        //Check the currency code passed in exists
+        Currency removed = snapshot.getCurrency(currencyCode);
+        if(removed == null)
+        {
+            Log.warn("ERROR: Cannot execute removeCurrency() because the currencyCode does not exist in the database.");
+            return false;
+        }
+        
+        //The currency exists, remove from the next snapshot so its id can be reused
+        Currency[] next = snapshot.copyCurrencies();
+        next[removed.getId()] = null;
+
+        //Get all the other currencies in the DB and remove the rate from a copy of each
+        for (Currency currency : snapshot.getCurrencies()) {
+            if(currency != removed && currency.containsRate(removed))
+                copyForChange(next, currency).removeRate(removed);
+        }
+        publish(next, snapshot.getCodes().without(removed.getCode()));
+        
+        Log.debug("SUCCESS: Currency successfully removed.");
+        return true;
+    }
+
+
+
+
+    /**
+     * Adds a rate and its inverse rate and publishes the next snapshot.
+     * Must be called while holding the write lock.
+     * @param fromCurrencyCode - The currency code the conversion is from.
+     * @param toCurrencyCode - The currency code the conversion is to.
+     * @param conversionRate - The rate at which the two currencies are converted.
+     * @return - TRUE if the change was made, FALSE otherwise.
+     */
+    private static boolean applyAddRate(String fromCurrencyCode, String toCurrencyCode, double conversionRate) {
+
+        //Confirm the the currency codes exist in the database
+        Currency currency = snapshot.getCurrency(fromCurrencyCode);
+        if(currency == null)
+        {
+            Log.warn("ERROR: Cannot execute addRate() because the fromCurrencyCode does not exist in the database.");
+            return false;
+        }
+        Currency inverseCurrency = snapshot.getCurrency(toCurrencyCode);
+        if(inverseCurrency == null)
+        {
+            Log.warn("ERROR: Cannot execute addRate() because the toCurrencyCode does not exist in the database.");
+            return false;
+        }
+
+        //Confirm the inverse rate does not already exist so the rate is never added without its inverse
+        if(inverseCurrency.containsRate(currency))
+        {
+            Log.warn("ERROR: Cannot execute addRate() because the inverse rate already exists.");
+            return false;
+        }
+
+        //Make the changes to copies of the currencies in the next snapshot
+        Currency[] next = snapshot.copyCurrencies();
+        currency = copyForChange(next, currency);
+        inverseCurrency = copyForChange(next, inverseCurrency);
+
+        //Add the rate to the currency
+        boolean isSuccessful = false;
+        isSuccessful = currency.addRate(inverseCurrency, conversionRate);
+
+        //If the rate was successfully added to the currency add the inverse rate to the other currency
+        if(isSuccessful)
+        {
+            double inverseRate = 1.0/conversionRate;
+            isSuccessful = inverseCurrency.addRate(currency, inverseRate);
+        }
+
+        //Publish the next snapshot only if both rates were changed
+        if(isSuccessful)
+            publish(next, snapshot.getCodes());
+        return isSuccessful;
+    }
+
+
+
+
+    /**
+     * Updates a rate and its inverse rate and publishes the next snapshot.
+     * Must be called while holding the write lock.
+     * @param fromCurrencyCode - The currency code the conversion is from.
+     * @param toCurrencyCode - The currency code the conversion is to.
+     * @param rate - The new rate at which the two currencies are converted.
+     * @return - TRUE if the change was made, FALSE otherwise.
+     */
+    private static boolean applyUpdateRate(String fromCurrencyCode, String toCurrencyCode, double rate) {
+
+        //Confirm the the currency codes exist in the database
+        Currency currency = snapshot.getCurrency(fromCurrencyCode);
+        if(currency == null)
+        {
+            Log.warn("ERROR: Cannot execute updateRate() because the fromCurrencyCode does not exist in the database.");
+            return false;
+        }
+        Currency inverseCurrency = snapshot.getCurrency(toCurrencyCode);
+        if(inverseCurrency == null)
+        {
+            Log.warn("ERROR: Cannot execute updateRate() because the toCurrencyCode does not exist in the database.");
+            return false;
+        }
+
+        //Confirm the inverse rate exists so the rate is never updated without its inverse
+        if(!inverseCurrency.containsRate(currency))
+        {
+            Log.warn("ERROR: Cannot execute updateRate() because the inverse rate does not exist.");
+            return false;
+        }
+
+        //Make the changes to copies of the currencies in the next snapshot
+        Currency[] next = snapshot.copyCurrencies();
+        currency = copyForChange(next, currency);
+        inverseCurrency = copyForChange(next, inverseCurrency);
+
+        //update the rate of the currency
+        boolean isSuccessful = false;
+        isSuccessful = currency.updateRate(inverseCurrency, rate);
+
+        //If the update was successful update the inverse
+        if(isSuccessful)
+        {
+            double inverseRate = 1.0/rate;
+            isSuccessful = inverseCurrency.updateRate(currency, inverseRate);
+        }
+
+        //Publish the next snapshot only if both rates were changed
+        if(isSuccessful)
+            publish(next, snapshot.getCodes());
+        return isSuccessful;
+    }
+
+
+
+
+    /**
+     * Removes a rate and its inverse rate and publishes the next snapshot.
+     * Must be called while holding the write lock.
+     * @param fromCurrencyCode - The currency code the conversion is from.
+     * @param toCurrencyCode - The currency code the conversion is to.
+     * @return - TRUE if the change was made, FALSE otherwise.
+     */
+    private static boolean applyRemoveRate(String fromCurrencyCode, String toCurrencyCode) {
+
+        //Confirm the the currency codes exist in the database
+        Currency removeFrom = snapshot.getCurrency(fromCurrencyCode);
+        if(removeFrom == null)
+        {
+            Log.warn("ERROR: Cannot execute removeRate() because the fromCurrencyCode does not exist in the database.");
+            return false;
+        }
+        Currency inverse = snapshot.getCurrency(toCurrencyCode);
+        if(inverse == null)
+        {
+            Log.warn("ERROR: Cannot execute removeRate() because the toCurrencyCode does not exist in the database.");
+            return false;
+        }
+
+        //Confirm the inverse rate exists so the rate is never removed without its inverse
+        if(!inverse.containsRate(removeFrom))
+        {
+            Log.warn("ERROR: Cannot execute removeRate() because the inverse rate does not exist.");
+            return false;
+        }
+
+        //Make the changes to copies of the currencies in the next snapshot
+        Currency[] next = snapshot.copyCurrencies();
+        removeFrom = copyForChange(next, removeFrom);
+        inverse = copyForChange(next, inverse);
+
+        //Remove the rate from the currency
+        boolean isSuccessful = removeFrom.removeRate(inverse);
+
+        //Remove the inverse rate
+        if(isSuccessful)
+            isSuccessful = inverse.removeRate(removeFrom);
+
+        //Publish the next snapshot only if both rates were changed
+        if(isSuccessful)
+            publish(next, snapshot.getCodes());
+        return isSuccessful;
+    }
+
+
+
+
+    /**
+     * Copies a currency into the next snapshot so it can be changed without affecting the published snapshot.
+     * A currency which has already been copied into the next snapshot is not copied again.
+     * Must be called while holding the write lock.
+     * @param next - The currencies of the next snapshot indexed by id.
+     * @param currency - The published currency to copy.
+     * @return - The copy of the currency in the next snapshot.
+     */
+    private static Currency copyForChange(Currency[] next, Currency currency) {
+        if(next[currency.getId()] != currency)
+            return next[currency.getId()];
+
+        Currency copy = new Currency(currency);
+        next[currency.getId()] = copy;
+        return copy;
+    }
+
+
+
+
+    /**
+     * Publishes the next snapshot with a higher version so it is used by all following requests.
+     * The cross rates which depend on the changed currencies are recalculated before the snapshot is published.
+     * Must be called while holding the write lock.
+     * @param next - The currencies of the next snapshot indexed by id.
+     * @param nextCodes - The ids of the currencies in the next snapshot.
+     */
+    private static void publish(Currency[] next, CurrencyCodes nextCodes) {
+        CrossRates nextCrossRates = snapshot.getCrossRates().update(snapshot.getCurrencyMatrix(), next);
+        snapshot = new RateSnapshot(snapshot.getVersion() + 1, next, nextCodes, nextCrossRates);
+    }
+
+
+
+
+
+    /**
+     * Writes a checkpoint of the current snapshot so the changes before it do not need to be replayed when the
+     * service is restarted. The checkpoint is only written once every change it includes has been saved in the log,
+     * so the log always reaches the position the checkpoint replays from.
+     */
+    private static void writeCheckpoint() {
+        RateSnapshot current;
+        long position;
+        long sequence;
+        synchronized (writeLock)
+        {
+            current = snapshot;
+            position = rateLog.getPosition();
+            sequence = rateLog.getSequence();
+        }
+        rateLog.awaitDurable(sequence);
+
+        try
+        {
+            if(!CHECKPOINT_FILE.isEmpty() && rateLog.isOpen())
+            {
+                RateCheckpoint.write(CHECKPOINT_FILE, current, rateLog.getId(), position);
+                Log.debug("SUCCESS: Wrote a checkpoint of version " + current.getVersion() + " of the rates.");
+            }
+        }
+        catch (IOException e)
+        {
+            Log.error("ERROR: The rate checkpoint " + CHECKPOINT_FILE + " could not be written: " + e.getMessage());
+        }
+        finally
+        {
+            synchronized (writeLock)
+            {
+                isCheckpointing = false;
+            }
+        }
+    }
+
+
+
+
+
+    /**
+     * Loads the database from the latest checkpoint and replays the changes in the rate log made after it, or
+     * replays the whole log if there is no checkpoint which was taken from the log.
+     * If the log is empty the database is initialised with the default currencies and rates, which are then
+     * written to the log as the first changes.
+     */
+    private static void loadDatabase() {
+
+        RateCheckpoint checkpoint = CHECKPOINT_FILE.isEmpty() ? null : RateCheckpoint.read(CHECKPOINT_FILE);
+        List<RateChange> changes = rateLog.open(checkpoint);
+        boolean isFromCheckpoint = checkpoint != null && rateLog.followsCheckpoint();
+        synchronized (writeLock)
+        {
+            //Start from the checkpoint, or from an empty database where every currency and rate is added by a change
+            if(isFromCheckpoint)
+                snapshot = checkpoint.getSnapshot();
+            else
+                snapshot = new RateSnapshot(0, new Currency[MIN_CAPACITY], new CurrencyCodes(), CrossRates.EMPTY);
+
+            //Replay into a mutable code table so each added currency does not copy the table, it is frozen once replayed
+            snapshot = withCodes(snapshot, snapshot.getCodes().mutableCopy());
+            int failed = 0;
+            for(RateChange change : changes)
+            {
+                if(!apply(change))
+                    failed++;
+            }
+            snapshot = withCodes(snapshot, snapshot.getCodes().freeze());
+
+            //Number the versions after a start from a new epoch, so a version read before the restart, which may have
+            //included changes that were never saved, is never mistaken for the version of the rates after it
+            long epoch = (System.currentTimeMillis() / 1000) << EPOCH_SHIFT;
+            snapshot = new RateSnapshot(Math.max(epoch, snapshot.getVersion() + 1), snapshot.getCurrencyMatrix(), snapshot.getCodes(), snapshot.getCrossRates());
+            if(failed > 0)
+                Log.warn("ERROR: " + failed + " of the changes in the rate log could not be replayed.");
+            changesSinceCheckpoint = changes.size();
+
+            //Clients following the changes must load a snapshot of the replayed rates first
+            rateFeed.reset(snapshot.getVersion());
+        }
+
+        if(isFromCheckpoint)
+            Log.debug("SUCCESS: Read the rate checkpoint and replayed " + changes.size() + " changes from the rate log.");
+        else if(!changes.isEmpty())
+            Log.debug("SUCCESS: Replayed " + changes.size() + " changes from the rate log.");
+        else
+            initDatabase();
+
+        //Replace a checkpoint which was not taken from the log straight away, so it is never used with the log
+        if(checkpoint != null && !isFromCheckpoint)
+            writeCheckpoint();
+    }
+
+
+
+
+
+    /**
+     * Creates a copy of a snapshot with a different table of currency codes, used while replaying the rate log.
+     * @param current - The snapshot.
+     * @param codes - The codes of the currencies in the snapshot.
+     * @return - The snapshot with the codes.
+     */
+    private static RateSnapshot withCodes(RateSnapshot current, CurrencyCodes codes) {
+        return new RateSnapshot(current.getVersion(), current.getCurrencyMatrix(), codes, current.getCrossRates());
+    }
+
+
+
+
+
+    /**
+     * Initalises the database with the default currencies and conversion rates.
+     */
+    private static void initDatabase() {
+        
+        Log.debug("Initialising database with default currencies and rates.");
+        
+        //Add the default currencies
+        String[] codes = { "AUD", "USD", "NZD", "GBP" };
+        for(String code : codes)
+            change(RateChange.addCurrency(code));
+
+        //Add the default rates, the inverse rates are added with each rate
+        change(RateChange.addRate("AUD", "USD", 0.7));
+        change(RateChange.addRate("AUD", "NZD", 1.09));
+        change(RateChange.addRate("AUD", "GBP", 0.55));
+
+        Log.debug("SUCCESS: Successfully initialised the database.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+import java.io.File;
+
+/**
+* This class finds the files the Currency Service keeps its data in, such as the rate log and the rate checkpoint.
+* A relative file name is resolved against the data directory rather than the working directory, which for Tomcat
+* is wherever the server happened to be started from.
+*
+* The data directory is set by the "currency.data.dir" system property. It defaults to the "data" directory of the
+* Tomcat instance (the "catalina.base" system property), or the working directory when the service is not run by Tomcat.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class DataFiles {
+
+    //CONSTANTS
+    private static final String DIRECTORY = dataDirectory();   //The directory relative file names are resolved against
+
+
+
+
+    /**
+     * Gets the file set by a system property, resolving a relative file name against the data directory.
+     * The data directory is created if it does not exist yet.
+     * @param property - The system property which sets the file.
+     * @param defaultName - The file name used when the property is not set.
+     * @return - The path of the file, "" if the property is set to "" to disable the file.
+     */
+    public static String path(String property, String defaultName) {
+        String fileName = System.getProperty(property, defaultName);
+        if(fileName.isEmpty())
+            return "";
+
+        File file = new File(fileName);
+        if(file.isAbsolute())
+            return file.getPath();
+
+        file = new File(DIRECTORY, fileName);
+        File directory = file.getParentFile();
+        if(directory != null && !directory.isDirectory() && !directory.mkdirs())
+            Log.error("ERROR: The data directory " + directory + " could not be created.");
+        return file.getPath();
+    }
+
+
+
+
+    /**
+     * Finds the data directory.
+     * @return - The data directory.
+     */
+    private static String dataDirectory() {
+        String directory = System.getProperty("currency.data.dir");
+        if(directory != null && !directory.isEmpty())
+            return directory;
+
+        String catalinaBase = System.getProperty("catalina.base");
+        if(catalinaBase != null && !catalinaBase.isEmpty())
+            return new File(catalinaBase, "data").getPath();
+        return System.getProperty("user.dir");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,255 @@
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+* This class is the logging facade used by the Currency Service in place of System.out.println.
+*
+* Messages have a level, DEBUG for the progress of successful requests, WARN for requests which were rejected
+* and ERROR for failures of the service. Only messages at or above the configured level are logged, the level
+* defaults to WARN so nothing is logged for successful requests and can be set with the "currency.log.level"
+* system property. Messages which are built from variables should be guarded with isDebugEnabled() so the
+* message is not built when it will not be logged.
+*
+* Logged messages are added to a lock free ring buffer and written to System.out by a single background thread,
+* so request threads never wait on the synchronised System.out. If the ring buffer is full the message is dropped
+* and counted rather than blocking the request. The writer parks while the ring buffer is empty and is only unparked
+* by a request thread which adds a message while it is parked, so an idle service does not wake it up at all.
+*
+* The writer is stopped by shutdown(), which the LogListener of the webapp calls when the webapp is undeployed so
+* the thread does not keep the classes of the webapp loaded.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class Log {
+
+    //CONSTANTS
+    public static final int DEBUG = 0;
+    public static final int WARN = 1;
+    public static final int ERROR = 2;
+    public static final int OFF = 3;
+    private static final int CAPACITY = 8192;                   //The number of messages the ring buffer can hold, must be a power of two
+    private static final long SHUTDOWN_WAIT_MILLIS = 1000;      //How long shutdown() waits for the waiting messages to be written
+
+    private static volatile int level = parseLevel(System.getProperty("currency.log.level", "WARN"));
+
+    private static final AtomicReferenceArray<String> ring = new AtomicReferenceArray<>(CAPACITY);  //The messages waiting to be written
+    private static final AtomicLong tail = new AtomicLong();     //The position of the next message to be added by a request thread
+    private static volatile long head = 0;                       //The position of the next message to be written, only changed by the writer
+    private static final AtomicLong dropped = new AtomicLong();  //The number of messages dropped because the ring buffer was full
+    private static volatile boolean isWriterParked = false;      //TRUE while the writer is parked or about to park, so a new message must unpark it
+    private static volatile boolean isRunning = true;            //FALSE once shutdown() has been called
+
+    //The background thread which writes the messages to System.out
+    private static final Thread writer = new Thread(new Runnable() {
+        public void run() {
+            write(System.out);
+        }
+    }, "currency-log-writer");
+
+    static {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+
+
+
+    /**
+     * Outlines if DEBUG messages are logged.
+     * @return - TRUE if DEBUG messages are logged, FALSE otherwise.
+     */
+    public static boolean isDebugEnabled() {
+        return level <= DEBUG;
+    }
+
+
+
+
+    /**
+     * Outlines if WARN messages are logged.
+     * @return - TRUE if WARN messages are logged, FALSE otherwise.
+     */
+    public static boolean isWarnEnabled() {
+        return level <= WARN;
+    }
+
+
+
+
+    /**
+     * Logs the progress of a successful request.
+     * @param message - The message to log.
+     */
+    public static void debug(String message) {
+        if(level <= DEBUG)
+            append(message);
+    }
+
+
+
+
+    /**
+     * Logs a request which was rejected, for example because a currency does not exist.
+     * @param message - The message to log.
+     */
+    public static void warn(String message) {
+        if(level <= WARN)
+            append(message);
+    }
+
+
+
+
+    /**
+     * Logs a failure of the service.
+     * @param message - The message to log.
+     */
+    public static void error(String message) {
+        if(level <= ERROR)
+            append(message);
+    }
+
+
+
+
+    /**
+     * Sets the level of the messages which are logged.
+     * @param newLevel - The level, one of DEBUG, WARN, ERROR or OFF.
+     */
+    public static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+
+
+
+    /**
+     * Stops the writer once it has written the messages which are waiting. Messages logged after this are not written.
+     */
+    public static void shutdown() {
+        isRunning = false;
+        LockSupport.unpark(writer);
+        try
+        {
+            writer.join(SHUTDOWN_WAIT_MILLIS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+
+
+    /**
+     * Gets the number of messages which have been dropped because the ring buffer was full.
+     * @return - The number of dropped messages.
+     */
+    public static long getDropped() {
+        return dropped.get();
+    }
+
+
+
+
+    /**
+     * Adds a message to the ring buffer, or drops the message if the ring buffer is full.
+     * @param message - The message to add.
+     */
+    private static void append(String message) {
+
+        //Claim the next position, giving up if the writer has not yet written the message CAPACITY positions behind
+        long position;
+        do
+        {
+            position = tail.get();
+            if(position - head >= CAPACITY)
+            {
+                dropped.incrementAndGet();
+                return;
+            }
+        }
+        while(!tail.compareAndSet(position, position + 1));
+
+        ring.set(index(position), message);
+
+        //Wake the writer if it has run out of messages, the writer checks the ring buffer again after saying it will park
+        if(isWriterParked)
+            LockSupport.unpark(writer);
+    }
+
+
+
+
+    /**
+     * Writes the messages in the ring buffer in order until shutdown() is called.
+     * @param out - The stream the messages are written to.
+     */
+    private static void write(PrintStream out) {
+        StringBuilder batch = new StringBuilder();
+        while(isRunning || ring.get(index(head)) != null)
+        {
+            //Take every message which is ready, a claimed position may not have its message yet
+            String message;
+            while((message = ring.get(index(head))) != null)
+            {
+                ring.set(index(head), null);
+                head = head + 1;
+                batch.append(message).append(System.lineSeparator());
+            }
+
+            //Write the batch with a single call
+            if(batch.length() > 0)
+            {
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+                continue;
+            }
+
+            //Otherwise park until a message is added, checking again after saying so in case one was added meanwhile
+            isWriterParked = true;
+            if(isRunning && ring.get(index(head)) == null)
+                LockSupport.park();
+            isWriterParked = false;
+        }
+    }
+
+
+
+
+    /**
+     * Gets the index in the ring buffer of a position.
+     * @param position - The position.
+     * @return - The index of the position in the ring buffer.
+     */
+    private static int index(long position) {
+        return (int) position & (CAPACITY - 1);
+    }
+
+
+
+
+    /**
+     * Converts the name of a level into the level.
+     * @param name - The name of the level, DEBUG, WARN, ERROR or OFF.
+     * @return - The level, WARN if the name is not recognised.
+     */
+    private static int parseLevel(String name) {
+        switch (name.trim().toUpperCase())
+        {
+            case "DEBUG":
+                return DEBUG;
+            case "ERROR":
+                return ERROR;
+            case "OFF":
+                return OFF;
+            default:
+                return WARN;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+* Stops the writer thread of the Log when the Currency Service is undeployed, so the thread does not keep running
+* and keep the classes of the webapp loaded. Registered as the first listener in web.xml so it is stopped after
+* the other listeners, which may still log while they stop.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class LogListener implements ServletContextListener {
+
+
+
+
+    /**
+     * The writer is started when the Log is first used, so there is nothing to start.
+     * @param event - The webapp being started.
+     */
+    public void contextInitialized(ServletContextEvent event) {
+    }
+
+
+
+
+    /**
+     * Writes the waiting messages and stops the writer.
+     * @param event - The webapp being stopped.
+     */
+    public void contextDestroyed(ServletContextEvent event) {
+        Log.shutdown();
+    }
+}
\ No newline at end of file
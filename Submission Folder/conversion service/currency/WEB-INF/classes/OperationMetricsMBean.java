@@ -0,0 +1,51 @@
+/**
+* The JMX management interface of an OperationMetrics, every attribute is read only.
+* Latencies are reported in microseconds.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public interface OperationMetricsMBean {
+
+    /**
+     * Gets the number of calls of the operation.
+     * @return - The number of calls.
+     */
+    public long getCalls();
+
+    /**
+     * Gets the number of calls which failed or returned an error value, such as -1, FALSE or INVALID.
+     * @return - The number of errors.
+     */
+    public long getErrors();
+
+    /**
+     * Gets the mean latency of the operation.
+     * @return - The mean latency in microseconds.
+     */
+    public double getMeanMicros();
+
+    /**
+     * Gets the highest latency of the operation.
+     * @return - The highest latency in microseconds.
+     */
+    public double getMaxMicros();
+
+    /**
+     * Gets the median latency of the operation.
+     * @return - The 50th percentile latency in microseconds.
+     */
+    public double getP50Micros();
+
+    /**
+     * Gets the 99th percentile latency of the operation.
+     * @return - The 99th percentile latency in microseconds.
+     */
+    public double getP99Micros();
+
+    /**
+     * Gets the 99.9th percentile latency of the operation.
+     * @return - The 99.9th percentile latency in microseconds.
+     */
+    public double getP999Micros();
+}
\ No newline at end of file
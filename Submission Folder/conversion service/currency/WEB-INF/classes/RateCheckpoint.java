@@ -0,0 +1,270 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+* This class represents a compact binary checkpoint of every currency and rate in the database, so the service
+* can be restarted by reading the checkpoint and replaying only the changes made to the RateLog after it.
+*
+* A checkpoint records the id of the log it was taken from and the position in the log it includes every change
+* before. The file is written to a temporary file, forced to disk and then renamed over the previous checkpoint,
+* so a crash while writing leaves the previous checkpoint in place. The file is read by memory mapping it, and
+* is laid out so it can be read in a single pass:
+* - int      The magic number and the format version
+* - long     The id of the log and the position in the log
+* - long     The version of the snapshot
+* - int      The capacity of the rate matrix and the number of currencies
+* - The code table, for each currency: int id, short length, the UTF-8 bytes of the code
+* - The rate matrix, for each currency in the same order: int number of rates, then int toId and double rate of each rate
+* - int      The CRC32 checksum of every byte before it
+*
+* Only the rates which exist are stored, so a database with thousands of currencies and a few rates for each
+* has a checkpoint of a few hundred kilobytes rather than the size of the whole matrix.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class RateCheckpoint {
+
+    //CONSTANTS
+    private static final int MAGIC = 0x52434B50;            //"RCKP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int CHECKSUM_SIZE = 4;
+
+    private final long logId;               //The id of the log the checkpoint was taken from
+    private final long logPosition;         //The position in the log after the last change included in the checkpoint
+    private final RateSnapshot snapshot;    //The currencies and rates in the checkpoint
+
+
+
+
+    /**
+     * Default constructor - Creates a checkpoint read from a file.
+     * @param logId - The id of the log the checkpoint was taken from.
+     * @param logPosition - The position in the log after the last change included in the checkpoint.
+     * @param snapshot - The currencies and rates in the checkpoint.
+     */
+    public RateCheckpoint(long logId, long logPosition, RateSnapshot snapshot) {
+        this.logId = logId;
+        this.logPosition = logPosition;
+        this.snapshot = snapshot;
+    }
+
+
+
+
+    /**
+     * Gets the id of the log the checkpoint was taken from.
+     * @return - The id of the log.
+     */
+    public long getLogId() {
+        return logId;
+    }
+
+
+
+
+    /**
+     * Gets the position in the log after the last change included in the checkpoint.
+     * @return - The position in the log.
+     */
+    public long getLogPosition() {
+        return logPosition;
+    }
+
+
+
+
+    /**
+     * Gets the currencies and rates in the checkpoint.
+     * @return - The snapshot of the checkpoint.
+     */
+    public RateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+
+
+
+    /**
+     * Writes a checkpoint of a snapshot, replacing the previous checkpoint only once the new one is on disk.
+     * @param fileName - The file of the checkpoint.
+     * @param snapshot - The snapshot to write.
+     * @param logId - The id of the log the snapshot was taken from.
+     * @param logPosition - The position in the log after the last change included in the snapshot.
+     * @throws IOException If the checkpoint could not be written, the previous checkpoint is left in place.
+     */
+    public static void write(String fileName, RateSnapshot snapshot, long logId, long logPosition) throws IOException {
+        Path file = Paths.get(fileName);
+        Path temporary = Paths.get(fileName + ".tmp");
+        Currency[] currencies = snapshot.getCurrencyMatrix();
+
+        //Count the currencies so the reader can size the code table before reading it
+        int currencyCount = 0;
+        for(Currency currency : currencies)
+        {
+            if(currency != null)
+                currencyCount++;
+        }
+
+        try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            CRC32 checksum = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)), checksum));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(logId);
+            out.writeLong(logPosition);
+            out.writeLong(snapshot.getVersion());
+            out.writeInt(currencies.length);
+            out.writeInt(currencyCount);
+
+            //Write the code table
+            for(Currency currency : currencies)
+            {
+                if(currency == null)
+                    continue;
+                byte[] code = currency.getCode().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(currency.getId());
+                out.writeShort(code.length);
+                out.write(code);
+            }
+
+            //Write the rate matrix, only the rates which exist are written
+            for(Currency currency : currencies)
+            {
+                if(currency == null)
+                    continue;
+                double[] rates = currency.getRateRow();
+                out.writeInt(countRates(rates));
+                for(int toId = 0; toId < rates.length; toId++)
+                {
+                    if(Double.isNaN(rates[toId]))
+                        continue;
+                    out.writeInt(toId);
+                    out.writeDouble(rates[toId]);
+                }
+            }
+
+            //The checksum does not include itself
+            out.flush();
+            out.writeInt((int) checksum.getValue());
+            out.flush();
+            channel.force(true);
+        }
+
+        //Replace the previous checkpoint in a single step
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+
+
+
+    /**
+     * Reads a checkpoint by memory mapping the file.
+     * @param fileName - The file of the checkpoint.
+     * @return - The checkpoint, null if the file does not exist or is not a complete checkpoint.
+     */
+    public static RateCheckpoint read(String fileName) {
+        try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.limit() < CHECKSUM_SIZE)
+                throw new IOException("the file is too short");
+
+            //Confirm the checksum before reading anything else
+            int end = buffer.limit() - CHECKSUM_SIZE;
+            ByteBuffer content = buffer.duplicate();
+            content.limit(end);
+            CRC32 checksum = new CRC32();
+            checksum.update(content);
+            if((int) checksum.getValue() != buffer.getInt(end))
+                throw new IOException("the checksum does not match");
+
+            if(buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+                throw new IOException("the file is not a rate checkpoint");
+            long logId = buffer.getLong();
+            long logPosition = buffer.getLong();
+            long version = buffer.getLong();
+            int capacity = buffer.getInt();
+            int currencyCount = buffer.getInt();
+
+            //Read the code table
+            int[] ids = new int[currencyCount];
+            String[] codes = new String[currencyCount];
+            for(int i = 0; i < currencyCount; i++)
+            {
+                ids[i] = buffer.getInt();
+                byte[] code = new byte[buffer.getShort()];
+                buffer.get(code);
+                codes[i] = new String(code, StandardCharsets.UTF_8);
+            }
+
+            //Read the rate matrix, each row is only as long as the highest id it has a rate to
+            Currency[] currencies = new Currency[capacity];
+            for(int i = 0; i < currencyCount; i++)
+            {
+                int count = buffer.getInt();
+                int[] toIds = new int[count];
+                double[] values = new double[count];
+                int length = 0;
+                for(int r = 0; r < count; r++)
+                {
+                    toIds[r] = buffer.getInt();
+                    values[r] = buffer.getDouble();
+                    length = Math.max(length, toIds[r] + 1);
+                }
+
+                double[] rates = new double[length];
+                Arrays.fill(rates, Double.NaN);
+                for(int r = 0; r < count; r++)
+                    rates[toIds[r]] = values[r];
+                currencies[ids[i]] = new Currency(codes[i], ids[i], rates);
+            }
+
+            RateSnapshot snapshot = new RateSnapshot(version, currencies, CurrencyCodes.of(currencies), CrossRates.EMPTY.update(new Currency[0], currencies));
+            return new RateCheckpoint(logId, logPosition, snapshot);
+        }
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Log.warn("ERROR: The rate checkpoint " + fileName + " could not be read, the whole rate log will be replayed: " + e.getMessage());
+            return null;
+        }
+    }
+
+
+
+
+    /**
+     * Counts the rates in a row of the rate matrix.
+     * @param rates - The rates indexed by the id of the toCurrency, NaN if there is no rate.
+     * @return - The number of rates.
+     */
+    private static int countRates(double[] rates) {
+        int count = 0;
+        for(double rate : rates)
+        {
+            if(!Double.isNaN(rate))
+                count++;
+        }
+        return count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+* This class stores the signed session tokens which have been revoked by the Identity Service.
+* Session tokens are verified locally by the Currency Service, so a token which has been logged out
+* is still correctly signed and must be rejected using this list until it expires.
+*
+* Expired tokens are removed in a sweep once the list has doubled in size since the last sweep, so a burst of logouts
+* does not scan the whole list for every logout. An expired token which has not been swept yet is still rejected by
+* SessionToken.verify(), so keeping it a little longer does not change which tokens are accepted.
+*
+* IMPORTANT NOTE: The revoked tokens are not persistent, so when the server is restarted
+* logged out tokens are accepted again until they expire.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class RevokedTokens {
+
+    //CONSTANTS
+    private static final int MIN_SWEEP_SIZE = 1024;     //The smallest number of revoked tokens which are swept
+
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();  //The revoked tokens <Token, ExpiresAt>
+    private volatile int sweepSize = MIN_SWEEP_SIZE;    //The number of revoked tokens at which the expired tokens are next removed
+
+
+
+
+    /**
+     * Revokes the session token until it expires.
+     * Tokens which have already expired are swept from the list once it has grown large enough.
+     * @param token - The session token to revoke.
+     * @return - TRUE if the token was revoked, FALSE if it is not a valid token.
+     */
+    public boolean revoke(String token) {
+
+        //A forged or expired token is already rejected, so only tokens which verify are stored
+        if(!SessionToken.verify(token))
+            return false;
+
+        long now = System.currentTimeMillis();
+        revoked.put(token, SessionToken.expiresAt(token));
+        if(revoked.size() >= sweepSize)
+            sweep(now);
+        return true;
+    }
+
+
+
+
+    /**
+     * Outlines if the session token has been revoked.
+     * @param token - The session token to check.
+     * @return - TRUE if the token has been revoked, FALSE otherwise.
+     */
+    public boolean isRevoked(String token) {
+        return revoked.containsKey(token);
+    }
+
+
+
+
+    /**
+     * Removes the tokens which have expired since they were revoked, and waits for the list to double
+     * in size before sweeping it again.
+     * @param now - The current time in milliseconds.
+     */
+    private synchronized void sweep(long now) {
+
+        //Another logout may have swept the list while this one was waiting
+        if(revoked.size() < sweepSize)
+            return;
+
+        Iterator<Map.Entry<String, Long>> iterator = revoked.entrySet().iterator();
+        while(iterator.hasNext())
+        {
+            if(iterator.next().getValue() <= now)
+                iterator.remove();
+        }
+        sweepSize = Math.max(MIN_SWEEP_SIZE, revoked.size() * 2);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+* This class issues and verifies signed session tokens. A session token contains the username,
+* the time it was issued, the time it expires and the id of the key used to sign it, and is signed
+* with a HMAC using a secret shared by the Identity Service and the Currency Service. This allows
+* the Currency Service to authorise a session token locally without calling the Authorisation endpoint.
+*
+* Token mode is optional and is only enabled when the "session.token.secret" system property is set.
+* The key id defaults to "k1" and can be set with "session.token.keyId", and the lifetime of a token
+* defaults to one hour and can be set in milliseconds with "session.token.lifetime".
+*
+* Tokens are in the format: <keyId>.<username>.<issuedAt>.<expiresAt>.<nonce>.<signature>
+* The username, nonce and signature are Base64 URL encoded so the token never contains extra dots.
+*
+* The Identity Service also signs each session key it revokes, so the Currency Service only accepts revocations
+* sent by the Identity Service. The signed payload is prefixed so it can never be used as a session token.
+*
+* IMPORTANT NOTE: This class is copied into both the Identity Service and the Currency Service.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class SessionToken {
+
+    //CONSTANTS
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String SECRET = System.getProperty("session.token.secret");
+    private static final String KEY_ID = System.getProperty("session.token.keyId", "k1");
+    private static final long LIFETIME_MILLIS = Long.getLong("session.token.lifetime", 3600000L);
+    private static final int NONCE_BYTES = 9;
+    private static final int FIELD_COUNT = 6;
+    private static final String REVOCATION_PREFIX = "revoked:";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    //A Mac per thread so tokens can be signed and verified concurrently without creating a new Mac each time
+    private static final ThreadLocal<Mac> MAC = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try
+            {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+                return mac;
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw new IllegalStateException("ERROR: Could not initialise the session token signer.", e);
+            }
+        }
+    };
+
+
+
+
+    /**
+     * Outlines if token mode is enabled.
+     * @return - TRUE if the shared secret has been configured, FALSE otherwise.
+     */
+    public static boolean isEnabled() {
+        return SECRET != null && !SECRET.isEmpty();
+    }
+
+
+
+
+    /**
+     * Outlines if the session key is a session token rather than a random session key.
+     * Random session keys are alpha numeric so they never contain a dot.
+     * @param sessionKey - The session key to check.
+     * @return - TRUE if token mode is enabled and the session key is a session token, FALSE otherwise.
+     */
+    public static boolean isToken(String sessionKey) {
+        return isEnabled() && sessionKey != null && sessionKey.indexOf('.') >= 0;
+    }
+
+
+
+
+    /**
+     * Issues a new signed session token for the username.
+     * @param username - The username the token is issued to.
+     * @return - The signed session token.
+     */
+    public static String issue(String username) {
+        long issuedAt = System.currentTimeMillis();
+        byte[] nonce = new byte[NONCE_BYTES];
+        RANDOM.nextBytes(nonce);
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = KEY_ID + "." + encoder.encodeToString(username.getBytes(StandardCharsets.UTF_8))
+                         + "." + issuedAt + "." + (issuedAt + LIFETIME_MILLIS) + "." + encoder.encodeToString(nonce);
+        return payload + "." + encoder.encodeToString(sign(payload));
+    }
+
+
+
+
+    /**
+     * Verifies the session token was signed with the current key and has not expired.
+     * @param token - The session token to verify.
+     * @return - TRUE if the token is valid, FALSE otherwise.
+     */
+    public static boolean verify(String token) {
+        if(!isToken(token))
+            return false;
+
+        //Confirm the token has every field and was signed with the current key
+        String[] fields = token.split("\\.", -1);
+        if(fields.length != FIELD_COUNT || !KEY_ID.equals(fields[0]))
+            return false;
+
+        //Confirm the signature matches the rest of the token
+        try
+        {
+            String payload = token.substring(0, token.lastIndexOf('.'));
+            byte[] signature = Base64.getUrlDecoder().decode(fields[FIELD_COUNT - 1]);
+            if(!MessageDigest.isEqual(sign(payload), signature))
+                return false;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return false;
+        }
+
+        //Confirm the token has not expired
+        return expiresAt(token) > System.currentTimeMillis();
+    }
+
+
+
+
+    /**
+     * Signs a revoked session key so the Currency Service can confirm the Identity Service revoked it.
+     * @param sessionKey - The revoked session key or session token.
+     * @return - The signature of the revocation, null if token mode is not enabled.
+     */
+    public static String signRevocation(String sessionKey) {
+        if(!isEnabled())
+            return null;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sign(REVOCATION_PREFIX + sessionKey));
+    }
+
+
+
+
+    /**
+     * Verifies the revocation of a session key was signed with the shared secret.
+     * @param sessionKey - The revoked session key or session token.
+     * @param signature - The signature sent with the revocation.
+     * @return - TRUE if token mode is enabled and the signature is valid, FALSE otherwise.
+     */
+    public static boolean verifyRevocation(String sessionKey, String signature) {
+        if(!isEnabled() || sessionKey == null || signature == null)
+            return false;
+
+        try
+        {
+            return MessageDigest.isEqual(sign(REVOCATION_PREFIX + sessionKey), Base64.getUrlDecoder().decode(signature));
+        }
+        catch (IllegalArgumentException e)
+        {
+            return false;
+        }
+    }
+
+
+
+
+    /**
+     * Gets the time the session token expires.
+     * @param token - The session token.
+     * @return - The time the token expires in milliseconds, 0 if the token is malformed.
+     */
+    public static long expiresAt(String token) {
+        String[] fields = token.split("\\.", -1);
+        if(fields.length != FIELD_COUNT)
+            return 0;
+
+        try
+        {
+            return Long.parseLong(fields[3]);
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+
+
+
+    /**
+     * Signs the payload with the shared secret.
+     * @param payload - The payload to sign.
+     * @return - The HMAC of the payload.
+     */
+    private static byte[] sign(String payload) {
+        return MAC.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -9,4 +9,6 @@ package localhost.identity.Authorisation_jws;
 
 public interface Authorisation extends java.rmi.Remote {
     public boolean authorise(java.lang.String key) throws java.rmi.RemoteException;
+    public boolean[] authoriseBatch(java.lang.String[] keys) throws java.rmi.RemoteException;
+    public long[] remainingLifetimes(java.lang.String[] keys) throws java.rmi.RemoteException;
 }
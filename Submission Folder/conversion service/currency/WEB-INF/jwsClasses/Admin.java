@@ -11,6 +11,17 @@ public class Admin {
 
     private static CurrencyDatabaseInterface database = new CurrencyDatabaseInterface();
 
+    //The metrics of each operation
+    private static final OperationMetrics addCurrencyMetrics = Metrics.operation("Admin.addCurrency");
+    private static final OperationMetrics removeCurrencyMetrics = Metrics.operation("Admin.removeCurrency");
+    private static final OperationMetrics listCurrenciesMetrics = Metrics.operation("Admin.listCurrencies");
+    private static final OperationMetrics conversionsForMetrics = Metrics.operation("Admin.conversionsFor");
+    private static final OperationMetrics conversionsForIfChangedMetrics = Metrics.operation("Admin.conversionsForIfChanged");
+    private static final OperationMetrics addRateMetrics = Metrics.operation("Admin.addRate");
+    private static final OperationMetrics updateRateMetrics = Metrics.operation("Admin.updateRate");
+    private static final OperationMetrics removeRateMetrics = Metrics.operation("Admin.removeRate");
+    private static final OperationMetrics listRatesMetrics = Metrics.operation("Admin.listRates");
+
     /**
      * Adds a new currency to be converted by the Currency Service.
      * @param - sessionKey - The users session key.
@@ -19,8 +30,12 @@ public class Admin {
      * @throws AuthenticationException If the session key does not exist
      */
     public boolean addCurrency(String sessionKey, String currencyCode) throws AuthenticationException {
-        System.out.println("\nAdmin Endpoint - Executing addCurrency()");
-        return database.addCurrency(sessionKey, currencyCode);
+        Log.debug("\nAdmin Endpoint - Executing addCurrency()");
+        try(OperationMetrics.Call call = addCurrencyMetrics.start())
+        {
+            boolean result = database.addCurrency(sessionKey, currencyCode);
+            return call.returns(result, !result);
+        }
     }
 
     /**
@@ -31,8 +46,12 @@ public class Admin {
      * @throws AuthenticationException If the session key does not exist
      */
     public boolean removeCurrency(String sessionKey, String currencyCode) throws AuthenticationException {
-        System.out.println("\nAdmin Endpoint - Executing removeCurrency()");
-        return database.removeCurrency(sessionKey, currencyCode);
+        Log.debug("\nAdmin Endpoint - Executing removeCurrency()");
+        try(OperationMetrics.Call call = removeCurrencyMetrics.start())
+        {
+            boolean result = database.removeCurrency(sessionKey, currencyCode);
+            return call.returns(result, !result);
+        }
     }
 
     /**
@@ -42,8 +61,11 @@ public class Admin {
      * @throws AuthenticationException If the session key does not exist
      */
     public String[] listCurrencies(String sessionKey) throws AuthenticationException {
-        System.out.println("\nAdmin Endpoint - Executing listCurrencies()");
-        return database.listCurrencies(sessionKey);
+        Log.debug("\nAdmin Endpoint - Executing listCurrencies()");
+        try(OperationMetrics.Call call = listCurrenciesMetrics.start())
+        {
+            return call.returns(database.listCurrencies(sessionKey));
+        }
     }
 
 
@@ -56,8 +78,31 @@ public class Admin {
      * @throws AuthenticationException If the session key does not exist
      */
     public String[] conversionsFor(String sessionKey, String currencyCode) throws AuthenticationException {
-        System.out.println("\nAdmin Endpoint - Executing conversionsFor()");
-        return database.conversionsFor(sessionKey, currencyCode);
+        Log.debug("\nAdmin Endpoint - Executing conversionsFor()");
+        try(OperationMetrics.Call call = conversionsForMetrics.start())
+        {
+            return call.returns(database.conversionsFor(sessionKey, currencyCode));
+        }
+    }
+
+
+    /**
+     * Gets the rates of the specified currency which changed after a version of the rates, so an unchanged list
+     * of conversions is not sent again. The first element is the current version of the rates, and if anything
+     * changed it is followed by "DELTA" and the changed rates (a removed rate ends in :REMOVED), or by "FULL"
+     * and every rate of the currency when the changes are no longer kept.
+     * @param - sessionKey - The users session key.
+     * @param - currencyCode - The currency code to retrieve the changed rates for
+     * @param - sinceVersion - The version returned by the last call, or -1 for every rate
+     * @return - The current version, followed by the changes if any
+     * @throws AuthenticationException If the session key does not exist
+     */
+    public String[] conversionsForIfChanged(String sessionKey, String currencyCode, long sinceVersion) throws AuthenticationException {
+        Log.debug("\nAdmin Endpoint - Executing conversionsForIfChanged()");
+        try(OperationMetrics.Call call = conversionsForIfChangedMetrics.start())
+        {
+            return call.returns(database.conversionsForIfChanged(sessionKey, currencyCode, sinceVersion));
+        }
     }
 
 
@@ -73,8 +118,12 @@ public class Admin {
      * @throws AuthenticationException If the session key does not exist
      */
     public boolean addRate(String sessionKey, String fromCurrencyCode, String toCurrencyCode, double conversionRate) throws AuthenticationException {
-        System.out.println("\nAdmin Endpoint - Executing addRate()");
-        return database.addRate(sessionKey, fromCurrencyCode, toCurrencyCode, conversionRate);
+        Log.debug("\nAdmin Endpoint - Executing addRate()");
+        try(OperationMetrics.Call call = addRateMetrics.start())
+        {
+            boolean result = database.addRate(sessionKey, fromCurrencyCode, toCurrencyCode, conversionRate);
+            return call.returns(result, !result);
+        }
     }
 
 
@@ -89,8 +138,12 @@ public class Admin {
      * @throws AuthenticationException If the session key does not exist
      */
     public boolean updateRate(String sessionKey, String fromCurrencyCode, String toCurrencyCode, double rate) throws AuthenticationException {
-        System.out.println("\nAdmin Endpoint - Executing updateRate()");
-        return database.updateRate(sessionKey, fromCurrencyCode, toCurrencyCode, rate);
+        Log.debug("\nAdmin Endpoint - Executing updateRate()");
+        try(OperationMetrics.Call call = updateRateMetrics.start())
+        {
+            boolean result = database.updateRate(sessionKey, fromCurrencyCode, toCurrencyCode, rate);
+            return call.returns(result, !result);
+        }
     }
 
 
@@ -104,8 +157,12 @@ public class Admin {
      * @throws AuthenticationException If the session key does not exist
      */
     public boolean removeRate(String sessionKey, String fromCurrencyCode, String toCurrencyCode) throws AuthenticationException {
-        System.out.println("\nAdmin Endpoint - Executing removeRate()");
-        return database.removeRate(sessionKey, fromCurrencyCode, toCurrencyCode);
+        Log.debug("\nAdmin Endpoint - Executing removeRate()");
+        try(OperationMetrics.Call call = removeRateMetrics.start())
+        {
+            boolean result = database.removeRate(sessionKey, fromCurrencyCode, toCurrencyCode);
+            return call.returns(result, !result);
+        }
     }
 
 
@@ -115,7 +172,10 @@ public class Admin {
      * @throws AuthenticationException If the session key does not exist
      */
     public String[] listRates(String sessionKey) throws AuthenticationException {
-        System.out.println("\nAdmin Endpoint - Executing listRates()");
-        return database.listRates(sessionKey);
+        Log.debug("\nAdmin Endpoint - Executing listRates()");
+        try(OperationMetrics.Call call = listRatesMetrics.start())
+        {
+            return call.returns(database.listRates(sessionKey));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+* This class records the calls, errors and latencies of a single operation, such as Conversion.convert.
+* Instances are created and registered with JMX by the Metrics class.
+*
+* The latencies are recorded in a log-linear histogram in the style of HdrHistogram, every power of two of
+* nanoseconds is split into 64 buckets so a percentile is reported within about 1.5%. Recording a call does not
+* lock or create any objects, so it can be done on every request.
+*
+* An operation is timed with a Call in a try-with-resources block, which records the call when the block is left.
+* The call is counted as an error unless the block returns through returns() with a result which is not an error:
+*     try(OperationMetrics.Call call = convertMetrics.start())
+*     {
+*         double result = database.convert(fromCurrencyCode, toCurrencyCode, amount);
+*         return call.returns(result, result < 0);
+*     }
+* A JWS endpoint can not use a lambda or an inner class, as Axis can not read the class file of a lambda and only
+* loads the main class of a JWS file, so the timing is done this way instead.
+*
+* This class is shared by the Currency and Identity services, the same class is copied into both.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class OperationMetrics implements OperationMetricsMBean {
+
+    //CONSTANTS
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final String name;                          //The name of the operation, <Endpoint>.<method>
+    private final LongAdder calls = new LongAdder();    //The number of calls
+    private final LongAdder errors = new LongAdder();   //The number of calls which failed or returned an error value
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);   //The number of calls recorded in each latency bucket
+
+
+
+    /**
+     * Default constructor - Creates the metrics of an operation.
+     * @param name - The name of the operation.
+     */
+    public OperationMetrics(String name) {
+        this.name = name;
+    }
+
+
+
+
+    /**
+     * Records a call of the operation.
+     * @param startNanos - The System.nanoTime() when the call started.
+     * @param failed - TRUE if the call failed or returned an error value.
+     */
+    public void record(long startNanos, boolean failed) {
+        long nanos = Math.max(0, System.nanoTime() - startNanos);
+        calls.increment();
+        if(failed)
+            errors.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets.incrementAndGet(index(nanos));
+    }
+
+
+
+
+    /**
+     * Starts timing a call of the operation.
+     * @return - The call, which must be closed when the operation returns or throws.
+     */
+    public Call start() {
+        return new Call(this);
+    }
+
+
+
+
+    /**
+     * Gets the name of the operation.
+     * @return - The name of the operation.
+     */
+    public String getName() {
+        return name;
+    }
+
+
+
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+
+
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+
+
+
+    /**
+     * Gets the total time spent in the operation.
+     * @return - The total time in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+
+
+
+    public double getMeanMicros() {
+        long count = calls.sum();
+        return count == 0 ? 0 : totalNanos.sum() / NANOS_PER_MICRO / count;
+    }
+
+
+
+
+    public double getMaxMicros() {
+        return maxNanos.get() / NANOS_PER_MICRO;
+    }
+
+
+
+
+    public double getP50Micros() {
+        return getPercentileNanos(50) / NANOS_PER_MICRO;
+    }
+
+
+
+
+    public double getP99Micros() {
+        return getPercentileNanos(99) / NANOS_PER_MICRO;
+    }
+
+
+
+
+    public double getP999Micros() {
+        return getPercentileNanos(99.9) / NANOS_PER_MICRO;
+    }
+
+
+
+
+    /**
+     * Gets the latency which the percentage of recorded calls are less than or equal to.
+     * Calls recorded while the histogram is read may or may not be included.
+     * @param percentile - The percentile, e.g. 99.9
+     * @return - The latency in nanoseconds, 0 if no calls have been recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+
+        //Copy the buckets first so the rank is calculated from the same counts which are searched
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if(total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++)
+        {
+            seen += counts[i];
+            if(seen >= rank)
+                return Math.min(highestValue(i), maxNanos.get());
+        }
+        return maxNanos.get();
+    }
+
+
+
+
+    /**
+     * Gets the bucket a latency is recorded in. Latencies below 64ns have a bucket each, higher latencies are
+     * shifted so the top 7 bits select the bucket within their power of two.
+     * @param nanos - The latency in nanoseconds.
+     * @return - The index of the bucket.
+     */
+    private static int index(long nanos) {
+        if(nanos < SUB_BUCKETS)
+            return (int) nanos;
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (nanos >>> shift);
+    }
+
+
+
+
+    /**
+     * Gets the highest latency recorded in a bucket.
+     * @param index - The index of the bucket.
+     * @return - The highest latency in nanoseconds the bucket can hold.
+     */
+    private static long highestValue(int index) {
+        if(index < SUB_BUCKETS)
+            return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+
+
+
+    /**
+     * A call of an operation which is being timed. The call is recorded when it is closed, as an error unless
+     * a result which is not an error was returned through returns().
+     */
+    public static class Call implements AutoCloseable {
+
+        private final OperationMetrics metrics;
+        private final long startNanos;
+        private boolean failed = true;
+
+
+
+        Call(OperationMetrics metrics) {
+            this.metrics = metrics;
+            this.startNanos = System.nanoTime();
+        }
+
+
+
+
+        /**
+         * Passes through the result of a call which succeeded.
+         * @param result - The result of the operation.
+         * @return - The result.
+         */
+        public <T> T returns(T result) {
+            failed = false;
+            return result;
+        }
+
+
+
+
+        /**
+         * Passes through the result of the call.
+         * @param result - The result of the operation.
+         * @param isError - TRUE if the result is an error value, such as "INVALID" or an empty array.
+         * @return - The result.
+         */
+        public <T> T returns(T result, boolean isError) {
+            failed = isError;
+            return result;
+        }
+
+
+
+
+        /**
+         * Passes through the result of the call.
+         * @param result - The result of the operation.
+         * @param isError - TRUE if the result is an error value, usually FALSE.
+         * @return - The result.
+         */
+        public boolean returns(boolean result, boolean isError) {
+            failed = isError;
+            return result;
+        }
+
+
+
+
+        /**
+         * Passes through the result of the call.
+         * @param result - The result of the operation.
+         * @param isError - TRUE if the result is an error value, usually a negative error code.
+         * @return - The result.
+         */
+        public double returns(double result, boolean isError) {
+            failed = isError;
+            return result;
+        }
+
+
+
+
+        /**
+         * Passes through the result of a call which succeeded.
+         * @param result - The result of the operation.
+         * @return - The result.
+         */
+        public long returns(long result) {
+            failed = false;
+            return result;
+        }
+
+
+
+
+        /**
+         * Records the call.
+         */
+        public void close() {
+            metrics.record(startNanos, failed);
+        }
+    }
+}
\ No newline at end of file
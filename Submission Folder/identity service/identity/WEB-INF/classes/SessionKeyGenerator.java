@@ -0,0 +1,96 @@
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+* This class generates the random session keys given to users by the Login endpoint.
+*
+* Keys are alpha numeric and 22 characters long by default, which is over 130 random bits, so two keys are
+* never expected to be the same and login does not slow down retrying keys which are already used however
+* many users are logged in. The length can be set with the "identity.session.keyLength" system property.
+*
+* Each thread has its own SecureRandom, seeded from the SecureRandom of the operating system, so concurrent
+* logins do not wait for each other to generate a key. Each thread also reuses the same buffers for the random
+* bytes and the characters of the key, so the only object created for a key is the String itself.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class SessionKeyGenerator {
+
+    //CONSTANTS
+    private static final char[] ALPHA_NUM = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final int KEY_LENGTH = Math.max(1, Integer.getInteger("identity.session.keyLength", 22));
+    private static final int SEED_BYTES = 32;
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+
+    //A generator per thread, the SecureRandom of the operating system is shared and locks on every call
+    private static final ThreadLocal<SessionKeyGenerator> GENERATOR = new ThreadLocal<SessionKeyGenerator>() {
+        @Override
+        protected SessionKeyGenerator initialValue() {
+            return new SessionKeyGenerator();
+        }
+    };
+
+    private final SecureRandom random;                          //The random numbers of this thread
+    private final byte[] bytes = new byte[KEY_LENGTH * 2];      //The random bytes not yet used
+    private final char[] key = new char[KEY_LENGTH];            //The characters of the key being generated
+    private int position = bytes.length;                        //The next random byte to use
+
+
+
+
+    /**
+     * Default constructor - Creates a generator with its own seed.
+     */
+    private SessionKeyGenerator() {
+        byte[] seed = new byte[SEED_BYTES];
+        SEED_SOURCE.nextBytes(seed);
+        try
+        {
+            random = SecureRandom.getInstance("SHA1PRNG");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("ERROR: Could not create the session key generator.", e);
+        }
+
+        //Seeding before the first use replaces the default seed
+        random.setSeed(seed);
+    }
+
+
+
+
+    /**
+     * Generates a new random session key.
+     * @return - A random alpha numeric session key.
+     */
+    public static String next() {
+        return GENERATOR.get().generate();
+    }
+
+
+
+
+    /**
+     * Generates a key from the random bytes of this thread.
+     * Each character uses 6 bits of a byte, the bytes above 61 are skipped so every character is equally likely.
+     * @return - The session key.
+     */
+    private String generate() {
+        int length = 0;
+        while(length < KEY_LENGTH)
+        {
+            if(position == bytes.length)
+            {
+                random.nextBytes(bytes);
+                position = 0;
+            }
+
+            int index = bytes[position++] & 0x3F;
+            if(index < ALPHA_NUM.length)
+                key[length++] = ALPHA_NUM[index];
+        }
+        return new String(key);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.xml.namespace.QName;
+import org.apache.axis.client.Call;
+import org.apache.axis.client.Service;
+
+/**
+* This class tells the Currency Service when a session key has been revoked so the Currency Service
+* can remove the key from its session cache. Notifications are sent in the background by a single thread
+* so logging in and out does not wait for the Currency Service to respond. When session tokens are enabled
+* each notification is signed with the shared secret, as the Currency Service ignores unsigned revocations.
+*
+* The Sessions endpoint address defaults to the local Currency Service and can be changed with the
+* "currency.sessions.endpoint" system property.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class SessionRevocationNotifier {
+
+    //CONSTANTS
+    private static final String ENDPOINT = System.getProperty("currency.sessions.endpoint", "http://localhost:8080/currency/Sessions.jws");
+    private static final QName OPERATION = new QName("http://DefaultNamespace", "invalidate");
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private static final Service service = new Service();                   //The Axis service used to create the calls
+    private static final ExecutorService sender = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "session-revocation-notifier");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+
+
+
+    /**
+     * Tells the Currency Service the session key has been revoked.
+     * @param sessionKey - The revoked session key.
+     */
+    public static void revoked(final String sessionKey) {
+        sender.execute(new Runnable() {
+            public void run() {
+                send(sessionKey);
+            }
+        });
+    }
+
+
+
+
+    /**
+     * Calls the invalidate() method of the Sessions endpoint with the signature of the revocation.
+     * The Currency Service rechecks cached keys regularly, so a failed notification is only logged.
+     * @param sessionKey - The revoked session key.
+     */
+    private static void send(String sessionKey) {
+        try
+        {
+            Call call = (Call) service.createCall();
+            call.setTargetEndpointAddress(ENDPOINT);
+            call.setOperationName(OPERATION);
+            call.setTimeout(TIMEOUT_MILLIS);
+            call.invoke(new Object[] { sessionKey, SessionToken.signRevocation(sessionKey) });
+        }
+        catch (Exception e)
+        {
+            System.out.println("ERROR: Could not notify the Currency Service that a session key was revoked.");
+        }
+    }
+}
\ No newline at end of file
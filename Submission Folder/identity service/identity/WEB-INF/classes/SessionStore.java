@@ -0,0 +1,392 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+* This class stores the logged in sessions of the Identity Service and is shared by the concurrent request
+* threads of the Login and Authorisation endpoints. Sessions are kept in a ConcurrentHashMap, so authorising
+* a session key does not lock. A second ConcurrentHashMap indexes the session of each user, so finding and
+* replacing the session of a user who logs in again takes constant time however many users are logged in.
+*
+* Every session expires after its time to live, or after it has not been authorised for the idle timeout.
+* Sessions are scheduled in a TimingWheel which a background thread moves forward every second, so expired
+* sessions are found without scanning every session. An expired session is also rejected by getUsername()
+* straight away, even if the wheel has not reached it yet.
+*
+* The store holds at most "identity.sessions.max" sessions, when it is full the session which would expire
+* next is removed to make room so abandoned session keys can never use all of the memory.
+*
+* If the "identity.sessions.file" system property is set the sessions are saved to the file every few seconds
+* when they have changed and when the JVM shuts down, and are read back when the service is started, so users
+* stay logged in when Tomcat is restarted. The file is written to a temporary file and renamed over the previous
+* file, so a crash while saving leaves the previous file in place.
+*
+* The system properties, with times in milliseconds:
+* - identity.session.ttl          The time a session lasts after the user logs in (default 24 hours)
+* - identity.session.idleTimeout  The time a session lasts after it was last authorised (default 30 minutes)
+* - identity.sessions.max         The maximum number of sessions (default 1000000)
+* - identity.sessions.file        The file the sessions are saved to (default "", not saved)
+* - identity.sessions.saveInterval The time between saves of the sessions (default 5 seconds)
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class SessionStore {
+
+    //CONSTANTS
+    private static final long TICK_MILLIS = 1000;
+    private static final int FILE_MAGIC = 0x53455353;      //"SESS"
+
+    private final long timeToLive;                  //The time a session lasts after the user logs in
+    private final long idleTimeout;                 //The time a session lasts after it was last authorised
+    private final int maxSessions;                  //The maximum number of sessions
+    private final String fileName;                  //The file the sessions are saved to, null if they are not saved
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();   //The logged in sessions <SessionKey, Session>
+    private final ConcurrentHashMap<String, Session> userSessions = new ConcurrentHashMap<>();   //The session of each user <Username, Session>
+    private final TimingWheel wheel = new TimingWheel(TICK_MILLIS, System.currentTimeMillis());
+    private volatile boolean isChanged;             //TRUE if a session was added or removed since the sessions were last saved
+
+
+
+
+    /**
+     * Default constructor - Creates the store using the system properties, reads the saved sessions
+     * and starts the background thread which expires and saves the sessions.
+     */
+    public SessionStore() {
+        timeToLive = Long.getLong("identity.session.ttl", 24 * 60 * 60 * 1000L);
+        idleTimeout = Long.getLong("identity.session.idleTimeout", 30 * 60 * 1000L);
+        maxSessions = Math.max(1, Integer.getInteger("identity.sessions.max", 1000000));
+        String file = System.getProperty("identity.sessions.file", "");
+        fileName = file.isEmpty() ? null : file;
+        long saveInterval = Math.max(TICK_MILLIS, Long.getLong("identity.sessions.saveInterval", 5000L));
+
+        load();
+
+        ScheduledExecutorService expirer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "session-expiry");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        expirer.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                expire();
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        //Save the sessions regularly, and when the JVM shuts down
+        if(fileName != null)
+        {
+            expirer.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    saveIfChanged();
+                }
+            }, saveInterval, saveInterval, TimeUnit.MILLISECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                public void run() {
+                    saveIfChanged();
+                }
+            }, "session-store-save"));
+        }
+    }
+
+
+
+
+    /**
+     * Adds a session if the session key is not already used, replacing the session the user already has.
+     * If the store is full the session which would expire next is removed first.
+     * @param key - The session key.
+     * @param username - The user logging in.
+     * @return - The session key of the session which was replaced, an empty String if the user did not have a session,
+     *           or null if the session key is already used and the session was not added.
+     */
+    public String add(String key, String username) {
+        long now = System.currentTimeMillis();
+        Session session = new Session(key, username, now, now);
+        if(sessions.putIfAbsent(key, session) != null)
+            return null;
+
+        //Swapping the session of the user is a single atomic step, so concurrent logins of the same user
+        //each replace the session before them and only the last session is left
+        String replacedKey = "";
+        Session replaced = userSessions.put(username, session);
+        if(replaced != null && sessions.remove(replaced.getKey(), replaced))
+        {
+            wheel.cancel(replaced);
+            replacedKey = replaced.getKey();
+        }
+
+        //Make room by removing the sessions closest to expiring, the size is approximate under concurrent logins
+        while(sessions.size() > maxSessions)
+        {
+            Session evicted = wheel.pollEarliest();
+            if(evicted == null)
+                break;
+            sessions.remove(evicted.getKey(), evicted);
+            userSessions.remove(evicted.getUsername(), evicted);
+            System.out.println("WARNING: The session store is full, removed the session of " + evicted.getUsername());
+        }
+
+        wheel.schedule(session, session.getDeadline(timeToLive, idleTimeout));
+        isChanged = true;
+        return replacedKey;
+    }
+
+
+
+
+    /**
+     * Gets the user a session key belongs to and records that the session key was used.
+     * @param key - The session key.
+     * @return - The username, null if the session key does not exist or has expired.
+     */
+    public String getUsername(String key) {
+        Session session = use(key, System.currentTimeMillis());
+        return session == null ? null : session.getUsername();
+    }
+
+
+
+
+    /**
+     * Gets the time a session expires if it is not used again and records that the session key was used.
+     * @param key - The session key.
+     * @return - The time the session expires in milliseconds since the epoch, 0 if the session key does not exist or has expired.
+     */
+    public long getExpiry(String key) {
+        long now = System.currentTimeMillis();
+        Session session = use(key, now);
+        return session == null ? 0 : session.getDeadline(timeToLive, idleTimeout);
+    }
+
+
+
+
+    /**
+     * Outlines if a session key is used by a session, including a session which has expired but not been removed.
+     * @param key - The session key.
+     * @return - TRUE if the session key is used, FALSE otherwise.
+     */
+    public boolean contains(String key) {
+        return key != null && sessions.containsKey(key);
+    }
+
+
+
+
+    /**
+     * Removes a session, used when the user logs out.
+     * @param key - The session key.
+     * @return - The user the session belonged to, null if the session key does not exist.
+     */
+    public String remove(String key) {
+        if(key == null)
+            return null;
+        Session session = sessions.remove(key);
+        if(session == null)
+            return null;
+
+        wheel.cancel(session);
+        userSessions.remove(session.getUsername(), session);
+        isChanged = true;
+        return session.getUsername();
+    }
+
+
+
+
+    /**
+     * Finds the session key of a user.
+     * @param username - The username.
+     * @return - The session key of the user, null if the user is not logged in.
+     */
+    public String findKey(String username) {
+        if(username == null)
+            return null;
+        Session session = userSessions.get(username);
+        return session == null ? null : session.getKey();
+    }
+
+
+
+
+    /**
+     * Gets the number of sessions in the store.
+     * @return - The number of sessions, including sessions which have expired but not been removed.
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+
+
+
+    /**
+     * Finds a session which has not expired and records that the session key was used.
+     * @param key - The session key.
+     * @param now - The current time in milliseconds since the epoch.
+     * @return - The session, null if the session key does not exist or has expired.
+     */
+    private Session use(String key, long now) {
+        if(key == null)
+            return null;
+        Session session = sessions.get(key);
+        if(session == null || session.getDeadline(timeToLive, idleTimeout) <= now)
+            return null;
+        session.touch(now);
+        return session;
+    }
+
+
+
+
+    /**
+     * Moves the timing wheel forward and removes the sessions which have expired.
+     * A session which was used since it was scheduled is scheduled again for its new deadline.
+     */
+    private void expire() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for(Session session : wheel.advance(now))
+        {
+            //The session may have been removed after the wheel returned it
+            if(sessions.get(session.getKey()) != session)
+                continue;
+
+            long deadline = session.getDeadline(timeToLive, idleTimeout);
+            if(deadline <= now)
+            {
+                if(sessions.remove(session.getKey(), session))
+                {
+                    userSessions.remove(session.getUsername(), session);
+                    expired++;
+                }
+            }
+            else
+                wheel.schedule(session, deadline);
+        }
+
+        if(expired > 0)
+        {
+            isChanged = true;
+            System.out.println("Expired " + expired + " sessions.");
+        }
+    }
+
+
+
+
+    /**
+     * Saves every session which has not expired if a session was added or removed since the last save.
+     */
+    private synchronized void saveIfChanged() {
+        if(!isChanged)
+            return;
+        isChanged = false;
+
+        Path file = Paths.get(fileName);
+        Path temporary = Paths.get(fileName + ".tmp");
+        long now = System.currentTimeMillis();
+        try
+        {
+            //Copy the sessions first so the count written matches the sessions written
+            List<Session> live = new ArrayList<>(sessions.size());
+            for(Session session : sessions.values())
+            {
+                if(session.getDeadline(timeToLive, idleTimeout) > now)
+                    live.add(session);
+            }
+
+            try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(live.size());
+                for(Session session : live)
+                {
+                    out.writeUTF(session.getKey());
+                    out.writeUTF(session.getUsername());
+                    out.writeLong(session.getCreatedAt());
+                    out.writeLong(session.getLastUsedAt());
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            isChanged = true;
+            System.out.println("ERROR: Could not save the sessions to " + fileName + ": " + e.getMessage());
+        }
+    }
+
+
+
+
+    /**
+     * Reads the saved sessions which have not expired into the store.
+     */
+    private void load() {
+        if(fileName == null)
+            return;
+
+        long now = System.currentTimeMillis();
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(fileName)))))
+        {
+            if(in.readInt() != FILE_MAGIC)
+                throw new IOException("the file is not a session file");
+
+            int count = in.readInt();
+            for(int i = 0; i < count; i++)
+            {
+                Session session = new Session(in.readUTF(), in.readUTF(), in.readLong(), in.readLong());
+                long deadline = session.getDeadline(timeToLive, idleTimeout);
+                if(deadline <= now || sessions.size() >= maxSessions || sessions.containsKey(session.getKey()))
+                    continue;
+
+                //Only the latest session of each user is kept
+                Session previous = userSessions.get(session.getUsername());
+                if(previous != null)
+                {
+                    if(previous.getCreatedAt() >= session.getCreatedAt())
+                        continue;
+                    sessions.remove(previous.getKey());
+                    wheel.cancel(previous);
+                }
+                sessions.put(session.getKey(), session);
+                userSessions.put(session.getUsername(), session);
+                wheel.schedule(session, deadline);
+            }
+            System.out.println("SUCCESS: Read " + sessions.size() + " sessions from " + fileName);
+        }
+        catch (NoSuchFileException e)
+        {
+            //No sessions have been saved yet
+        }
+        catch (IOException e)
+        {
+            System.out.println("ERROR: Could not read the sessions from " + fileName + ": " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
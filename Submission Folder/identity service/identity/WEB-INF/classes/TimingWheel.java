@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* This class represents a hierarchical timing wheel which finds the sessions whose deadline has been reached
+* without scanning every session.
+*
+* The wheel has 4 levels of 64 slots. A slot of the lowest level holds the sessions due in one tick, a slot
+* of each higher level holds the sessions due in 64 times as many ticks as a slot of the level below. With
+* one second ticks the levels cover a minute, an hour, three days and six months. When the wheel reaches a
+* slot of a higher level its sessions are moved down into the lower levels, so every session is moved at
+* most 3 times before it is due. Scheduling, cancelling and finding the due sessions of a tick are constant time.
+*
+* Sessions are linked into the slots through the fields of the Session, so scheduling does not create objects
+* and a session can be removed from its slot in a single step when the user logs out. A deadline beyond the
+* highest level is put in the last slot the highest level reaches, and when the wheel reaches that slot the
+* session is linked again with its own deadline, so it is never returned before it is due.
+*
+* The wheel is shared by the Login and expiry threads, every method holds the lock of the wheel.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class TimingWheel {
+
+    //CONSTANTS
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;                                  //The time covered by a slot of the lowest level
+    private final Session[][] slots = new Session[LEVELS][SLOTS];   //The first session in each slot of each level
+    private long currentTick;                                       //The last tick which has been reached
+    private int size;                                               //The number of scheduled sessions
+
+
+
+
+    /**
+     * Default constructor - Creates an empty wheel.
+     * @param tickMillis - The time covered by a slot of the lowest level, in milliseconds.
+     * @param now - The current time in milliseconds since the epoch.
+     */
+    public TimingWheel(long tickMillis, long now) {
+        this.tickMillis = tickMillis;
+        this.currentTick = now / tickMillis;
+    }
+
+
+
+
+    /**
+     * Schedules a session to be returned by advance() once its deadline has been reached,
+     * replacing the deadline it was scheduled for before.
+     * @param session - The session to schedule.
+     * @param deadline - The deadline of the session in milliseconds since the epoch.
+     */
+    public synchronized void schedule(Session session, long deadline) {
+        if(session.level >= 0)
+            unlink(session);
+
+        //A deadline which has already passed is returned by the next tick
+        long tick = Math.max(currentTick + 1, (deadline + tickMillis - 1) / tickMillis);
+        link(session, tick);
+        size++;
+    }
+
+
+
+
+    /**
+     * Removes a session from the wheel, used when the user logs out.
+     * @param session - The session to remove.
+     */
+    public synchronized void cancel(Session session) {
+        if(session.level < 0)
+            return;
+        unlink(session);
+        size--;
+    }
+
+
+
+
+    /**
+     * Moves the wheel forward to the current time and removes every session which was due in the ticks passed.
+     * A session is returned at its deadline or, if the deadline is beyond the highest level, early.
+     * @param now - The current time in milliseconds since the epoch.
+     * @return - The sessions which are due, the caller confirms each session has expired or schedules it again.
+     */
+    public synchronized List<Session> advance(long now) {
+        List<Session> due = new ArrayList<>();
+        long targetTick = now / tickMillis;
+        while(currentTick < targetTick)
+        {
+            currentTick++;
+
+            //Move the sessions of each higher level slot reached by this tick down into the lower levels
+            for(int level = LEVELS - 1; level > 0; level--)
+            {
+                int shift = SLOT_BITS * level;
+                if((currentTick & ((1L << shift) - 1)) != 0)
+                    continue;
+
+                Session session = detach(level, (int) ((currentTick >>> shift) & SLOT_MASK));
+                while(session != null)
+                {
+                    Session next = session.next;
+                    link(session, session.tick);
+                    session = next;
+                }
+            }
+
+            //Every session in the lowest level slot of this tick is due
+            Session session = detach(0, (int) (currentTick & SLOT_MASK));
+            while(session != null)
+            {
+                Session next = session.next;
+                session.next = null;
+                due.add(session);
+                size--;
+                session = next;
+            }
+        }
+        return due;
+    }
+
+
+
+
+    /**
+     * Removes the session with the earliest deadline, used to make room when the store is full.
+     * @return - The session which was due next, null if the wheel is empty.
+     */
+    public synchronized Session pollEarliest() {
+        for(int level = 0; level < LEVELS; level++)
+        {
+            //Search the slots of the level in the order the wheel reaches them, starting after the current tick
+            long position = currentTick >>> (SLOT_BITS * level);
+            for(int i = 1; i <= SLOTS; i++)
+            {
+                Session session = slots[level][(int) ((position + i) & SLOT_MASK)];
+                if(session != null)
+                {
+                    unlink(session);
+                    size--;
+                    return session;
+                }
+            }
+        }
+        return null;
+    }
+
+
+
+
+    /**
+     * Gets the number of sessions scheduled.
+     * @return - The number of sessions in the wheel.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+
+
+
+    /**
+     * Links a session into the slot of its tick. The session is put in the lowest level which the tick
+     * shares its higher digits with, so it is moved down when the wheel reaches the start of its slot.
+     * @param session - The session, which must not be in a slot.
+     * @param tick - The tick the session is due, which must not be before the current tick.
+     */
+    private void link(Session session, long tick) {
+        int level = 0;
+        while(level < LEVELS - 1 && (tick >>> (SLOT_BITS * (level + 1))) != (currentTick >>> (SLOT_BITS * (level + 1))))
+            level++;
+
+        //A tick beyond the highest level is put in the last slot the highest level reaches, and linked again from there
+        long position = tick >>> (SLOT_BITS * level);
+        if(level == LEVELS - 1)
+            position = Math.min(position, (currentTick >>> (SLOT_BITS * level)) + SLOTS - 1);
+
+        int slot = (int) (position & SLOT_MASK);
+        Session head = slots[level][slot];
+        session.level = level;
+        session.slot = slot;
+        session.tick = tick;
+        session.previous = null;
+        session.next = head;
+        if(head != null)
+            head.previous = session;
+        slots[level][slot] = session;
+    }
+
+
+
+
+    /**
+     * Unlinks a session from its slot.
+     * @param session - The session, which must be in a slot.
+     */
+    private void unlink(Session session) {
+        if(session.previous != null)
+            session.previous.next = session.next;
+        else
+            slots[session.level][session.slot] = session.next;
+        if(session.next != null)
+            session.next.previous = session.previous;
+
+        session.level = -1;
+        session.previous = null;
+        session.next = null;
+    }
+
+
+
+
+    /**
+     * Removes every session from a slot. The sessions are still linked to each other through their next field.
+     * @param level - The level of the slot.
+     * @param slot - The slot.
+     * @return - The first session of the slot, null if the slot is empty.
+     */
+    private Session detach(int level, int slot) {
+        Session head = slots[level][slot];
+        slots[level][slot] = null;
+        for(Session session = head; session != null; session = session.next)
+        {
+            session.level = -1;
+            session.previous = null;
+        }
+        return head;
+    }
+}
\ No newline at end of file
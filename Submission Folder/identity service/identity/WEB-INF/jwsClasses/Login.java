@@ -7,17 +7,25 @@ public class Login {
 
     private static UserDatabase database = new UserDatabase();
 
+    //The metrics of each operation
+    private static final OperationMetrics loginMetrics = Metrics.operation("Login.login");
+    private static final OperationMetrics logoutMetrics = Metrics.operation("Login.logout");
+
     /**
      * The endpoint which logs a user into the application.
      * 
      * @param username - The username logging in.
      * @param password - The password for the user.
-     * @return - A random 5 character string which is the session key. If the
-     *         username or password is incorrect "INVALID" is returned.
+     * @return - A random 22 character string which is the session key, or a signed session token
+     *         if token mode is enabled. If the username or password is incorrect "INVALID" is returned.
      */
     public String login(String username, String password) {
         System.out.println("\nLogin Endpoint - Executing login()");
-        return database.login(username, password);
+        try(OperationMetrics.Call call = loginMetrics.start())
+        {
+            String result = database.login(username, password);
+            return call.returns(result, result == null || result.equals("INVALID"));
+        }
     }
 
 
@@ -29,6 +37,10 @@ public class Login {
      */
     public boolean logout(String key) {
         System.out.println("\nLogin Endpoint - Executing logout()");
-        return database.logout(key);
+        try(OperationMetrics.Call call = logoutMetrics.start())
+        {
+            boolean result = database.logout(key);
+            return call.returns(result, !result);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,311 @@
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+* This class is a load generator for the binary conversion server of the Currency Service, the counterpart of
+* LoadGenerator for the Conversion endpoint, so the two can be compared with the same report.
+*
+* Each worker has its own connection and keeps a number of requests in flight on it (-pipeline), sending the next
+* request as soon as a response arrives. With -pipeline 1 every request waits for the last one, the same as a
+* LoadGenerator worker. The latency of a request is measured from the time it was sent.
+*
+* Compile and run from this folder, the client is shared with the conversion client folder:
+*   javac -cp "../conversion client:../admin client:<axis lib>/*" *.java
+*   java -cp ".:../conversion client" BinaryLoadGenerator -workers 4 -pipeline 64 -duration 30
+*
+* Options:
+*   -workers <n>        The number of connections, each with its own worker, default 4
+*   -pipeline <n>       The number of requests each worker keeps in flight, default 32
+*   -duration <s>       The number of seconds to measure, default 30
+*   -warmup <s>         The number of seconds to send requests before measuring, default 5
+*   -convert <percent>  The percentage of requests which are convert, the rest are rateOf, default 80
+*   -host <host>        The host of the Currency Service, default localhost
+*   -port <port>        The port of the binary conversion server, default 9400
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class BinaryLoadGenerator {
+
+    //CONSTANTS
+    private static final String[] OPERATIONS = { "convert", "rateOf" };
+    private static final int CONVERT = 0;
+    private static final int RATE_OF = 1;
+    private static final String[] CODES = { "AUD", "USD", "NZD", "GBP" };   //The default currencies of the Currency Service
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    //The options of the run
+    private int workers = 4;
+    private int pipeline = 32;
+    private int durationSeconds = 30;
+    private int warmupSeconds = 5;
+    private int convertPercent = 80;
+    private String host = "localhost";
+    private int port = 9400;
+
+
+
+
+    /**
+     * Main Method
+     */
+    public static void main(String[] args) {
+        try
+        {
+            BinaryLoadGenerator generator = new BinaryLoadGenerator(args);
+            generator.run();
+        }
+        catch(Exception e)
+        {
+            System.out.println("ERROR: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+
+
+
+
+    /**
+     * Default constructor - Reads the options of the run.
+     * @param args - The command line arguments as <option> <value> pairs.
+     * @throws IllegalArgumentException if an option is not recognised or the value is invalid.
+     */
+    public BinaryLoadGenerator(String[] args) throws IllegalArgumentException {
+        if(args.length % 2 != 0)
+            throw new IllegalArgumentException("Every option must have a value.");
+
+        for(int i = 0; i < args.length; i += 2)
+        {
+            String value = args[i + 1];
+            switch (args[i])
+            {
+                case "-workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "-pipeline":
+                    pipeline = Integer.parseInt(value);
+                    break;
+                case "-duration":
+                    durationSeconds = Integer.parseInt(value);
+                    break;
+                case "-warmup":
+                    warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "-convert":
+                    convertPercent = Integer.parseInt(value);
+                    break;
+                case "-host":
+                    host = value;
+                    break;
+                case "-port":
+                    port = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        if(workers < 1 || pipeline < 1 || durationSeconds < 1 || warmupSeconds < 0 || convertPercent < 0 || convertPercent > 100)
+            throw new IllegalArgumentException("The workers, pipeline and duration must be positive, the warmup must not be negative and convert must be a percentage.");
+    }
+
+
+
+
+
+    /**
+     * Runs the workers for the warmup and the measured duration, then prints the report.
+     * @throws Exception if the server could not be reached.
+     */
+    public void run() throws Exception {
+        System.out.println("Running " + workers + " workers with " + pipeline + " requests in flight each for "
+                + warmupSeconds + "s warmup + " + durationSeconds + "s against " + host + ":" + port);
+
+        //Every worker starts at the same time and records the requests which are sent after the warmup
+        long start = System.nanoTime() + NANOS_PER_SECOND / 10;
+        long measureFrom = start + warmupSeconds * NANOS_PER_SECOND;
+        long end = measureFrom + durationSeconds * NANOS_PER_SECOND;
+
+        ArrayList<Worker> allWorkers = new ArrayList<>();
+        CountDownLatch finished = new CountDownLatch(workers);
+        for(int i = 0; i < workers; i++)
+        {
+            Worker worker = new Worker(start, measureFrom, end, finished);
+            allWorkers.add(worker);
+            Thread thread = new Thread(worker, "binary-load-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        finished.await();
+
+        //Add the results of the workers together and print the report
+        LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+        long[] errors = new long[OPERATIONS.length];
+        long lastFinished = end;
+        for(int op = 0; op < OPERATIONS.length; op++)
+            histograms[op] = new LatencyHistogram();
+        for(Worker worker : allWorkers)
+        {
+            if(worker.failure != null)
+                throw worker.failure;
+            lastFinished = Math.max(lastFinished, worker.finishedAt);
+            for(int op = 0; op < OPERATIONS.length; op++)
+            {
+                histograms[op].add(worker.histograms[op]);
+                errors[op] += worker.errors[op];
+            }
+        }
+        printReport(histograms, errors, (double) (lastFinished - measureFrom) / NANOS_PER_SECOND);
+    }
+
+
+
+
+
+    /**
+     * Prints the throughput and latency percentiles of each operation and of all the operations together.
+     * @param histograms - The latencies of each operation.
+     * @param errors - The number of failed requests of each operation.
+     * @param seconds - The number of seconds the measured requests took to complete.
+     */
+    private void printReport(LatencyHistogram[] histograms, long[] errors, double seconds) {
+        LatencyHistogram total = new LatencyHistogram();
+        long totalErrors = 0;
+
+        System.out.println("--------------------------------------------------------------------------------------");
+        System.out.println(String.format("%-12s %10s %8s %12s %10s %10s %10s %10s", "operation", "requests", "errors", "requests/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        System.out.println("--------------------------------------------------------------------------------------");
+        for(int op = 0; op < OPERATIONS.length; op++)
+        {
+            if(histograms[op].getTotalCount() == 0)
+                continue;
+            printRow(OPERATIONS[op], histograms[op], errors[op], seconds);
+            total.add(histograms[op]);
+            totalErrors += errors[op];
+        }
+        System.out.println("--------------------------------------------------------------------------------------");
+        printRow("total", total, totalErrors, seconds);
+        System.out.println("--------------------------------------------------------------------------------------");
+        System.out.println("Latencies are measured from the time each request was sent, with " + pipeline + " requests in flight per connection.");
+    }
+
+
+
+
+
+    /**
+     * Prints a row of the report.
+     * @param name - The name of the operation.
+     * @param histogram - The latencies of the operation.
+     * @param errors - The number of failed requests of the operation.
+     * @param seconds - The number of seconds the measured requests took to complete.
+     */
+    private void printRow(String name, LatencyHistogram histogram, long errors, double seconds) {
+        System.out.println(String.format("%-12s %10d %8d %12.1f %10.3f %10.3f %10.3f %10.3f", name,
+                histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                histogram.getPercentile(50) / 1000000.0, histogram.getPercentile(99) / 1000000.0,
+                histogram.getPercentile(99.9) / 1000000.0, histogram.getMax() / 1000000.0));
+    }
+
+
+
+
+
+    /**
+     * A worker keeps the pipeline of its own connection full until the end of the run and records the latencies.
+     * The responses are recorded by the reader thread of the client, so the results are guarded by the worker.
+     */
+    private class Worker implements Runnable {
+
+        private final long start;                   //The time the run starts
+        private final long measureFrom;             //Requests sent before this time are part of the warmup
+        private final long end;                     //The time the run ends
+        private final CountDownLatch finished;      //Counted down when the worker has finished
+        private final Semaphore inFlight = new Semaphore(pipeline);     //A permit for each request which can be in flight
+        private final LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+        private final long[] errors = new long[OPERATIONS.length];
+        private Exception failure;                  //The exception which stopped the worker, null if it finished normally
+        private long finishedAt;                    //The time the last response of the worker arrived
+
+        private Worker(long start, long measureFrom, long end, CountDownLatch finished) {
+            this.start = start;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.finished = finished;
+            for(int op = 0; op < OPERATIONS.length; op++)
+                histograms[op] = new LatencyHistogram();
+        }
+
+
+
+
+        public void run() {
+            try (BinaryConversionClient client = new BinaryConversionClient(host, port))
+            {
+                LockSupport.parkNanos(start - System.nanoTime());
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                while(System.nanoTime() < end)
+                {
+                    if(!inFlight.tryAcquire(1, TimeUnit.SECONDS))
+                        throw new IllegalStateException("No response from the server for 1 second.");
+
+                    final int op = random.nextInt(100) < convertPercent ? CONVERT : RATE_OF;
+                    //The server has no rate from a currency to itself, so pick two different currencies
+                    int fromIndex = random.nextInt(CODES.length);
+                    String from = CODES[fromIndex];
+                    String to = CODES[(fromIndex + 1 + random.nextInt(CODES.length - 1)) % CODES.length];
+                    final long sentAt = System.nanoTime();
+
+                    CompletableFuture<Double> result = op == CONVERT
+                            ? client.convertAsync(from, to, 1 + random.nextInt(1000))
+                            : client.rateOfAsync(from, to);
+                    result.whenComplete(new BiConsumer<Double, Throwable>() {
+                        public void accept(Double value, Throwable error) {
+                            record(op, sentAt, error == null && value >= 0);
+                        }
+                    });
+                }
+
+                //Wait for the requests which are still in flight
+                if(!inFlight.tryAcquire(pipeline, 5, TimeUnit.SECONDS))
+                    throw new IllegalStateException("The last responses did not arrive.");
+            }
+            catch(Exception e)
+            {
+                failure = e;
+            }
+            finally
+            {
+                finishedAt = System.nanoTime();
+                finished.countDown();
+            }
+        }
+
+
+
+
+        /**
+         * Records the response to a request and frees its place in the pipeline.
+         * @param op - The operation of the request.
+         * @param sentAt - The time the request was sent.
+         * @param ok - TRUE if the request succeeded.
+         */
+        private synchronized void record(int op, long sentAt, boolean ok) {
+            if(sentAt >= measureFrom)
+            {
+                histograms[op].record(System.nanoTime() - sentAt);
+                if(!ok)
+                    errors[op]++;
+            }
+            inFlight.release();
+        }
+    }
+}
\ No newline at end of file
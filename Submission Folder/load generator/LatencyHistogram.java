@@ -0,0 +1,141 @@
+/**
+* This class represents a histogram of request latencies used by the LoadGenerator.
+*
+* Latencies are recorded in nanoseconds into log-linear buckets, every power of two is split into 64 buckets so
+* a percentile is reported within about 1.5% of the recorded latency, and recording a latency is a single array
+* increment with no objects created. Each worker records into its own histogram and the histograms are added
+* together once the run has finished, so the workers do not share any state while recording.
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class LatencyHistogram {
+
+    //CONSTANTS
+    private static final int SUB_BUCKET_BITS = 6;                           //Every power of two is split into 2^6 buckets
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private long[] counts;          //The number of latencies recorded in each bucket
+    private long totalCount;        //The number of latencies recorded
+    private long max;               //The highest latency recorded
+
+
+
+    /**
+     * Default constructor - Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new long[BUCKETS];
+        totalCount = 0;
+        max = 0;
+    }
+
+
+
+
+    /**
+     * Records a latency.
+     * @param nanos - The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        if(nanos < 0)
+            nanos = 0;
+        counts[index(nanos)]++;
+        totalCount++;
+        if(nanos > max)
+            max = nanos;
+    }
+
+
+
+
+    /**
+     * Adds the latencies recorded by another histogram to this histogram.
+     * @param other - The histogram to add.
+     */
+    public void add(LatencyHistogram other) {
+        for(int i = 0; i < BUCKETS; i++)
+            counts[i] += other.counts[i];
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+    }
+
+
+
+
+    /**
+     * Gets the number of latencies recorded.
+     * @return - The number of latencies.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+
+
+
+    /**
+     * Gets the highest latency recorded.
+     * @return - The highest latency in nanoseconds, 0 if nothing has been recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+
+
+
+    /**
+     * Gets the latency which the percentage of recorded latencies are less than or equal to.
+     * @param percentile - The percentile, e.g. 99.9
+     * @return - The latency in nanoseconds, 0 if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        if(totalCount == 0)
+            return 0;
+
+        //Find the bucket which contains the latency at the rank of the percentile
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++)
+        {
+            seen += counts[i];
+            if(seen >= rank)
+                return Math.min(highestValue(i), max);
+        }
+        return max;
+    }
+
+
+
+
+    /**
+     * Gets the bucket a latency is recorded in. Latencies below 64ns have a bucket each, higher latencies are
+     * shifted so the top 7 bits select the bucket within their power of two.
+     * @param nanos - The latency in nanoseconds.
+     * @return - The index of the bucket.
+     */
+    private static int index(long nanos) {
+        if(nanos < SUB_BUCKETS)
+            return (int) nanos;
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (nanos >>> shift);
+    }
+
+
+
+
+    /**
+     * Gets the highest latency recorded in a bucket.
+     * @param index - The index of the bucket.
+     * @return - The highest latency in nanoseconds the bucket can hold.
+     */
+    private static long highestValue(int index) {
+        if(index < SUB_BUCKETS)
+            return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,439 @@
+import localhost.currency.Admin_jws.*;
+import localhost.currency.Conversion_jws.*;
+import localhost.identity.Login_jws.*;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+* This class is a headless load generator for the Conversion and Admin endpoints of the Currency Service.
+* It uses the same generated stubs as the CurrencyClient and AdminClient, so every request is a real SOAP request
+* to a running Tomcat/Axis server.
+*
+* A number of workers send a mix of convert, rateOf, listRates and updateRate requests, each worker with its own stubs.
+* Without a target rate each worker sends its next request as soon as the last one returns. With a target rate
+* (-rate) the requests are sent on a fixed schedule shared by the workers, and the latency of each request is measured
+* from the time it was scheduled to be sent rather than the time it was sent. When the server falls behind, the requests
+* waiting for a worker are counted as waiting, so the percentiles are corrected for coordinated omission.
+*
+* Compile and run from this folder, the stubs are shared with the client folders:
+*   javac -cp "../conversion client:../admin client:<axis lib>/*" *.java
+*   java -cp ".:../conversion client:../admin client:<axis lib>/*" LoadGenerator -workers 16 -rate 2000 -duration 60
+*
+* Options:
+*   -workers <n>        The number of concurrent workers, default 8
+*   -rate <n>           The target number of requests per second of all workers, default 0 (as fast as possible)
+*   -duration <s>       The number of seconds to measure, default 30
+*   -warmup <s>         The number of seconds to send requests before measuring, default 5
+*   -mix <op=weight,..> The weights of the operations, default convert=70,rateOf=20,listRates=9,updateRate=1
+*   -currency <url>     The Currency Service, default http://localhost:8080/currency
+*   -identity <url>     The Identity Service used to log in for updateRate, default http://localhost:8080/identity
+*   -username <name>    The admin username, default hayden
+*   -password <pass>    The admin password, default 1234
+*
+* @author  Jonathan Williams - C3237808 - SENG3400 Assignment 2
+* @since   18/10/2018
+*/
+public class LoadGenerator {
+
+    //CONSTANTS
+    private static final String[] OPERATIONS = { "convert", "rateOf", "listRates", "updateRate" };
+    private static final int CONVERT = 0;
+    private static final int RATE_OF = 1;
+    private static final int LIST_RATES = 2;
+    private static final int UPDATE_RATE = 3;
+    private static final String[] CODES = { "AUD", "USD", "NZD", "GBP" };   //The default currencies of the Currency Service
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    //The options of the run
+    private int workers = 8;
+    private double rate = 0;
+    private int durationSeconds = 30;
+    private int warmupSeconds = 5;
+    private int[] weights = { 70, 20, 9, 1 };
+    private String currencyUrl = "http://localhost:8080/currency";
+    private String identityUrl = "http://localhost:8080/identity";
+    private String username = "hayden";
+    private String password = "1234";
+
+    private String sessionKey;          //The session key used for updateRate requests
+
+
+
+
+    /**
+     * Main Method
+     */
+    public static void main(String[] args) {
+        try
+        {
+            LoadGenerator generator = new LoadGenerator(args);
+            generator.run();
+        }
+        catch(Exception e)
+        {
+            System.out.println("ERROR: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+
+
+
+
+    /**
+     * Default constructor - Reads the options of the run.
+     * @param args - The command line arguments as <option> <value> pairs.
+     * @throws IllegalArgumentException if an option is not recognised or the value is invalid.
+     */
+    public LoadGenerator(String[] args) throws IllegalArgumentException {
+        if(args.length % 2 != 0)
+            throw new IllegalArgumentException("Every option must have a value.");
+
+        for(int i = 0; i < args.length; i += 2)
+        {
+            String value = args[i + 1];
+            switch (args[i])
+            {
+                case "-workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "-rate":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "-duration":
+                    durationSeconds = Integer.parseInt(value);
+                    break;
+                case "-warmup":
+                    warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "-mix":
+                    weights = parseMix(value);
+                    break;
+                case "-currency":
+                    currencyUrl = value;
+                    break;
+                case "-identity":
+                    identityUrl = value;
+                    break;
+                case "-username":
+                    username = value;
+                    break;
+                case "-password":
+                    password = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        if(workers < 1 || durationSeconds < 1 || warmupSeconds < 0 || rate < 0)
+            throw new IllegalArgumentException("The workers and duration must be positive and the warmup and rate must not be negative.");
+    }
+
+
+
+
+
+    /**
+     * Runs the workers for the warmup and the measured duration, then prints the report.
+     * @throws Exception if the services could not be reached or the admin user could not log in.
+     */
+    public void run() throws Exception {
+
+        //Log in once for all the workers if the mix contains admin writes
+        if(weights[UPDATE_RATE] > 0)
+        {
+            Login login = new LoginServiceLocator().getLogin(new URL(identityUrl + "/Login.jws"));
+            sessionKey = login.login(username, password);
+            if(sessionKey == null || sessionKey.equals("INVALID"))
+                throw new IllegalStateException("Could not log in as " + username + ".");
+        }
+
+        System.out.println("Running " + workers + " workers " + (rate > 0 ? "at " + rate + " requests/s" : "as fast as possible")
+                + " for " + warmupSeconds + "s warmup + " + durationSeconds + "s against " + currencyUrl);
+
+        //Every worker starts at the same time and records the requests which are sent after the warmup
+        long start = System.nanoTime() + NANOS_PER_SECOND / 10;
+        long measureFrom = start + warmupSeconds * NANOS_PER_SECOND;
+        long end = measureFrom + durationSeconds * NANOS_PER_SECOND;
+
+        ArrayList<Worker> allWorkers = new ArrayList<>();
+        CountDownLatch finished = new CountDownLatch(workers);
+        for(int i = 0; i < workers; i++)
+        {
+            Worker worker = new Worker(i, start, measureFrom, end, finished);
+            allWorkers.add(worker);
+            Thread thread = new Thread(worker, "load-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        finished.await();
+
+        //Add the results of the workers together and print the report
+        LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+        long[] errors = new long[OPERATIONS.length];
+        long lastFinished = end;
+        for(int op = 0; op < OPERATIONS.length; op++)
+            histograms[op] = new LatencyHistogram();
+        for(Worker worker : allWorkers)
+        {
+            if(worker.failure != null)
+                throw worker.failure;
+            lastFinished = Math.max(lastFinished, worker.finishedAt);
+            for(int op = 0; op < OPERATIONS.length; op++)
+            {
+                histograms[op].add(worker.histograms[op]);
+                errors[op] += worker.errors[op];
+            }
+        }
+
+        //When the server can not keep up with the target rate the workers finish late, so the throughput is measured until the last request returns
+        printReport(histograms, errors, (double) (lastFinished - measureFrom) / NANOS_PER_SECOND);
+    }
+
+
+
+
+
+    /**
+     * Prints the throughput and latency percentiles of each operation and of all the operations together.
+     * @param histograms - The latencies of each operation.
+     * @param errors - The number of failed requests of each operation.
+     * @param seconds - The number of seconds the measured requests took to complete.
+     */
+    private void printReport(LatencyHistogram[] histograms, long[] errors, double seconds) {
+        LatencyHistogram total = new LatencyHistogram();
+        long totalErrors = 0;
+
+        System.out.println("--------------------------------------------------------------------------------------");
+        System.out.println(String.format("%-12s %10s %8s %12s %10s %10s %10s %10s", "operation", "requests", "errors", "requests/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        System.out.println("--------------------------------------------------------------------------------------");
+        for(int op = 0; op < OPERATIONS.length; op++)
+        {
+            if(weights[op] == 0)
+                continue;
+            printRow(OPERATIONS[op], histograms[op], errors[op], seconds);
+            total.add(histograms[op]);
+            totalErrors += errors[op];
+        }
+        System.out.println("--------------------------------------------------------------------------------------");
+        printRow("total", total, totalErrors, seconds);
+        System.out.println("--------------------------------------------------------------------------------------");
+
+        if(rate > 0)
+            System.out.println("Latencies are measured from the scheduled send time (corrected for coordinated omission), target " + rate + " requests/s.");
+        else
+            System.out.println("Latencies are service times, run with -rate to measure against a schedule and correct for coordinated omission.");
+    }
+
+
+
+
+
+    /**
+     * Prints a row of the report.
+     * @param name - The name of the operation.
+     * @param histogram - The latencies of the operation.
+     * @param errors - The number of failed requests of the operation.
+     * @param seconds - The number of seconds the measured requests took to complete.
+     */
+    private void printRow(String name, LatencyHistogram histogram, long errors, double seconds) {
+        System.out.println(String.format("%-12s %10d %8d %12.1f %10.3f %10.3f %10.3f %10.3f", name,
+                histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                millis(histogram.getPercentile(50)), millis(histogram.getPercentile(99)),
+                millis(histogram.getPercentile(99.9)), millis(histogram.getMax())));
+    }
+
+
+
+
+
+    /**
+     * Converts the -mix option into the weights of the operations.
+     * @param mix - The weights as <operation>=<weight> pairs separated by commas.
+     * @return - The weight of each operation, indexed the same as OPERATIONS.
+     * @throws IllegalArgumentException if an operation is not recognised or every weight is 0.
+     */
+    private static int[] parseMix(String mix) throws IllegalArgumentException {
+        HashMap<String, Integer> operationIndex = new HashMap<>();
+        for(int op = 0; op < OPERATIONS.length; op++)
+            operationIndex.put(OPERATIONS[op], op);
+
+        int[] mixWeights = new int[OPERATIONS.length];
+        int total = 0;
+        for(String pair : mix.split(","))
+        {
+            String[] parts = pair.split("=");
+            Integer op = operationIndex.get(parts[0].trim());
+            if(op == null || parts.length != 2)
+                throw new IllegalArgumentException("Unknown operation in mix: " + pair);
+            mixWeights[op] = Integer.parseInt(parts[1].trim());
+            total += mixWeights[op];
+        }
+
+        if(total <= 0)
+            throw new IllegalArgumentException("The mix must contain at least one operation.");
+        return mixWeights;
+    }
+
+
+
+
+
+    /**
+     * Converts nanoseconds into milliseconds.
+     * @param nanos - The time in nanoseconds.
+     * @return - The time in milliseconds.
+     */
+    private static double millis(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+
+
+
+
+    /**
+     * A worker sends requests with its own stubs until the end of the run and records their latencies.
+     */
+    private class Worker implements Runnable {
+
+        private final int index;                    //The index of the worker, used to spread the schedule between the workers
+        private final long start;                   //The time the run starts
+        private final long measureFrom;             //Requests scheduled before this time are part of the warmup
+        private final long end;                     //The time the run ends
+        private final CountDownLatch finished;      //Counted down when the worker has finished
+        private final LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+        private final long[] errors = new long[OPERATIONS.length];
+        private Exception failure;                  //The exception which stopped the worker, null if it finished normally
+        private long finishedAt;                    //The time the last request of the worker returned
+
+        private Worker(int index, long start, long measureFrom, long end, CountDownLatch finished) {
+            this.index = index;
+            this.start = start;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.finished = finished;
+            for(int op = 0; op < OPERATIONS.length; op++)
+                histograms[op] = new LatencyHistogram();
+        }
+
+
+
+
+        public void run() {
+            try
+            {
+                Conversion conversion = new ConversionServiceLocator().getConversion(new URL(currencyUrl + "/Conversion.jws"));
+                Admin admin = new AdminServiceLocator().getAdmin(new URL(currencyUrl + "/Admin.jws"));
+
+                //With a target rate the workers take turns, request n of this worker is scheduled at (n * workers + index) / rate
+                long interval = rate > 0 ? (long) (NANOS_PER_SECOND * workers / rate) : 0;
+                long scheduled = rate > 0 ? start + (long) (NANOS_PER_SECOND * index / rate) : start;
+                LockSupport.parkNanos(start - System.nanoTime());
+
+                while(scheduled < end)
+                {
+                    //Wait for the scheduled time, a request which is already late is sent straight away
+                    long sendAt;
+                    if(rate > 0)
+                    {
+                        long wait = scheduled - System.nanoTime();
+                        if(wait > 0)
+                            LockSupport.parkNanos(wait);
+                        sendAt = scheduled;
+                        scheduled += interval;
+                    }
+                    else
+                    {
+                        sendAt = System.nanoTime();
+                        scheduled = sendAt;
+                    }
+
+                    int op = pickOperation();
+                    boolean ok = send(op, conversion, admin);
+                    long latency = System.nanoTime() - sendAt;
+
+                    if(sendAt >= measureFrom)
+                    {
+                        histograms[op].record(latency);
+                        if(!ok)
+                            errors[op]++;
+                    }
+                }
+            }
+            catch(Exception e)
+            {
+                failure = e;
+            }
+            finally
+            {
+                finishedAt = System.nanoTime();
+                finished.countDown();
+            }
+        }
+
+
+
+
+        /**
+         * Picks the next operation using the weights of the mix.
+         * @return - The index of the operation.
+         */
+        private int pickOperation() {
+            int total = 0;
+            for(int weight : weights)
+                total += weight;
+
+            int pick = ThreadLocalRandom.current().nextInt(total);
+            for(int op = 0; op < weights.length; op++)
+            {
+                pick -= weights[op];
+                if(pick < 0)
+                    return op;
+            }
+            return CONVERT;
+        }
+
+
+
+
+        /**
+         * Sends a request between two random default currencies.
+         * @param op - The operation to send.
+         * @param conversion - The Conversion endpoint of this worker.
+         * @param admin - The Admin endpoint of this worker.
+         * @return - TRUE if the request succeeded, FALSE if it failed or the update was rejected.
+         */
+        private boolean send(int op, Conversion conversion, Admin admin) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String from = CODES[random.nextInt(CODES.length)];
+            String to = CODES[random.nextInt(CODES.length)];
+            try
+            {
+                switch (op)
+                {
+                    case CONVERT:
+                        conversion.convert(from, to, 1 + random.nextInt(1000));
+                        return true;
+                    case RATE_OF:
+                        conversion.rateOf(from, to);
+                        return true;
+                    case LIST_RATES:
+                        return conversion.listRates() != null;
+                    default:
+                        //Move the AUD-USD rate slightly so the rates stay close to the defaults
+                        return admin.updateRate(sessionKey, "AUD", "USD", 0.69 + random.nextDouble() * 0.02);
+                }
+            }
+            catch(Exception e)
+            {
+                return false;
+            }
+        }
+    }
+}
\ No newline at end of file